@@ -0,0 +1,151 @@
+package main.java.hospital.bench;
+
+import main.java.hospital.model.Patient;
+import main.java.hospital.service.*;
+import main.java.hospital.util.AuditService;
+import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.DatabaseSchema;
+import main.java.hospital.util.EmbeddedBackend;
+import main.java.hospital.util.MySqlBackend;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmark-uri pentru căile critice ale serviciilor, rulate pe backend-ul embedded
+ * (H2 în modul MySQL - driverul trebuie să fie pe classpath) populat cu date sintetice.
+ * Cu -Dhospital.bench.url se rulează pe alt server JDBC, iar eticheta implicită din CSV este numele
+ * backend-ului, ca rulările pe backend-uri diferite să poată fi comparate.
+ *
+ * Exemplu:
+ *   java -cp out:mysql-connector-j-9.3.0.jar:h2-2.2.224.jar main.java.hospital.bench.BenchmarkRunner
+ *        -Dhospital.bench.patients=100000 -Dhospital.bench.include=Patient.*
+ *
+ * Rezultatele se adaugă în hospital.bench.out (CSV); cu -Dhospital.bench.baseline=fișier.csv
+ * se afișează și diferența față de o rulare anterioară.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        // Baza de date și fișierul de audit trebuie fixate înainte de prima folosire a singleton-urilor
+        // Fără hospital.bench.url rulăm pe backend-ul embedded, care își creează singur schema
+        String benchUrl = System.getProperty("hospital.bench.url");
+        if (benchUrl == null) {
+            // fără driver, pool-ul ar porni oricum și fiecare benchmark ar măsura doar erori de conexiune
+            if (!EmbeddedBackend.isDriverAvailable()) {
+                throw new IllegalStateException("Benchmark-ul are nevoie de driverul H2 (h2-2.2.224.jar pe classpath) "
+                        + "sau de o bază externă dată cu -Dhospital.bench.url");
+            }
+            System.setProperty("hospital.db.backend", EmbeddedBackend.NAME);
+            System.setProperty("hospital.db.embedded.name", "hospital_bench");
+        } else {
+            System.setProperty("hospital.db.backend", MySqlBackend.NAME);
+            System.setProperty("hospital.db.url", benchUrl);
+            System.setProperty("hospital.db.user", System.getProperty("hospital.bench.user", "sa"));
+            System.setProperty("hospital.db.password", System.getProperty("hospital.bench.password", ""));
+        }
+        Path auditFile = Files.createTempFile("hospital-bench-audit", ".csv");
+        System.setProperty("hospital.audit.file", auditFile.toString());
+
+        DatasetGenerator data = DatasetGenerator.fromSystemProperties();
+        long start = System.nanoTime();
+        if (benchUrl != null) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                DatabaseSchema.createAll(conn);
+            }
+        }
+        data.insertAll();
+        System.out.printf("🧪 Date sintetice generate în %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        Pattern include = Pattern.compile(System.getProperty("hospital.bench.include", ".*"));
+        MicroBenchmark harness = MicroBenchmark.fromSystemProperties();
+        Map<String, Supplier<?>> benchmarks = createBenchmarks(data);
+
+        List<MicroBenchmark.Result> results = new ArrayList<>();
+        for (Map.Entry<String, Supplier<?>> entry : benchmarks.entrySet()) {
+            if (!include.matcher(entry.getKey()).matches()) continue;
+            MicroBenchmark.Result result = harness.run(entry.getKey(), entry.getValue());
+            results.add(result);
+            System.out.println(result);
+        }
+
+        publish(results, data);
+        AuditService.getInstance().shutdown();
+        DatabaseConnection.getPool().shutdown();
+    }
+
+    private static Map<String, Supplier<?>> createBenchmarks(DatasetGenerator data) {
+        Map<String, Supplier<?>> benchmarks = new LinkedHashMap<>();
+        Random random = new Random(7);
+        int patients = Math.max(1, data.getPatients());
+
+        PatientService patientService = new PatientService();
+        DoctorService doctorService = new DoctorService();
+        MedicalAppointmentService appointmentService = new MedicalAppointmentService();
+        InvoiceService invoiceService = new InvoiceService(patientService);
+        DiagnosisService diagnosisService = new DiagnosisService();
+
+        benchmarks.put("PatientService.getPatientByCnp",
+                () -> patientService.getPatientByCnp(DatasetGenerator.cnp(1 + random.nextInt(patients))));
+        benchmarks.put("PatientService.getPatientById",
+                () -> patientService.getPatientById(1 + random.nextInt(patients)));
+        benchmarks.put("MedicalAppointmentService.getAllAppointments",
+                appointmentService::getAllAppointments);
+        benchmarks.put("InvoiceService.totals",
+                () -> invoiceService.getTotalRevenue() + invoiceService.getTotalUnpaidAmount());
+        benchmarks.put("DiagnosisService.loadFromDatabase", () -> {
+            diagnosisService.loadFromDatabase(doctorService.getAllDoctors());
+            return diagnosisService;
+        });
+        benchmarks.put("AuditService.log",
+                () -> { AuditService.getInstance().log("BENCH_EVENT"); return null; });
+        benchmarks.put("Patient.isValidCnpStructure",
+                () -> Patient.isValidCnpStructure(DatasetGenerator.cnp(1 + random.nextInt(patients))));
+        return benchmarks;
+    }
+
+    private static void publish(List<MicroBenchmark.Result> results, DatasetGenerator data) throws IOException {
+        Path out = Paths.get(System.getProperty("hospital.bench.out", "bench/results.csv"));
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        boolean header = !Files.exists(out) || Files.size(out) == 0;
+
+        String runAt = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        String label = System.getProperty("hospital.bench.label", DatabaseConnection.getBackend().getName());
+        try (PrintWriter writer = new PrintWriter(new FileWriter(out.toFile(), true))) {
+            if (header) writer.println("run_at,label,patients,benchmark,ops_per_s,stddev,bytes_per_op");
+            for (MicroBenchmark.Result r : results) {
+                writer.printf(Locale.ROOT, "%s,%s,%d,%s,%.2f,%.2f,%.1f%n", runAt, label, data.getPatients(),
+                        r.getName(), r.getOpsPerSecond(), r.getStdDev(), r.getBytesPerOp());
+            }
+        }
+        System.out.println("📄 Rezultate salvate în " + out);
+
+        String baseline = System.getProperty("hospital.bench.baseline");
+        if (baseline != null) compareWithBaseline(results, Paths.get(baseline));
+    }
+
+    // Compară cu ultima valoare din fișierul de referință pentru fiecare benchmark
+    private static void compareWithBaseline(List<MicroBenchmark.Result> results, Path baseline) throws IOException {
+        Map<String, Double> previous = new HashMap<>();
+        for (String line : Files.readAllLines(baseline)) {
+            String[] cols = line.split(",");
+            if (cols.length < 7 || cols[0].equals("run_at")) continue;
+            previous.put(cols[3], Double.parseDouble(cols[4]));
+        }
+
+        System.out.println("=== Față de " + baseline + " ===");
+        for (MicroBenchmark.Result r : results) {
+            Double before = previous.get(r.getName());
+            if (before == null || before == 0) continue;
+            System.out.printf("%-44s %+8.1f%%%n", r.getName(), 100.0 * (r.getOpsPerSecond() - before) / before);
+        }
+    }
+}
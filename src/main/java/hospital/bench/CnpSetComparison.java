@@ -0,0 +1,91 @@
+package main.java.hospital.bench;
+
+import main.java.hospital.util.LongHashSet;
+import main.java.hospital.util.MappedLongHashSet;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Compară registrele de CNP-uri: HashSet<String> (implementarea veche din Patient), LongHashSet în heap
+ * și MappedLongHashSet off-heap - memorie ocupată și throughput pentru contains(), la hospital.bench.cnpEntries
+ * intrări (implicit 20M; necesită în jur de -Xmx4g pentru HashSet<String>).
+ *
+ * Căutările alternează CNP-uri existente și inexistente; pentru mulțimile de long se include și conversia
+ * din String, ca în CnpRegistry.
+ */
+public class CnpSetComparison {
+
+    private static final int PROBES = 1 << 20;
+
+    public static void main(String[] args) throws Exception {
+        int entries = Integer.getInteger("hospital.bench.cnpEntries", 20_000_000);
+        MicroBenchmark harness = MicroBenchmark.fromSystemProperties();
+
+        // CNP-urile 1..entries sunt în mulțime; sondele impare cad în afara ei
+        String[] probes = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            long index = (i & 1) == 0 ? 1 + (mix(i) % entries) : entries + 1 + (mix(i) % entries);
+            probes[i] = DatasetGenerator.cnp(index);
+        }
+
+        System.out.printf("=== %,d CNP-uri ===%n", entries);
+
+        long before = usedHeap();
+        Set<String> strings = new HashSet<>();
+        fill(entries, i -> strings.add(DatasetGenerator.cnp(i)));
+        report("HashSet<String>", usedHeap() - before, 0);
+        System.out.println(harness.run("HashSet<String>.contains", cycling(probes, strings::contains)));
+        strings.clear();
+
+        before = usedHeap();
+        LongHashSet heap = new LongHashSet(entries);
+        fill(entries, i -> heap.add(Long.parseLong(DatasetGenerator.cnp(i))));
+        report("LongHashSet", usedHeap() - before, 0);
+        System.out.println(harness.run("LongHashSet.contains", cycling(probes, s -> heap.contains(Long.parseLong(s)))));
+        heap.clear();
+
+        Path file = Files.createTempFile("cnp-set", ".idx");
+        before = usedHeap();
+        MappedLongHashSet mapped = new MappedLongHashSet(file, entries);
+        fill(entries, i -> mapped.add(Long.parseLong(DatasetGenerator.cnp(i))));
+        mapped.force(0);
+        report("MappedLongHashSet", usedHeap() - before, Files.size(file));
+        System.out.println(harness.run("MappedLongHashSet.contains", cycling(probes, s -> mapped.contains(Long.parseLong(s)))));
+        Files.deleteIfExists(file);
+    }
+
+    private static Supplier<Boolean> cycling(String[] probes, Predicate<String> lookup) {
+        int[] next = {0};
+        return () -> lookup.test(probes[next[0]++ & (PROBES - 1)]);
+    }
+
+    private static void fill(int entries, IntConsumer add) {
+        for (int i = 1; i <= entries; i++) {
+            add.accept(i);
+        }
+    }
+
+    private static void report(String name, long heapBytes, long offHeapBytes) {
+        System.out.printf("%-20s heap: %,d MB%s%n", name, heapBytes >> 20,
+                offHeapBytes > 0 ? String.format(", fișier mapat: %,d MB", offHeapBytes >> 20) : "");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        return (z ^ (z >>> 33)) & Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,486 @@
+package main.java.hospital.bench;
+
+import main.java.hospital.model.BloodGroup;
+import main.java.hospital.model.RhType;
+import main.java.hospital.model.Shift;
+import main.java.hospital.model.Specialization;
+import main.java.hospital.util.AuditService;
+import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.DatabaseSchema;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Generator de date sintetice pentru teste de volum, determinist pentru un seed dat.
+ *
+ * Fiecare tabel e împărțit în blocuri de CHUNK_SIZE rânduri, iar fiecare bloc are propriul generator
+ * aleator derivat din (seed, tabel, bloc) - rezultatul nu depinde de numărul de fire. Blocurile se
+ * generează în paralel și se scriu pe măsură ce sunt gata, cu cel mult câteva blocuri în memorie:
+ * fie ca SQL (INSERT-uri multi-rând pentru schema din DatabaseSchema), fie direct prin loturi JDBC.
+ *
+ * Exemplu:
+ *   java ... main.java.hospital.bench.DatasetGenerator sql hospital.sql -Dhospital.bench.patients=2000000
+ *   java ... main.java.hospital.bench.DatasetGenerator jdbc
+ */
+public class DatasetGenerator {
+
+    private static final String[] FIRST_NAMES = {"Ana", "Maria", "Ioana", "Elena", "Andreea", "Cristina", "Mihaela", "Gabriela",
+            "Andrei", "Mihai", "Alexandru", "Stefan", "Radu", "Ion", "George", "Florin", "Daniel", "Adrian"};
+    private static final String[] LAST_NAMES = {"Popescu", "Ionescu", "Popa", "Stan", "Dumitru", "Stoica", "Gheorghe", "Matei",
+            "Ciobanu", "Rusu", "Munteanu", "Constantin", "Marin", "Tudor", "Dinu", "Radu", "Florea", "Nistor"};
+    private static final String[] CITIES = {"București", "Cluj-Napoca", "Iași", "Timișoara", "Constanța", "Brașov", "Craiova", "Galați"};
+    private static final String[] DIAGNOSES = {"Hipertensiune", "Diabet tip 2", "Migrenă", "Astm", "Gastrită", "Anemie", "Bronșită",
+            "Dermatită", "Lombalgie", "Sinuzită", "Otită", "Hipotiroidism"};
+    private static final String[] MEDICATIONS = {"Paracetamol", "Ibuprofen", "Metformin", "Amoxicilină", "Omeprazol", "Salbutamol",
+            "Enalapril", "Levotiroxină", "Fier", "Cetirizină"};
+    private static final String[] REASONS = {"Consultație", "Control periodic", "Analize", "Durere", "Reevaluare tratament"};
+    private static final String[] CERTIFICATIONS = {"BLS", "BLS, ACLS", "BLS, PALS", "ACLS"};
+
+    // Distribuții aproximative pentru populația din România: grupe O/A/B/AB, Rh pozitiv ~85%
+    private static final BloodGroup[] BLOOD_GROUPS = weighted(new BloodGroup[]{BloodGroup.O, BloodGroup.A, BloodGroup.B, BloodGroup.AB},
+            new int[]{32, 38, 21, 9});
+    private static final LocalDate BASE_DATE = LocalDate.of(2024, 1, 1);
+    private static final DateTimeFormatter SQL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static final int CHUNK_SIZE = 10_000;
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    private final int patients;
+    private final int doctors;
+    private final int nurses;
+    private final int diagnoses;
+    private final int prescriptionsPerDiagnosis;
+    private final int consultations;
+    private final int appointments;
+    private final int invoices;
+    private final long seed;
+    private final int threads;
+
+    public DatasetGenerator(int patients, int doctors, int nurses, int diagnoses, int prescriptionsPerDiagnosis,
+                            int consultations, int appointments, int invoices, long seed, int threads) {
+        this.patients = patients;
+        this.doctors = Math.max(1, doctors);
+        this.nurses = nurses;
+        this.diagnoses = diagnoses;
+        this.prescriptionsPerDiagnosis = prescriptionsPerDiagnosis;
+        this.consultations = consultations;
+        this.appointments = appointments;
+        this.invoices = invoices;
+        this.seed = seed;
+        this.threads = Math.max(1, threads);
+    }
+
+    // Dimensiunile se citesc din -Dhospital.bench.* (valori implicite mici, pentru o rulare rapidă)
+    public static DatasetGenerator fromSystemProperties() {
+        return new DatasetGenerator(
+                Integer.getInteger("hospital.bench.patients", 10_000),
+                Integer.getInteger("hospital.bench.doctors", 200),
+                Integer.getInteger("hospital.bench.nurses", 300),
+                Integer.getInteger("hospital.bench.diagnoses", 20_000),
+                Integer.getInteger("hospital.bench.prescriptionsPerDiagnosis", 2),
+                Integer.getInteger("hospital.bench.consultations", 20_000),
+                Integer.getInteger("hospital.bench.appointments", 50_000),
+                Integer.getInteger("hospital.bench.invoices", 50_000),
+                Long.getLong("hospital.bench.seed", 42L),
+                Integer.getInteger("hospital.bench.threads", Runtime.getRuntime().availableProcessors())
+        );
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "sql";
+        DatasetGenerator generator = fromSystemProperties();
+        long start = System.nanoTime();
+
+        if (mode.equalsIgnoreCase("jdbc")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                DatabaseSchema.createAll(conn);
+            }
+            generator.insertAll();
+        } else {
+            String file = args.length > 1 ? args[1] : "hospital_data.sql";
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    Files.newOutputStream(Paths.get(file)), StandardCharsets.UTF_8), 1 << 16)) {
+                generator.writeSql(out);
+            }
+            System.out.println("📄 Date scrise în " + file);
+        }
+        System.out.printf("🧪 Generare terminată în %d ms%n", (System.nanoTime() - start) / 1_000_000);
+        AuditService.getInstance().shutdown();
+    }
+
+    /**
+     * Scrie toate tabelele ca INSERT-uri SQL, în ordinea id-urilor.
+     */
+    public void writeSql(Writer out) throws IOException {
+        for (Table table : tables()) {
+            out.write("-- " + table.name + ": " + table.rows + " rânduri\n");
+            generate(table, this::renderSql, out, threads);
+        }
+        out.flush();
+        AuditService.getInstance().log("GENERATE_DATASET_SQL: " + describe());
+    }
+
+    /**
+     * Inserează toate tabelele prin loturi JDBC; fiecare bloc folosește propria conexiune din pool
+     * și se confirmă separat. Tabelele trebuie să existe (vezi DatabaseSchema).
+     */
+    public void insertAll() throws IOException {
+        // Mai multe fire decât conexiuni în pool ar aștepta doar după conexiuni
+        int parallelism = Math.min(threads, DatabaseConnection.getPool().getMaxSize());
+        for (Table table : tables()) {
+            generate(table, (t, from, to) -> {
+                insertChunk(t, from, to);
+                return "";
+            }, null, parallelism);
+        }
+        AuditService.getInstance().log("GENERATE_DATASET_JDBC: " + describe());
+    }
+
+    public int getPatients() {
+        return patients;
+    }
+
+    public String describe() {
+        return String.format("patients=%d, doctors=%d, nurses=%d, diagnoses=%d, prescriptions=%d, consultations=%d, appointments=%d, invoices=%d, seed=%d",
+                patients, doctors, nurses, diagnoses, (long) diagnoses * prescriptionsPerDiagnosis, consultations, appointments, invoices, seed);
+    }
+
+    // ==================== execuție paralelă ====================
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        String run(Table table, long from, long to) throws Exception;
+    }
+
+    // Blocurile se execută în paralel, dar rezultatele se scriu în ordine; fereastra limitează memoria folosită
+    private void generate(Table table, ChunkTask task, Writer out, int parallelism) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "dataset-" + table.name);
+            t.setDaemon(true);
+            return t;
+        });
+        Deque<Future<String>> window = new ArrayDeque<>();
+        try {
+            for (long from = 1; from <= table.rows; from += CHUNK_SIZE) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(table.rows, from + CHUNK_SIZE - 1);
+                window.addLast(executor.submit(() -> task.run(table, chunkFrom, chunkTo)));
+                if (window.size() >= parallelism * 2) {
+                    drain(window.pollFirst(), out);
+                }
+            }
+            while (!window.isEmpty()) {
+                drain(window.pollFirst(), out);
+            }
+        } finally {
+            window.forEach(f -> f.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    private static void drain(Future<String> chunk, Writer out) throws IOException {
+        try {
+            String text = chunk.get();
+            if (out != null) out.write(text);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generare întreruptă", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Generarea unui bloc a eșuat: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private String renderSql(Table table, long from, long to) {
+        StringBuilder sb = new StringBuilder((int) (to - from + 1) * 96);
+        Object[] values = new Object[table.columns.length];
+        SplittableRandom random = chunkRandom(table, from);
+        for (long i = from; i <= to; i++) {
+            if ((i - from) % ROWS_PER_STATEMENT == 0) {
+                if (i != from) sb.append(";\n");
+                sb.append("INSERT INTO ").append(table.name).append(" (").append(String.join(", ", table.columns)).append(") VALUES\n");
+            } else {
+                sb.append(",\n");
+            }
+            table.rowGenerator.fill(i, random, values);
+            sb.append('(');
+            for (int c = 0; c < values.length; c++) {
+                if (c > 0) sb.append(", ");
+                appendLiteral(sb, values[c]);
+            }
+            sb.append(')');
+        }
+        return sb.append(";\n").toString();
+    }
+
+    private void insertChunk(Table table, long from, long to) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(table.columns.length, "?"));
+        String sql = "INSERT INTO " + table.name + " (" + String.join(", ", table.columns) + ") VALUES (" + placeholders + ")";
+        Object[] values = new Object[table.columns.length];
+        SplittableRandom random = chunkRandom(table, from);
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (long i = from; i <= to; i++) {
+                    table.rowGenerator.fill(i, random, values);
+                    for (int c = 0; c < values.length; c++) {
+                        bind(stmt, c + 1, values[c]);
+                    }
+                    stmt.addBatch();
+                    if ((i - from + 1) % ROWS_PER_STATEMENT == 0) stmt.executeBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+        if (value instanceof LocalDate date) {
+            stmt.setDate(index, Date.valueOf(date));
+        } else if (value instanceof LocalDateTime dateTime) {
+            stmt.setTimestamp(index, Timestamp.valueOf(dateTime));
+        } else {
+            stmt.setObject(index, value);
+        }
+    }
+
+    private static void appendLiteral(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("NULL");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value.toString().toUpperCase());
+        } else if (value instanceof LocalDateTime dateTime) {
+            sb.append('\'').append(SQL_DATE_TIME.format(dateTime)).append('\'');
+        } else {
+            sb.append('\'').append(value.toString().replace("\\", "\\\\").replace("'", "''")).append('\'');
+        }
+    }
+
+    private SplittableRandom chunkRandom(Table table, long from) {
+        return new SplittableRandom(mix(seed ^ mix(table.name.hashCode()) ^ mix(from)));
+    }
+
+    // Valoare pseudo-aleatoare stabilă pentru o entitate, folosită când două tabele trebuie să fie de acord (ex: data unui diagnostic)
+    private long attribute(String kind, long id) {
+        return mix(seed + 31L * kind.hashCode() + id) >>> 1;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // ==================== tabele și distribuții ====================
+
+    @FunctionalInterface
+    private interface RowGenerator {
+        void fill(long id, SplittableRandom random, Object[] values);
+    }
+
+    private static final class Table {
+        private final String name;
+        private final String[] columns;
+        private final long rows;
+        private final RowGenerator rowGenerator;
+
+        Table(String name, long rows, RowGenerator rowGenerator, String... columns) {
+            this.name = name;
+            this.rows = rows;
+            this.rowGenerator = rowGenerator;
+            this.columns = columns;
+        }
+    }
+
+    private List<Table> tables() {
+        Specialization[] specializations = Specialization.values();
+        Shift[] shifts = Shift.values();
+
+        return List.of(
+                new Table("medical_records", patients, (id, r, v) -> {
+                    v[0] = id;
+                    v[1] = BASE_DATE.minusDays(r.nextInt(3650));
+                }, "id", "creation_date"),
+
+                new Table("patients", patients, (id, r, v) -> {
+                    String first = pick(r, FIRST_NAMES);
+                    String last = pick(r, LAST_NAMES);
+                    v[0] = id;
+                    v[1] = first;
+                    v[2] = last;
+                    v[3] = (first + "." + last + id + "@example.com").toLowerCase();
+                    v[4] = phone(id);
+                    v[5] = cnp(id);
+                    v[6] = "Str. " + pick(r, LAST_NAMES) + " nr. " + (1 + r.nextInt(200)) + ", " + pick(r, CITIES);
+                    v[7] = pick(r, BLOOD_GROUPS).name();
+                    v[8] = (r.nextInt(100) < 85 ? RhType.POSITIVE : RhType.NEGATIVE).name();
+                    v[9] = id;
+                    v[10] = r.nextInt(20) != 0;
+                }, "id", "first_name", "last_name", "email", "phone_number", "cnp", "address", "blood_group", "rh_type",
+                        "medical_record_id", "active"),
+
+                new Table("doctors", doctors, (id, r, v) -> {
+                    v[0] = id;
+                    v[1] = pick(r, FIRST_NAMES);
+                    v[2] = pick(r, LAST_NAMES);
+                    v[3] = "doctor" + id + "@example.com";
+                    v[4] = phone(50_000_000 + id);
+                    v[5] = specializations[(int) (attribute("specialization", id) % specializations.length)].name();
+                    v[6] = 1 + (r.nextInt(20) + r.nextInt(20)); // triunghiulară, medie ~20 ani
+                    v[7] = String.format("DR%06d", id);
+                }, "id", "first_name", "last_name", "email", "phone_number", "specialization", "years_of_experience", "parafa_code"),
+
+                new Table("nurses", nurses, (id, r, v) -> {
+                    v[0] = id;
+                    v[1] = pick(r, FIRST_NAMES);
+                    v[2] = pick(r, LAST_NAMES);
+                    v[3] = "nurse" + id + "@example.com";
+                    v[4] = phone(60_000_000 + id);
+                    v[5] = pick(r, CERTIFICATIONS);
+                    v[6] = r.nextInt(15) + r.nextInt(15);
+                    v[7] = String.format("NR%06d", id);
+                    v[8] = pick(r, shifts).name();
+                    v[9] = r.nextInt(4) == 0;
+                }, "id", "first_name", "last_name", "email", "phone_number", "certifications", "years_of_experience",
+                        "staff_code", "shift", "is_on_call"),
+
+                new Table("diagnoses", diagnoses, (id, r, v) -> {
+                    v[0] = id;
+                    v[1] = pick(r, DIAGNOSES);
+                    v[2] = "Generat sintetic";
+                    v[3] = diagnosisDate(id);
+                    v[4] = 1 + r.nextInt(doctors);
+                    v[5] = frequentPatient(r);
+                }, "id", "name", "description", "date", "doctor_id", "medical_record_id"),
+
+                // Rețetele sunt grupate pe diagnostic: rândul k aparține diagnosticului (k-1)/prescriptionsPerDiagnosis + 1
+                new Table("prescriptions", (long) diagnoses * prescriptionsPerDiagnosis, (id, r, v) -> {
+                    LocalDate date = diagnosisDate((id - 1) / prescriptionsPerDiagnosis + 1);
+                    LocalDate end = date.plusDays(5 + r.nextInt(10) + r.nextInt(50));
+                    boolean autoRenew = r.nextInt(5) == 0;
+                    v[0] = id;
+                    v[1] = pick(r, MEDICATIONS);
+                    v[2] = (1 + r.nextInt(3)) + "x/zi";
+                    v[3] = date;
+                    v[4] = end;
+                    v[5] = date;
+                    v[6] = autoRenew;
+                    v[7] = autoRenew ? end : null;
+                    v[8] = (id - 1) / prescriptionsPerDiagnosis + 1;
+                }, "id", "medication", "dosage", "start_date", "end_date", "date_issued", "auto_renew", "renew_date", "diagnosis_id"),
+
+                new Table("consultations", consultations, (id, r, v) -> {
+                    v[0] = id;
+                    v[1] = frequentPatient(r);
+                    v[2] = 1 + r.nextInt(doctors);
+                    v[3] = workingDay(r, 365).toLocalDate();
+                    // Fiecare consultație are un diagnostic: ConsultationService nu acceptă diagnosis_id NULL
+                    v[4] = diagnoses > 0 ? 1 + r.nextInt(diagnoses) : null;
+                    v[5] = pick(r, REASONS);
+                }, "id", "patient_id", "doctor_id", "date", "diagnosis_id", "notes"),
+
+                // Programările acoperă 425 de zile, până la BASE_DATE + 365, în sloturi de 30 de minute
+                new Table("medical_appointments", appointments, (id, r, v) -> {
+                    v[0] = id;
+                    v[1] = frequentPatient(r);
+                    v[2] = 1 + r.nextInt(doctors);
+                    v[3] = 1 + r.nextInt(100);
+                    v[4] = workingDay(r, 425);
+                    v[5] = pick(r, REASONS);
+                }, "id", "patient_id", "doctor_id", "room_number", "date_time", "reason"),
+
+                // Sume log-normale (mediană ~250 lei); facturile vechi sunt în general plătite
+                new Table("invoices", invoices, (id, r, v) -> {
+                    long cents = Math.round(Math.exp(Math.log(25_000) + 0.8 * gaussian(r)));
+                    int ageDays = r.nextInt(365);
+                    v[0] = id;
+                    v[1] = frequentPatient(r);
+                    v[2] = BigDecimal.valueOf(Math.max(1_000, Math.min(cents, 5_000_000)), 2);
+                    v[3] = "Servicii medicale";
+                    v[4] = BASE_DATE.plusDays(365 - ageDays);
+                    v[5] = r.nextInt(100) < Math.min(95, 40 + ageDays);
+                }, "id", "patient_id", "amount", "description", "date", "is_paid")
+        );
+    }
+
+    private LocalDate diagnosisDate(long diagnosisId) {
+        return BASE_DATE.plusDays(attribute("diagnosis_date", diagnosisId) % 365);
+    }
+
+    // Puțini pacienți vin des, mulți vin rar: indexul e înclinat spre valori mici
+    private long frequentPatient(SplittableRandom r) {
+        if (patients <= 0) return 1;
+        double u = r.nextDouble();
+        return 1 + (long) (patients * u * u * u);
+    }
+
+    // Zi lucrătoare între 08:00 și 19:30, în cele `spanDays` zile care se încheie la BASE_DATE + 365
+    private static LocalDateTime workingDay(SplittableRandom r, int spanDays) {
+        LocalDate day = BASE_DATE.plusDays(425 - 60 - r.nextInt(spanDays));
+        if (day.getDayOfWeek() == DayOfWeek.SATURDAY) day = day.minusDays(1);
+        if (day.getDayOfWeek() == DayOfWeek.SUNDAY) day = day.plusDays(1);
+        return day.atTime(8, 0).plusMinutes(30L * r.nextInt(24));
+    }
+
+    private static double gaussian(SplittableRandom r) {
+        double u1 = 1.0 - r.nextDouble();
+        double u2 = r.nextDouble();
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private static <T> T pick(SplittableRandom r, T[] values) {
+        return values[r.nextInt(values.length)];
+    }
+
+    private static <T> T[] weighted(T[] values, int[] weights) {
+        List<T> expanded = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            for (int w = 0; w < weights[i]; w++) expanded.add(values[i]);
+        }
+        return expanded.toArray(Arrays.copyOf(values, 0));
+    }
+
+    /**
+     * CNP valid și unic pentru indexul dat: data nașterii și numărul de ordine derivă din index,
+     * iar cifra de control se calculează ca în Patient.isValidCnpStructure.
+     */
+    public static String cnp(long index) {
+        LocalDate birth = LocalDate.of(1940, 1, 1).plusDays((index / 1000) % 29_000);
+        int sex = birth.getYear() >= 2000 ? (index % 2 == 0 ? 5 : 6) : (index % 2 == 0 ? 1 : 2);
+        String body = String.format("%d%02d%02d%02d%02d%03d",
+                sex, birth.getYear() % 100, birth.getMonthValue(), birth.getDayOfMonth(),
+                1 + (index / 29_000_000) % 46, index % 1000);
+        final int[] weights = {2, 7, 9, 1, 4, 6, 3, 5, 8, 2, 7, 9};
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (body.charAt(i) - '0') * weights[i];
+        }
+        int control = sum % 11;
+        if (control == 10) control = 1;
+        return body + control;
+    }
+
+    private static String phone(long index) {
+        return String.format("07%08d", index % 100_000_000);
+    }
+}
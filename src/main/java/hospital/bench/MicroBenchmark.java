@@ -0,0 +1,108 @@
+package main.java.hospital.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Harness minimal de măsurare: iterații de încălzire, apoi iterații măsurate de durată fixă.
+ * Raportează throughput (op/s, medie și abatere) și octeți alocați per operație pe firul curent.
+ * Rezultatul fiecărei operații este consumat, ca JIT-ul să nu poată elimina apelul.
+ */
+public class MicroBenchmark {
+
+    private static volatile int sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+
+    public MicroBenchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = TimeUnit.MILLISECONDS.toNanos(iterationMillis);
+    }
+
+    public static MicroBenchmark fromSystemProperties() {
+        return new MicroBenchmark(
+                Integer.getInteger("hospital.bench.warmup", 3),
+                Integer.getInteger("hospital.bench.iterations", 5),
+                Long.getLong("hospital.bench.iterationMs", 1000L)
+        );
+    }
+
+    public Result run(String name, Supplier<?> operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            runIteration(operation);
+        }
+
+        double[] throughput = new double[measurementIterations];
+        long totalOps = 0;
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] iteration = runIteration(operation);
+            totalOps += iteration[0];
+            throughput[i] = iteration[0] * 1e9 / iteration[1];
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        double mean = 0;
+        for (double t : throughput) mean += t;
+        mean /= measurementIterations;
+        double variance = 0;
+        for (double t : throughput) variance += (t - mean) * (t - mean);
+        double stdDev = measurementIterations > 1 ? Math.sqrt(variance / (measurementIterations - 1)) : 0;
+
+        return new Result(name, mean, stdDev, allocated < 0 ? -1 : (double) allocated / Math.max(1, totalOps), totalOps);
+    }
+
+    // {operații, durată în ns}; o iterație execută cel puțin o operație, chiar dacă e mai lungă decât bugetul
+    private long[] runIteration(Supplier<?> operation) {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Object result = operation.get();
+            sink ^= result == null ? 0 : System.identityHashCode(result);
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[]{ops, elapsed};
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+            return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static class Result {
+        private final String name;
+        private final double opsPerSecond;
+        private final double stdDev;
+        private final double bytesPerOp;
+        private final long operations;
+
+        Result(String name, double opsPerSecond, double stdDev, double bytesPerOp, long operations) {
+            this.name = name;
+            this.opsPerSecond = opsPerSecond;
+            this.stdDev = stdDev;
+            this.bytesPerOp = bytesPerOp;
+            this.operations = operations;
+        }
+
+        public String getName() { return name; }
+        public double getOpsPerSecond() { return opsPerSecond; }
+        public double getStdDev() { return stdDev; }
+        public double getBytesPerOp() { return bytesPerOp; }
+        public long getOperations() { return operations; }
+
+        @Override
+        public String toString() {
+            return String.format("%-44s %14.1f ± %-10.1f op/s %14.0f B/op", name, opsPerSecond, stdDev, bytesPerOp);
+        }
+    }
+}
@@ -32,6 +32,8 @@ public class InvoiceMenu {
             System.out.println("7. Raport: Total venituri și restanțe");
             System.out.println("8. Afișează facturi între două date");
             System.out.println("9. Afișează facturi pentru un pacient între două date");
+            System.out.println("10. Afișează facturile dintr-o zi");
+            System.out.println("11. Reîncarcă facturile din baza de date");
             System.out.println("0. Înapoi");
             System.out.print("Alegere: ");
             while (!scanner.hasNextInt()) {
@@ -51,6 +53,11 @@ public class InvoiceMenu {
                 case 7 -> showReport();
                 case 8 -> invoiceService.menuInvoicesBetweenDates();
                 case 9 -> filterPatientInvoicesByDate();
+                case 10 -> invoiceService.menuInvoicesByDate();
+                case 11 -> {
+                    invoiceService.loadInvoicesFromDB();
+                    System.out.println("✅ Facturile au fost reîncărcate.");
+                }
                 case 0 -> System.out.println("Revenire la meniul principal...");
                 default -> System.out.println("⚠️ Opțiune invalidă.");
             }
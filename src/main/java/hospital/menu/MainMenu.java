@@ -1,7 +1,11 @@
 package main.java.hospital.menu;
 
 import main.java.hospital.service.*;
+import main.java.hospital.util.Metrics;
+import main.java.hospital.util.StartupGraph;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 public class MainMenu {
@@ -32,45 +36,57 @@ public class MainMenu {
     private InvoiceMenu invoiceMenu;
     private NurseMenu nurseMenu;
 
+    private final StartupGraph startup = new StartupGraph();
+
     private MainMenu() {
-            // Inițializare servicii
+        // Inițializare servicii fără încărcare
         this.departmentService = MedicalDepartmentService.getInstance();
         this.roomService = new RoomService();
+        this.diagnosisService = new DiagnosisService();
+        this.prescriptionService = new PrescriptionService();
 
-        // Pas 1: încarcă întâi DEPARTAMENTELE
-        this.departmentService.loadDepartmentsOnly();
-
-        // Pas 2: conectare servicii
+        // Conectare servicii
         this.departmentService.setRoomService(this.roomService);
         this.roomService.setDepartmentService(this.departmentService);
 
-        // Pas 3: încarcă camerele DUPĂ ce departamentele sunt gata
-        this.roomService.loadRoomsFromDB();
-
-        this.departmentService.initialize();
-
-        // ✅ Inițializăm celelalte servicii
-        this.patientService = new PatientService();
-        this.doctorService = new DoctorService();
-        this.diagnosisService = new DiagnosisService();
-        this.prescriptionService = new PrescriptionService();
-        this.medicalRecordService = new MedicalRecordService();
-        this.consultationService = new ConsultationService(this.medicalRecordService);
-        this.appointmentService = new MedicalAppointmentService();
-        this.nurseService = new NurseService();
-        this.invoiceService = new InvoiceService(this.patientService);
+        // ✅ Fiecare încărcare rulează o singură dată, după dependențele ei; ramurile independente rulează în paralel
+        startup
+                .stage("departments", departmentService::loadDepartmentsOnly)
+                .stage("rooms", roomService::loadRoomsFromDB, "departments")
+                // doctorii și asistentele din departamente sunt aceleași instanțe ca în serviciile lor (EntityCache)
+                .stage("departmentGraph", departmentService::initialize, "rooms", "doctors", "nurses")
+                .stage("patients", () -> patientService = new PatientService())
+                .stage("doctors", () -> doctorService = new DoctorService())
+                .stage("diagnoses", () -> diagnosisService.loadFromDatabase(doctorService.getAllDoctors()), "doctors")
+                .stage("medicalRecords", () -> medicalRecordService = new MedicalRecordService())
+                .stage("medicalRecordLinks", () -> medicalRecordService.linkDiagnoses(diagnosisService),
+                        "medicalRecords", "diagnoses")
+                .stage("patientRecordLinks", () -> patientService.linkMedicalRecords(medicalRecordService),
+                        "patients", "medicalRecordLinks")
+                .stage("consultations", () -> consultationService = new ConsultationService(
+                                medicalRecordService, patientService, doctorService, diagnosisService),
+                        "medicalRecords", "patients", "doctors", "diagnoses")
+                .stage("appointments", () -> appointmentService = new MedicalAppointmentService(), "patients", "doctors")
+                .stage("nurses", () -> nurseService = new NurseService())
+                .stage("invoices", () -> {
+                    invoiceService = new InvoiceService(patientService);
+                    patientService.setInvoiceService(invoiceService);
+                }, "patients")
+                .run();
 
         // ✅ Inițializăm meniurile
-        this.patientMenu = new PatientMenu(this.patientService, this.medicalRecordService, this.invoiceService);
+        MedicalRecordMenu medicalRecordMenu = new MedicalRecordMenu(this.patientService, this.diagnosisService,
+                this.doctorService, this.prescriptionService, this.medicalRecordService);
+        this.patientMenu = new PatientMenu(this.patientService, this.medicalRecordService, this.invoiceService, medicalRecordMenu);
         this.doctorMenu = new DoctorMenu(this.doctorService);
         this.consultationMenu = new ConsultationMenu(this.consultationService, this.patientService, this.doctorService, this.diagnosisService);
         this.appointmentMenu = new MedicalAppointmentMenu(this.appointmentService, this.doctorService, this.patientService, this.roomService);
-        this.departmentMenu = new MedicalDepartmentMenu(this.departmentService, this.roomService, this.nurseService);
+        this.departmentMenu = new MedicalDepartmentMenu(this.departmentService, this.roomService, this.nurseService, this.doctorService);
         this.invoiceMenu = new InvoiceMenu(this.invoiceService);
         this.nurseMenu = new NurseMenu(this.nurseService);
     }
 
-    public static MainMenu getInstance() {
+    public static synchronized MainMenu getInstance() {
         if (instance == null) {
             instance = new MainMenu();
         }
@@ -78,11 +94,7 @@ public class MainMenu {
     }
 
     public void init() {
-        doctorService.loadFromDatabase();
-        diagnosisService.loadFromDatabase(doctorService.getAllDoctors());
-        medicalRecordService.loadMedicalRecordsFromDB(diagnosisService);
-        patientService.linkMedicalRecords(medicalRecordService);
-
+        startup.printReport();
         System.out.println("✅ Datele au fost încărcate din baza de date.");
     }
 
@@ -97,6 +109,7 @@ public class MainMenu {
             System.out.println("5. Facturi");
             System.out.println("6. Departamente medicale");
             System.out.println("7. Asistente medicale");
+            System.out.println("8. Diagnosticare (metrici)");
             System.out.println("0. Ieșire");
             System.out.print("Alegere: ");
 
@@ -116,10 +129,31 @@ public class MainMenu {
                 case 5 -> invoiceMenu.showMenu();
                 case 6 -> departmentMenu.showMenu();
                 case 7 -> nurseMenu.showMenu();
+                case 8 -> showDiagnostics();
                 case 0 -> System.out.println("🔚 Ieșire din aplicație.");
                 default -> System.out.println("⚠️ Opțiune invalidă.");
             }
 
         } while (option != 0);
     }
+
+    // Afișează metricile operațiilor; opțional le exportă ca JSON sau le resetează
+    private void showDiagnostics() {
+        Metrics metrics = Metrics.getInstance();
+        metrics.printReport();
+        System.out.print("Export JSON (e), resetare (r) sau Enter pentru înapoi: ");
+        String choice = scanner.nextLine().trim().toLowerCase();
+        if (choice.equals("e")) {
+            Path file = Path.of(System.getProperty("hospital.metrics.file", "metrics/metrics.json"));
+            try {
+                metrics.exportJson(file);
+                System.out.println("✅ Metrici exportate în " + file.toAbsolutePath());
+            } catch (IOException e) {
+                System.err.println("❌ Eroare la exportul metricilor: " + e.getMessage());
+            }
+        } else if (choice.equals("r")) {
+            metrics.reset();
+            System.out.println("✅ Metricile au fost resetate.");
+        }
+    }
 }
@@ -41,6 +41,7 @@ public class MedicalAppointmentMenu {
             System.out.println("5. Verifică disponibilitate doctor");
             System.out.println("6. Afișează programările dintr-o zi");
             System.out.println("7. Actualizează o programare");
+            System.out.println("8. Caută intervale libere pentru o specializare");
             System.out.println("0. Înapoi");
             System.out.print("Alegere: ");
             while (!scanner.hasNextInt()) {
@@ -53,11 +54,12 @@ public class MedicalAppointmentMenu {
             switch (option) {
                 case 1 -> addAppointment();
                 case 2 -> deleteAppointment();
-                case 3 -> appointmentService.printAllAppointments();
+                case 3 -> browseAppointments();
                 case 4 -> showAppointmentsForPatient();
                 case 5 -> checkDoctorAvailability();
                 case 6 -> showAppointmentsByDate();
                 case 7 -> updateAppointment();
+                case 8 -> findFreeSlots();
                 case 0 -> System.out.println("Revenire...");
                 default -> System.out.println("⚠️ Opțiune invalidă.");
             }
@@ -127,9 +129,18 @@ public class MedicalAppointmentMenu {
         /* --- cameră --- */
         Room room;
         while (true) {
-            System.out.print("Număr cameră: ");
+            System.out.print("Număr cameră ('auto' pentru prima liberă): ");
             String input = scanner.nextLine();
             if (input.equalsIgnoreCase("exit")) return;
+            if (input.equalsIgnoreCase("auto")) {
+                room = claimFreeRoom();
+                if (room == null) {
+                    System.out.println("⚠️ Nicio cameră liberă de tipul cerut. Reîncearcă sau 'exit'.");
+                    continue;
+                }
+                System.out.println("🏥 Cameră alocată: " + room.getRoomNumber());
+                break;
+            }
             try {
                 int nr = Integer.parseInt(input);
                 Optional<Room> opt = roomService.getRoomByNumber(nr);
@@ -138,7 +149,8 @@ public class MedicalAppointmentMenu {
                     continue;
                 }
                 room = opt.get();
-                if (room.isOccupied()) {
+                // ocupare atomică și salvată: camera poate fi luată între timp de altă internare
+                if (!roomService.occupyRoom(room, 0)) {
                     System.out.println("⚠️ Cameră ocupată. Alege alta sau 'exit'.");
                     continue;
                 }
@@ -148,15 +160,34 @@ public class MedicalAppointmentMenu {
             }
         }
 
-        room.occupy(0);               // marcăm ocupată (se poate elibera când termini)
-
         MedicalAppointment appt = new MedicalAppointment(
                 patient, doctor, dateTime, "Consultație", room
         );
-        appointmentService.addAppointment(appt);
+        if (!appointmentService.addAppointment(appt)) {
+            // programarea nu s-a salvat: camera ocupată pentru ea se eliberează
+            roomService.releaseRoom(room);
+            System.out.println("❌ Programarea nu a putut fi salvată; camera a fost eliberată.");
+            return;
+        }
         System.out.println("✅ Programare adăugată cu ID: " + appt.getId());
     }
 
+    // Alocare din indexul de camere libere, după departament și tip; null dacă nu există
+    private Room claimFreeRoom() {
+        System.out.print("ID departament: ");
+        int departmentId;
+        try {
+            departmentId = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("❌ ID invalid.");
+            return null;
+        }
+        System.out.print("Tip cameră: ");
+        String type = scanner.nextLine().trim();
+        if (type.isEmpty()) return null;
+        return roomService.claimAvailableRoom(departmentId, type, 0);
+    }
+
     /* ========== DELETE ========== */
     private void deleteAppointment() {
         System.out.print("ID programare: ");
@@ -208,6 +239,66 @@ public class MedicalAppointmentMenu {
         }
     }
 
+    /* ========== FREE SLOTS ========== */
+    private void findFreeSlots() {
+        System.out.print("Specializare (ex: CARDIOLOGIE): ");
+        Specialization specialization;
+        try {
+            specialization = Specialization.valueOf(scanner.nextLine().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Specializare invalidă.");
+            return;
+        }
+
+        System.out.print("Începând cu (yyyy-MM-dd HH:mm, gol = acum): ");
+        String input = scanner.nextLine().trim();
+        LocalDateTime from;
+        try {
+            from = input.isEmpty() ? LocalDateTime.now() : LocalDateTime.parse(input, DT_FMT);
+        } catch (DateTimeParseException e) {
+            System.out.println("❌ Format dată invalid.");
+            return;
+        }
+
+        System.out.print("Câte intervale? ");
+        while (!scanner.hasNextInt()) {
+            System.out.print("⚠️ Introdu un număr valid: ");
+            scanner.next();
+        }
+        int count = scanner.nextInt();
+        scanner.nextLine();
+
+        List<DoctorScheduleIndex.FreeSlot> slots =
+                appointmentService.findNextFreeSlots(specialization, doctorService.getAllDoctors(), from, count);
+        if (slots.isEmpty()) {
+            System.out.println("📭 Niciun interval liber găsit.");
+        } else {
+            slots.forEach(slot -> System.out.println("🕒 " + slot));
+        }
+    }
+
+    /* ========== LIST ALL (PAGINAT) ========== */
+    private void browseAppointments() {
+        int pageSize = MedicalAppointmentService.DEFAULT_PAGE_SIZE;
+        int lastId = 0;
+        int pageNumber = 1;
+        while (true) {
+            List<MedicalAppointment> page = appointmentService.getAppointmentsPage(lastId, pageSize);
+            if (page.isEmpty()) {
+                System.out.println(pageNumber == 1 ? "📭 Nu există programări înregistrate." : "📭 Nu mai sunt programări.");
+                return;
+            }
+            System.out.println("--- Pagina " + pageNumber + " ---");
+            page.forEach(System.out::println);
+            if (page.size() < pageSize) return;
+
+            System.out.print("[Enter] pagina următoare, 'q' pentru ieșire: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) return;
+            lastId = page.get(page.size() - 1).getId();
+            pageNumber++;
+        }
+    }
+
     /* ========== LIST BY DATE ========== */
     private void showAppointmentsByDate() {
         System.out.print("Dată (yyyy-MM-dd): ");
@@ -3,6 +3,7 @@ package main.java.hospital.menu;
 import main.java.hospital.model.*;
 import main.java.hospital.service.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
@@ -11,13 +12,15 @@ public class MedicalDepartmentMenu {
     private final MedicalDepartmentService departmentService;
     private final RoomService roomService;
     private final NurseService nurseService;
-    private final DoctorService doctorService = new DoctorService();
+    private final DoctorService doctorService;
     private final Scanner scanner = new Scanner(System.in);
 
-    public MedicalDepartmentMenu(MedicalDepartmentService departmentService, RoomService roomService, NurseService nurseService) {
+    public MedicalDepartmentMenu(MedicalDepartmentService departmentService, RoomService roomService, NurseService nurseService,
+                                 DoctorService doctorService) {
         this.departmentService = departmentService;
         this.roomService = roomService;
         this.nurseService = nurseService;
+        this.doctorService = doctorService;
     }
 
     public void showMenu() {
@@ -211,7 +214,7 @@ public class MedicalDepartmentMenu {
         Doctor doctor = selectDoctorFrom(dept);
         if (doctor == null) return;
 
-        List<Nurse> assigned = dept.getNursesForDoctor(doctor);
+        List<Nurse> assigned = new ArrayList<>(dept.getNursesForDoctor(doctor));
         if (assigned.isEmpty()) {
             System.out.println("❌ Doctorul nu are asistente asociate.");
             return;
@@ -290,7 +293,7 @@ public class MedicalDepartmentMenu {
     }
 
     private Doctor selectDoctorFrom(MedicalDepartment dept) {
-        List<Doctor> doctors = dept.getDoctors();
+        List<Doctor> doctors = new ArrayList<>(dept.getDoctors());
         if (doctors.isEmpty()) {
             System.out.println("⚠️ Nu există doctori.");
             return null;
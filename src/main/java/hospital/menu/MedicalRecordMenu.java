@@ -11,11 +11,20 @@ import java.util.Scanner;
 
 public class MedicalRecordMenu {
     private final Scanner scanner = new Scanner(System.in);
-    private final PatientService patientService = new PatientService();
-    private final DiagnosisService diagnosisService = new DiagnosisService();
-    private final DoctorService doctorService = new DoctorService();
-    private final PrescriptionService prescriptionService = new PrescriptionService();
-    private final MedicalRecordService medicalRecordService = new MedicalRecordService();
+    private final PatientService patientService;
+    private final DiagnosisService diagnosisService;
+    private final DoctorService doctorService;
+    private final PrescriptionService prescriptionService;
+    private final MedicalRecordService medicalRecordService;
+
+    public MedicalRecordMenu(PatientService patientService, DiagnosisService diagnosisService, DoctorService doctorService,
+                             PrescriptionService prescriptionService, MedicalRecordService medicalRecordService) {
+        this.patientService = patientService;
+        this.diagnosisService = diagnosisService;
+        this.doctorService = doctorService;
+        this.prescriptionService = prescriptionService;
+        this.medicalRecordService = medicalRecordService;
+    }
 
     public void showMenu() {
         System.out.print("🔎 Introduceți CNP-ul pacientului: ");
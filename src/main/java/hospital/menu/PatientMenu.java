@@ -4,23 +4,29 @@ import main.java.hospital.model.BloodGroup;
 import main.java.hospital.model.RhType;
 import main.java.hospital.service.InvoiceService;
 import main.java.hospital.service.MedicalRecordService;
+import main.java.hospital.service.PatientImporter;
 import main.java.hospital.service.PatientService;
 import main.java.hospital.util.AuditService;
 
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.Scanner;
 import java.util.regex.Pattern;
 
 public class PatientMenu {
-    private final MedicalRecordMenu medicalRecordMenu = new MedicalRecordMenu();
+    private final MedicalRecordMenu medicalRecordMenu;
     private final Scanner scanner = new Scanner(System.in);
     private final PatientService patientService;
     private final MedicalRecordService medicalRecordService;
     private final InvoiceService invoiceService;
 
-    public PatientMenu(PatientService patientService, MedicalRecordService medicalRecordService, InvoiceService invoiceService) {
+    public PatientMenu(PatientService patientService, MedicalRecordService medicalRecordService, InvoiceService invoiceService,
+                       MedicalRecordMenu medicalRecordMenu) {
         this.patientService = patientService;
         this.medicalRecordService = medicalRecordService;
         this.invoiceService = invoiceService;
+        this.medicalRecordMenu = medicalRecordMenu;
     }
 
     public void showMenu() {
@@ -38,6 +44,7 @@ public class PatientMenu {
             System.out.println("9. Total de plată al unui pacient");
             System.out.println("10. Afișează pacienții după grupa sanguină");
             System.out.println("11. Afișează pacienții după RH");
+            System.out.println("12. Importă pacienți din fișier CSV");
             System.out.println("0. Înapoi");
             System.out.print("Opțiune: ");
             option = scanner.nextInt();
@@ -55,6 +62,7 @@ public class PatientMenu {
                 case 9 -> viewUnpaidAmount();
                 case 10 -> displayPatientsByBloodGroup();
                 case 11 -> displayPatientsByRhType();
+                case 12 -> importPatients();
                 case 0 -> System.out.println("Revenire la meniul principal.");
                 default -> System.out.println("⚠️ Opțiune invalidă.");
             }
@@ -176,6 +184,22 @@ public class PatientMenu {
         }
     }
 
+    private void importPatients() {
+        System.out.print("Cale fișier CSV: ");
+        String path = scanner.nextLine().trim();
+        try {
+            long start = System.currentTimeMillis();
+            PatientImporter.Result result = new PatientImporter(patientService).importCsv(Paths.get(path));
+            System.out.println("✅ " + result + " (" + (System.currentTimeMillis() - start) + " ms)");
+            result.getRejected().stream().limit(20).forEach(r -> System.out.println("   ⚠️ " + r));
+            if (result.getRejected().size() > 20) {
+                System.out.println("   ... și încă " + (result.getRejected().size() - 20) + " rânduri respinse.");
+            }
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("❌ Importul nu a putut fi efectuat: " + e.getMessage());
+        }
+    }
+
     private void updatePatient() {
         System.out.print("CNP pacient: ");
         String cnp = scanner.nextLine();
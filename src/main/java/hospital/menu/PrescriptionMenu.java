@@ -31,6 +31,7 @@ public class PrescriptionMenu {
             System.out.println("6. Rețete active");
             System.out.println("7. Rețete de reînnoit azi");
             System.out.println("8. Adaugă rețetă legată de diagnostic");
+            System.out.println("9. Reînnoiește rețetele scadente (până azi)");
             System.out.println("0. Înapoi");
             System.out.print("Alege opțiune: ");
             while (!scanner.hasNextInt()) {
@@ -49,6 +50,7 @@ public class PrescriptionMenu {
                 case 6 -> showActive();
                 case 7 -> showToRenewToday();
                 case 8 -> addPrescriptionToDiagnosis();
+                case 9 -> renewDue();
                 case 0 -> System.out.println("↩️ Revenire la meniul anterior.");
                 default -> System.out.println("⚠️ Opțiune invalidă.");
             }
@@ -140,11 +142,17 @@ public class PrescriptionMenu {
                 }
                 case 6 -> {
                     System.out.print("♻️ Reînnoire automată (true/false): ");
-                    p.setAutoRenew(Boolean.parseBoolean(scanner.nextLine()));
+                    if (!prescriptionService.updateAutoRenew(id, Boolean.parseBoolean(scanner.nextLine()))) {
+                        System.out.println("❌ Reînnoirea automată nu a putut fi salvată.");
+                        return;
+                    }
                 }
                 case 7 -> {
                     System.out.print("📅 Data reînnoire: ");
-                    p.setRenewDate(LocalDate.parse(scanner.nextLine()));
+                    if (!prescriptionService.updateRenewDate(id, LocalDate.parse(scanner.nextLine()))) {
+                        System.out.println("❌ Data reînnoirii nu a putut fi salvată.");
+                        return;
+                    }
                 }
                 default -> System.out.println("⚠️ Opțiune invalidă.");
             }
@@ -174,6 +182,15 @@ public class PrescriptionMenu {
         }
     }
 
+    private void renewDue() {
+        int renewed = prescriptionService.renewDuePrescriptions(LocalDate.now());
+        if (renewed == 0) {
+            System.out.println("📭 Nicio rețetă de reînnoit.");
+        } else {
+            System.out.println("♻️ Rețete reînnoite: " + renewed);
+        }
+    }
+
     private void addPrescriptionToDiagnosis() {
         System.out.print("🔎 Nume diagnostic: ");
         String diagName = scanner.nextLine();
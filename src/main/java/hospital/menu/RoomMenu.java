@@ -5,7 +5,7 @@ import main.java.hospital.model.MedicalDepartment;
 import main.java.hospital.service.MedicalDepartmentService;
 import main.java.hospital.util.AuditService;
 
-import java.util.List;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Scanner;
 
@@ -50,7 +50,7 @@ public class RoomMenu {
     }
 
     private void listRooms() {
-        List<Room> rooms = departmentService.getRoomsByDepartmentId(departmentId);
+        Collection<Room> rooms = departmentService.getRoomsByDepartmentId(departmentId);
         if (rooms.isEmpty()) {
             System.out.println("📭 Nicio cameră înregistrată.");
         } else {
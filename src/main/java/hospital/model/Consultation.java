@@ -2,13 +2,14 @@ package main.java.hospital.model;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Reprezintă o consultație medicală între un pacient și un medic.
  * La crearea unei instanțe, diagnosticul este automat adăugat în istoricul medical al pacientului (dacă există).
  */
 public class Consultation {
-    private static int idCounter = 1; // Contor static pentru generarea automată a ID-urilor unice
+    private static final AtomicInteger idCounter = new AtomicInteger(1); // Contor static pentru generarea automată a ID-urilor unice
 
     private  int id;             // ID unic al consultației (autogenerat)
     private Patient patient;          // Pacientul implicat în consultație
@@ -34,7 +35,7 @@ public class Consultation {
             throw new IllegalArgumentException("Parametrii patient, doctor, date și diagnosis nu pot fi null.");
         }
 
-        this.id = idCounter++;
+        this.id = idCounter.getAndIncrement();
         this.patient = patient;
         this.doctor = doctor;
         this.date = date;
@@ -132,7 +133,7 @@ public class Consultation {
      * Resetare a contorului de ID-uri (opțional – util pentru testare).
      */
     public static void resetIdCounter() {
-        idCounter = 1;
+        idCounter.set(1);
     }
 
 
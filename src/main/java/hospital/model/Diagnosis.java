@@ -3,13 +3,14 @@ package main.java.hospital.model;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Clasa Diagnosis reprezintă un diagnostic stabilit de un medic pentru un pacient.
  * Poate include prescripții asociate și conține informații complete despre diagnostic.
  */
 public class Diagnosis {
-    private static int nextId = 1;
+    private static final AtomicInteger nextId = new AtomicInteger(1);
     protected int id; // eliminat final pentru a permite setId
     private String name;
     private String description;
@@ -24,7 +25,7 @@ public class Diagnosis {
         this.date = date;
         this.doctor = doctor;
         this.prescriptions = new ArrayList<>();
-        this.id = nextId++;
+        this.id = nextId.getAndIncrement();
         this.medicalRecordId = medicalRecordId;
     }
 
@@ -34,7 +35,7 @@ public class Diagnosis {
         this.date = date != null ? date : LocalDate.now();
         this.doctor = doctor;
         this.prescriptions = prescriptions != null ? prescriptions : new ArrayList<>();
-        this.id = nextId++;
+        this.id = nextId.getAndIncrement();
         this.medicalRecordId = medicalRecordId;
     }
 
@@ -54,6 +54,13 @@ public class Invoice {
         return amount;
     }
 
+    /**
+     * Suma în bani, rotunjită la cel mai apropiat ban.
+     */
+    public long getAmountCents() {
+        return Math.round(amount * 100.0);
+    }
+
     public String getDescription() {
         return description;
     }
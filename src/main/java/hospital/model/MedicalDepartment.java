@@ -1,7 +1,6 @@
 package main.java.hospital.model;
 
 import java.util.*;
-import java.util.AbstractMap.SimpleEntry;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class MedicalDepartment {
@@ -12,9 +11,16 @@ public class MedicalDepartment {
     private String floor;
     private String description;
 
-    private final List<SimpleEntry<Doctor, List<Nurse>>> doctorNurseMap = new ArrayList<>();
-    private final List<Room> rooms = new ArrayList<>();
-    private final List<Nurse> allNurses = new ArrayList<>();
+    // Doctorii, asistentele și camerele după id (numărul camerei), în ordinea adăugării
+    private final Map<Integer, Doctor> doctors = new LinkedHashMap<>();
+    private final Map<Integer, Map<Integer, Nurse>> nursesByDoctor = new HashMap<>();
+    private final Map<Integer, Nurse> allNurses = new LinkedHashMap<>();
+    private final Map<Integer, Room> rooms = new LinkedHashMap<>();
+
+    // Vederi nemodificabile, create o singură dată; reflectă mereu conținutul curent
+    private final Collection<Doctor> doctorsView = Collections.unmodifiableCollection(doctors.values());
+    private final Collection<Nurse> nursesView = Collections.unmodifiableCollection(allNurses.values());
+    private final Collection<Room> roomsView = Collections.unmodifiableCollection(rooms.values());
 
     public MedicalDepartment(String name, String floor, String description) {
         this.id = idCounter.getAndIncrement();
@@ -43,75 +49,72 @@ public class MedicalDepartment {
     public void setDescription(String description) { this.description = description; }
 
     public void addDoctor(Doctor doc) {
-        doctorNurseMap.add(new SimpleEntry<>(doc, new ArrayList<>()));
+        if (doctors.putIfAbsent(doc.getId(), doc) == null) {
+            nursesByDoctor.put(doc.getId(), new LinkedHashMap<>());
+        }
     }
 
     public boolean removeDoctor(Doctor doc) {
-        return doctorNurseMap.removeIf(e -> e.getKey().equals(doc));
+        if (!doctors.remove(doc.getId(), doc)) return false;
+        nursesByDoctor.remove(doc.getId());
+        return true;
     }
 
-    public List<Doctor> getDoctors() {
-        List<Doctor> list = new ArrayList<>();
-        for (SimpleEntry<Doctor, List<Nurse>> e : doctorNurseMap) {
-            list.add(e.getKey());
-        }
-        return list;
+    public boolean hasDoctor(Doctor doc) {
+        return doc != null && doctors.get(doc.getId()) == doc;
     }
 
-    public List<Nurse> getNursesForDoctor(Doctor doc) {
-        for (SimpleEntry<Doctor, List<Nurse>> e : doctorNurseMap) {
-            if (e.getKey().equals(doc)) return e.getValue();
-        }
-        return new ArrayList<>();
+    public Collection<Doctor> getDoctors() {
+        return doctorsView;
+    }
+
+    public Collection<Nurse> getNursesForDoctor(Doctor doc) {
+        Map<Integer, Nurse> nurses = hasDoctor(doc) ? nursesByDoctor.get(doc.getId()) : null;
+        return nurses == null ? Collections.emptyList() : Collections.unmodifiableCollection(nurses.values());
     }
 
     public boolean addNurseToDoctor(Doctor doc, Nurse nurse) {
-        for (SimpleEntry<Doctor, List<Nurse>> e : doctorNurseMap) {
-            if (e.getKey().equals(doc)) {
-                e.getValue().add(nurse);
-                return true;
-            }
-        }
-        return false;
+        if (!hasDoctor(doc)) return false;
+        return nursesByDoctor.get(doc.getId()).putIfAbsent(nurse.getId(), nurse) == null;
     }
 
     public boolean removeNurseFromDoctor(Doctor doc, Nurse nurse) {
-        for (SimpleEntry<Doctor, List<Nurse>> e : doctorNurseMap) {
-            if (e.getKey().equals(doc)) {
-                return e.getValue().remove(nurse);
-            }
-        }
-        return false;
+        if (!hasDoctor(doc)) return false;
+        return nursesByDoctor.get(doc.getId()).remove(nurse.getId(), nurse);
     }
 
     public boolean addNurse(Nurse nurse) {
-        if (!allNurses.contains(nurse)) {
-            allNurses.add(nurse);
-            return true;
-        }
-        return false;
+        return allNurses.putIfAbsent(nurse.getId(), nurse) == null;
     }
 
     public boolean removeNurse(Nurse nurse) {
-        return allNurses.remove(nurse);
+        return allNurses.remove(nurse.getId(), nurse);
     }
 
-    public List<Nurse> getNurses() {
-        return new ArrayList<>(allNurses);
+    public Collection<Nurse> getNurses() {
+        return nursesView;
     }
 
-    public List<Room> getRooms() {
-        return new ArrayList<>(rooms);
+    public Collection<Room> getRooms() {
+        return roomsView;
+    }
+
+    public Optional<Room> getRoom(int roomNumber) {
+        return Optional.ofNullable(rooms.get(roomNumber));
     }
 
     public void addRoom(Room room) {
         if (room != null && room.getDepartment().equals(this)) {
-            rooms.add(room);
+            rooms.put(room.getRoomNumber(), room);
         }
     }
 
     public boolean removeRoom(int roomNumber) {
-        return rooms.removeIf(r -> r.getRoomNumber() == roomNumber);
+        return rooms.remove(roomNumber) != null;
+    }
+
+    public void clearRooms() {
+        rooms.clear();
     }
 
     @Override
@@ -122,7 +125,7 @@ public class MedicalDepartment {
                 .append("', Etaj='").append(floor);
 
         sb.append("'}\n Camere:\n");
-        for (Room room : rooms) {
+        for (Room room : rooms.values()) {
             sb.append("  🛏️ Camera ").append(room.getRoomNumber())
                     .append(" - ").append(room.getType())
                     .append(" - ").append(room.isOccupied() ? "ocupată" : "liberă").append("\n");
@@ -133,9 +136,8 @@ public class MedicalDepartment {
 
         Set<Nurse> nursesMentioned = new HashSet<>();
 
-        for (Map.Entry<Doctor, List<Nurse>> entry : doctorNurseMap) {
-            Doctor doc = entry.getKey();
-            List<Nurse> nurses = entry.getValue();
+        for (Doctor doc : doctors.values()) {
+            Collection<Nurse> nurses = nursesByDoctor.get(doc.getId()).values();
 
             sb.append("  👨‍⚕️ ").append(doc.getFullName())
                     .append(" (cu ").append(nurses.size()).append(" asistente):\n");
@@ -151,7 +153,7 @@ public class MedicalDepartment {
         }
 
         // Afișăm și asistentele generale neasociate cu un doctor
-        List<Nurse> unassigned = new ArrayList<>(allNurses);
+        List<Nurse> unassigned = new ArrayList<>(allNurses.values());
         unassigned.removeAll(nursesMentioned);
 
         if (!unassigned.isEmpty()) {
@@ -3,9 +3,10 @@ package main.java.hospital.model;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MedicalRecord {
-    private static int counter = 1; // pentru id local
+    private static final AtomicInteger counter = new AtomicInteger(1); // pentru id local
 
     private int id;
     private LocalDate creationDate;
@@ -26,7 +27,7 @@ public class MedicalRecord {
     }
 
     private static int generateId() {
-        return counter++;
+        return counter.getAndIncrement();
     }
 
     public int getId() {
@@ -1,18 +1,12 @@
 package main.java.hospital.model;
 
-import java.io.*;
+import main.java.hospital.util.CnpRegistry;
+
 import java.time.LocalDate;
 import java.util.*;
 
 public class Patient extends Person {
 
-    private static final Set<String> usedCnp = new HashSet<>();
-    private static final String CNP_FILE_PATH = "data/used_cnps.txt";
-
-    static {
-        loadCnpsFromFile();
-    }
-
     private String cnp;
     private String address;
     private BloodGroup bloodGroup;
@@ -22,40 +16,6 @@ public class Patient extends Person {
     private List<Invoice> invoices = new ArrayList<>();
     private List<MedicalAppointment> appointments = new ArrayList<>();
 
-    private static void loadCnpsFromFile() {
-        try {
-            File file = new File(CNP_FILE_PATH);
-            File parentDir = file.getParentFile();
-            if (parentDir != null && !parentDir.exists()) {
-                parentDir.mkdirs();
-            }
-
-            if (!file.exists()) {
-                file.createNewFile();
-            }
-
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    usedCnp.add(line.trim());
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("⚠️ Nu s-a putut încărca fișierul cu CNP-uri: " + e.getMessage());
-        }
-    }
-
-    private static void saveCnpsToFile() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(CNP_FILE_PATH))) {
-            for (String cnp : usedCnp) {
-                writer.write(cnp);
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            System.err.println("⚠️ Eroare salvare fișier CNP: " + e.getMessage());
-        }
-    }
-
     public Patient(String firstName, String lastName, String email, String phoneNumber,
                    String cnp, String address, BloodGroup bloodGroup, RhType rhType,
                    boolean validateCnp) {
@@ -64,8 +24,9 @@ public class Patient extends Person {
         try {
             if (validateCnp) {
                 validateCnp(cnp);
-                usedCnp.add(cnp);
-                saveCnpsToFile();
+                if (!CnpRegistry.getInstance().register(cnp)) {
+                    throw new IllegalArgumentException("❌ CNP deja folosit: " + cnp);
+                }
             }
 
             this.cnp = cnp;
@@ -107,12 +68,12 @@ public class Patient extends Person {
         if (!isValidCnpStructure(cnp)) {
             throw new IllegalArgumentException("❌ CNP invalid: cifra de control este incorectă.");
         }
-        if (usedCnp.contains(cnp)) {
+        if (CnpRegistry.getInstance().contains(cnp)) {
             throw new IllegalArgumentException("❌ CNP deja folosit: " + cnp);
         }
     }
 
-    private boolean isValidCnpStructure(String cnp) {
+    public static boolean isValidCnpStructure(String cnp) {
         final int[] weights = {2, 7, 9, 1, 4, 6, 3, 5, 8, 2, 7, 9};
         int sum = 0;
         for (int i = 0; i < 12; i++) {
@@ -154,9 +115,8 @@ public class Patient extends Person {
 
     public void deletePatient() {
         if (active) {
-            usedCnp.remove(this.cnp);
+            CnpRegistry.getInstance().release(this.cnp);
             this.active = false;
-            saveCnpsToFile();
         }
     }
 
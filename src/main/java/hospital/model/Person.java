@@ -1,10 +1,12 @@
 package main.java.hospital.model;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Clasă abstractă ce reprezintă o persoană generică în cadrul unui spital.
  */
 public abstract class Person {
-    private static int nextId = 1;
+    private static final AtomicInteger nextId = new AtomicInteger(1); // atomic: serviciile se încarcă în paralel la pornire
 
     protected  int id;
     protected String firstName;
@@ -15,11 +17,11 @@ public abstract class Person {
     {
         this.firstName=firstname;
         this.lastName=lastname;
-        this.id = nextId++;
+        this.id = nextId.getAndIncrement();
 
     }
     public Person(String firstName, String lastName, String email, String phoneNumber) {
-        this.id = nextId++;
+        this.id = nextId.getAndIncrement();
         this.firstName = firstName != null ? firstName : "";
         this.lastName = lastName != null ? lastName : "";
         this.email = email;
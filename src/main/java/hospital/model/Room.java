@@ -1,18 +1,24 @@
 package main.java.hospital.model;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
 public class Room {
     private  int roomNumber;
     private String type;
     private MedicalDepartment department;
-    private boolean isOccupied;
-    private Integer occupiedByAppointmentId;
+    // Ocuparea se schimbă atomic, ca două internări simultane să nu primească aceeași cameră
+    private final AtomicBoolean isOccupied = new AtomicBoolean();
+    private volatile Integer occupiedByAppointmentId;
+    // Anunțat când camera devine liberă sau își schimbă tipul/departamentul (indexul de camere libere)
+    private volatile Consumer<Room> availabilityListener;
 
     // Constructor complet recomandat
     public Room(int roomNumber, String type, MedicalDepartment department, boolean isOccupied) {
         this.roomNumber = roomNumber;
         this.type = type;
         this.department = department;
-        this.isOccupied = isOccupied;
+        this.isOccupied.set(isOccupied);
         this.occupiedByAppointmentId = null;
     }
 
@@ -30,7 +36,7 @@ public class Room {
     }
 
     public boolean isOccupied() {
-        return isOccupied;
+        return isOccupied.get();
     }
 
     public Integer getOccupiedByAppointmentId() {
@@ -39,32 +45,59 @@ public class Room {
 
     // === Operații ocupare/eliberare ===
     public void occupy(int appointmentId) {
-        this.isOccupied = true;
+        this.isOccupied.set(true);
+        this.occupiedByAppointmentId = appointmentId;
+    }
+
+    /**
+     * Ocupă camera doar dacă este liberă; întoarce false dacă a ocupat-o altcineva între timp.
+     */
+    public boolean tryOccupy(int appointmentId) {
+        if (!isOccupied.compareAndSet(false, true)) {
+            return false;
+        }
         this.occupiedByAppointmentId = appointmentId;
+        return true;
     }
 
     public void free() {
-        this.isOccupied = false;
         this.occupiedByAppointmentId = null;
+        if (isOccupied.getAndSet(false)) {
+            notifyAvailability();
+        }
+    }
+
+    public void setAvailabilityListener(Consumer<Room> listener) {
+        this.availabilityListener = listener;
+    }
+
+    private void notifyAvailability() {
+        Consumer<Room> listener = availabilityListener;
+        if (listener != null) {
+            listener.accept(this);
+        }
     }
 
     // === Setteri ===
     public void setType(String type) {
         if (type != null && !type.isBlank()) {
             this.type = type;
+            notifyAvailability();
         }
     }
 
     public void setOccupied(boolean occupied) {
-        this.isOccupied = occupied;
-        if (!occupied) {
-            this.occupiedByAppointmentId = null;
+        if (occupied) {
+            this.isOccupied.set(true);
+        } else {
+            free();
         }
     }
 
     public void setDepartment(MedicalDepartment newDepartment) {
         if (newDepartment != null) {
             this.department = newDepartment;
+            notifyAvailability();
         }
     }
 
@@ -74,7 +107,7 @@ public class Room {
                 "Nr: " + roomNumber +
                 ", Tip: '" + type + '\'' +
                 ", Dept: '" + (department != null ? department.getName() : "N/A") + '\'' +
-                ", Ocupată: " + (isOccupied ? "DA (Appt " + occupiedByAppointmentId + ")" : "NU") +
+                ", Ocupată: " + (isOccupied.get() ? "DA (Appt " + occupiedByAppointmentId + ")" : "NU") +
                 '}';
     }
 
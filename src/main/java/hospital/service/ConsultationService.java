@@ -3,6 +3,7 @@ package main.java.hospital.service;
 import main.java.hospital.model.*;
 import main.java.hospital.util.AuditService;
 import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.Metrics;
 
 import java.sql.*;
 import java.sql.Date;
@@ -12,73 +13,66 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 
+@SuppressWarnings("try")
 public class ConsultationService {
 
     private final List<Consultation> consultations;
     private final MedicalRecordService medicalRecordService;
+    private final PatientService patientService;
+    private final DoctorService doctorService;
+    private final DiagnosisService diagnosisService;
 
-    // Constructor implicit (folosit în mod normal în aplicație)
-    public ConsultationService() {
-        this.consultations = new ArrayList<>();
-        this.medicalRecordService = new MedicalRecordService();
-        loadFromDatabase();
-    }
-
-    // Constructor alternativ dacă ai deja instanță de MedicalRecordService
-    public ConsultationService(MedicalRecordService medicalRecordService) {
+    // Constructor folosit la pornire: refolosește serviciile deja încărcate, fără a le reîncărca
+    public ConsultationService(MedicalRecordService medicalRecordService, PatientService patientService,
+                               DoctorService doctorService, DiagnosisService diagnosisService) {
         this.consultations = new ArrayList<>();
         this.medicalRecordService = medicalRecordService;
+        this.patientService = patientService;
+        this.doctorService = doctorService;
+        this.diagnosisService = diagnosisService;
         loadFromDatabase();
     }
 
-    // Metodă care încarcă toate consultațiile din BD
+    /**
+     * Încarcă toate consultațiile din BD într-o singură trecere, citită în flux.
+     * Pacienții, doctorii și diagnosticele se iau din serviciile deja încărcate; doar diagnosticele
+     * care nu sunt în memorie se aduc la final, în loturi (DiagnosisService.getDiagnosesByIds).
+     */
     private void loadFromDatabase() {
         consultations.clear();
 
+        Map<Integer, Doctor> doctorsById = new HashMap<>();
+        for (Doctor doctor : doctorService.getAllDoctors()) {
+            doctorsById.putIfAbsent(doctor.getId(), doctor);
+        }
+        List<ConsultationRow> pending = new ArrayList<>();
+
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM consultations");
-             ResultSet rs = stmt.executeQuery()) {
-
-            // Încarcă tot ResultSet-ul în memorie (lista de map-uri)
-            List<Map<String, Object>> rows = new ArrayList<>();
-            ResultSetMetaData meta = rs.getMetaData();
-            int columnCount = meta.getColumnCount();
-
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    row.put(meta.getColumnName(i), rs.getObject(i));
+             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM consultations",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(DatabaseConnection.FETCH_SIZE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ConsultationRow row = new ConsultationRow(rs);
+
+                    Diagnosis diagnosis = diagnosisService.getLoadedDiagnosis(row.diagnosisId);
+                    if (diagnosis == null) {
+                        pending.add(row);
+                    } else {
+                        addLoaded(row, diagnosis, doctorsById);
+                    }
                 }
-                rows.add(row);
             }
 
-            // Încarcă serviciile DOAR după închiderea ResultSet-ului
-            PatientService patientService = new PatientService();
-            DoctorService doctorService = new DoctorService();
-            DiagnosisService diagnosisService = new DiagnosisService();
-
-            for (Map<String, Object> row : rows) {
-                int id = (int) row.get("id");
-                int patientId = (int) row.get("patient_id");
-                int doctorId = (int) row.get("doctor_id");
-                int diagnosisId = (int) row.get("diagnosis_id");
-                String notes = (String) row.get("notes");
-                LocalDate date = ((Date) row.get("date")).toLocalDate();
-
-                Optional<Patient> patientOpt = patientService.getPatientById(patientId);
-                Optional<Doctor> doctorOpt = doctorService.getDoctorById(doctorId);
-                Optional<Diagnosis> diagnosisOpt = diagnosisService.getDiagnosisById(diagnosisId);
-
-                if (patientOpt.isPresent() && doctorOpt.isPresent() && diagnosisOpt.isPresent()) {
-                    Consultation c = new Consultation(patientOpt.get(), doctorOpt.get(), date, diagnosisOpt.get(), notes);
-                    c.setId(id);
-                    consultations.add(c);
+            if (!pending.isEmpty()) {
+                Set<Integer> missing = new HashSet<>();
+                pending.forEach(row -> missing.add(row.diagnosisId));
+                Map<Integer, Diagnosis> fetched = diagnosisService.getDiagnosesByIds(missing);
+                for (ConsultationRow row : pending) {
+                    addLoaded(row, fetched.get(row.diagnosisId), doctorsById);
                 }
-                else {
-                    System.err.println("❌ Consultație cu ID " + id + " nu a putut fi încărcată: "
-                            + "Pacient/Doctor/Diagnostic lipsă.");
-                }
-
+                consultations.sort(Comparator.comparingInt(Consultation::getId));
             }
 
             AuditService.getInstance().log("LOAD_ALL_CONSULTATIONS_FROM_DB");
@@ -89,66 +83,104 @@ public class ConsultationService {
 
     }
 
+    private void addLoaded(ConsultationRow row, Diagnosis diagnosis, Map<Integer, Doctor> doctorsById) {
+        Optional<Patient> patientOpt = patientService.getPatientById(row.patientId);
+        Doctor doctor = doctorsById.get(row.doctorId);
+
+        if (patientOpt.isPresent() && doctor != null && diagnosis != null) {
+            Consultation c = new Consultation(patientOpt.get(), doctor, row.date, diagnosis, row.notes);
+            c.setId(row.id);
+            consultations.add(c);
+        }
+        else {
+            System.err.println("❌ Consultație cu ID " + row.id + " nu a putut fi încărcată: "
+                    + "Pacient/Doctor/Diagnostic lipsă.");
+        }
+    }
+
+    // Un rând din consultations, păstrat până se rezolvă diagnosticul dacă nu era în memorie
+    private static final class ConsultationRow {
+        private final int id;
+        private final int patientId;
+        private final int doctorId;
+        private final int diagnosisId;
+        private final String notes;
+        private final LocalDate date;
+
+        ConsultationRow(ResultSet rs) throws SQLException {
+            this.id = rs.getInt("id");
+            this.patientId = rs.getInt("patient_id");
+            this.doctorId = rs.getInt("doctor_id");
+            this.diagnosisId = rs.getInt("diagnosis_id");
+            this.notes = rs.getString("notes");
+            this.date = rs.getDate("date").toLocalDate();
+        }
+    }
+
 
     public Consultation createConsultation(Patient patient, Doctor doctor,
                                            LocalDate date, Diagnosis diagnosis, String notes) {
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.createConsultation")) {
+
+            int diagnosisId = getDiagnosisIdByName(diagnosis.getName());
+
+            if (diagnosisId == -1) {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    String sql = "INSERT INTO diagnoses (name, description, date, doctor_id, medical_record_id) VALUES (?, ?, ?, ?, ?)";
+                    PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                    stmt.setString(1, diagnosis.getName());
+                    stmt.setString(2, diagnosis.getDescription());
+                    stmt.setDate(3, Date.valueOf(diagnosis.getDate()));
+                    stmt.setInt(4, doctor.getId());
+
+                    if (patient.getMedicalRecord() != null) {
+                        stmt.setInt(5, patient.getMedicalRecord().getId());
+                    } else {
+                        stmt.setNull(5, Types.INTEGER);
+                    }
+
+                    stmt.executeUpdate();
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        diagnosis.setId(rs.getInt(1));
+                    }
+
+                    System.out.println("➕ Diagnosticul a fost adăugat în baza de date.");
+                } catch (SQLException e) {
+                    scope.fail();
+                    System.err.println("❌ Eroare JDBC la adăugarea diagnosticului: " + e.getMessage());
+                }
+            } else {
+                diagnosis.setId(diagnosisId);
+            }
 
-        int diagnosisId = getDiagnosisIdByName(diagnosis.getName());
+            Consultation consultation = new Consultation(patient, doctor, date, diagnosis, notes);
+            consultations.add(consultation);
 
-        if (diagnosisId == -1) {
             try (Connection conn = DatabaseConnection.getConnection()) {
-                String sql = "INSERT INTO diagnoses (name, description, date, doctor_id, medical_record_id) VALUES (?, ?, ?, ?, ?)";
-                PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-                stmt.setString(1, diagnosis.getName());
-                stmt.setString(2, diagnosis.getDescription());
-                stmt.setDate(3, Date.valueOf(diagnosis.getDate()));
-                stmt.setInt(4, doctor.getId());
-
-                if (patient.getMedicalRecord() != null) {
-                    stmt.setInt(5, patient.getMedicalRecord().getId());
-                } else {
-                    stmt.setNull(5, Types.INTEGER);
-                }
-
+                String sql = "INSERT INTO consultations (patient_id, doctor_id, date, diagnosis_id, notes) VALUES (?, ?, ?, ?, ?)";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, patient.getId());
+                stmt.setInt(2, doctor.getId());
+                stmt.setDate(3, Date.valueOf(date));
+                stmt.setInt(4, diagnosis.getId());
+                stmt.setString(5, notes);
                 stmt.executeUpdate();
-                ResultSet rs = stmt.getGeneratedKeys();
-                if (rs.next()) {
-                    diagnosis.setId(rs.getInt(1));
-                }
-
-                System.out.println("➕ Diagnosticul a fost adăugat în baza de date.");
             } catch (SQLException e) {
-                System.err.println("❌ Eroare JDBC la adăugarea diagnosticului: " + e.getMessage());
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la inserare consultație: " + e.getMessage());
             }
-        } else {
-            diagnosis.setId(diagnosisId);
-        }
-
-        Consultation consultation = new Consultation(patient, doctor, date, diagnosis, notes);
-        consultations.add(consultation);
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "INSERT INTO consultations (patient_id, doctor_id, date, diagnosis_id, notes) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, patient.getId());
-            stmt.setInt(2, doctor.getId());
-            stmt.setDate(3, Date.valueOf(date));
-            stmt.setInt(4, diagnosis.getId());
-            stmt.setString(5, notes);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la inserare consultație: " + e.getMessage());
-        }
+            if (patient.getMedicalRecord() != null) {
+                patient.getMedicalRecord().addDiagnosis(diagnosis);
+                System.out.println("✅ Diagnosticul a fost atașat fișei medicale.");
+            } else {
+                System.out.println("⚠️ Pacientul nu are fișă medicală. Diagnosticul NU a fost salvat în istoric.");
+            }
 
-        if (patient.getMedicalRecord() != null) {
-            patient.getMedicalRecord().addDiagnosis(diagnosis);
-            System.out.println("✅ Diagnosticul a fost atașat fișei medicale.");
-        } else {
-            System.out.println("⚠️ Pacientul nu are fișă medicală. Diagnosticul NU a fost salvat în istoric.");
+            AuditService.getInstance().log("CREATE_CONSULTATION: ID=" + consultation.getId());
+            return consultation;
         }
-
-        AuditService.getInstance().log("CREATE_CONSULTATION: ID=" + consultation.getId());
-        return consultation;
     }
 
     private int getDiagnosisIdByName(String name) {
@@ -167,110 +199,131 @@ public class ConsultationService {
     }
 
     public List<Consultation> getAllConsultations() {
-        AuditService.getInstance().log("READ_ALL_CONSULTATIONS");
-        return new ArrayList<>(consultations);
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.getAllConsultations")) {
+            AuditService.getInstance().log("READ_ALL_CONSULTATIONS");
+            return new ArrayList<>(consultations);
+        }
     }
 
     public void displayAllConsultations() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-        if (consultations.isEmpty()) {
-            System.out.println("📋 Nu există consultații înregistrate.");
-        } else {
-            System.out.println("=== Lista Consultațiilor ===");
-            consultations.forEach(c -> {
-                System.out.println(c);
-                System.out.println("📅 Data consultației: " + c.getDate().format(formatter));
-            });
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.displayAllConsultations")) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+            if (consultations.isEmpty()) {
+                System.out.println("📋 Nu există consultații înregistrate.");
+            } else {
+                System.out.println("=== Lista Consultațiilor ===");
+                consultations.forEach(c -> {
+                    System.out.println(c);
+                    System.out.println("📅 Data consultației: " + c.getDate().format(formatter));
+                });
+            }
+            AuditService.getInstance().log("DISPLAY_ALL_CONSULTATIONS");
         }
-        AuditService.getInstance().log("DISPLAY_ALL_CONSULTATIONS");
     }
 
     public List<Consultation> getConsultationsForPatient(String cnp) {
-        List<Consultation> list = consultations.stream()
-                .filter(c -> c.getPatient().getCnp().equalsIgnoreCase(cnp))
-                .collect(Collectors.toList());
-        AuditService.getInstance().log("READ_CONSULTATIONS_FOR_PATIENT: " + cnp);
-        return list;
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.getConsultationsForPatient")) {
+            List<Consultation> list = consultations.stream()
+                    .filter(c -> c.getPatient().getCnp().equalsIgnoreCase(cnp))
+                    .collect(Collectors.toList());
+            AuditService.getInstance().log("READ_CONSULTATIONS_FOR_PATIENT: " + cnp);
+            return list;
+        }
     }
 
     public Optional<Consultation> getConsultationById(int id) {
-        Optional<Consultation> result = consultations.stream().filter(c -> c.getId() == id).findFirst();
-        AuditService.getInstance().log("READ_CONSULTATION_BY_ID: " + id);
-        return result;
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.getConsultationById")) {
+            Optional<Consultation> result = consultations.stream().filter(c -> c.getId() == id).findFirst();
+            AuditService.getInstance().log("READ_CONSULTATION_BY_ID: " + id);
+            return result;
+        }
     }
 
     public boolean deleteConsultationById(int id) {
-        Optional<Consultation> optional = getConsultationById(id);
-        optional.ifPresent(consultations::remove);
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "DELETE FROM consultations WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la ștergere consultație: " + e.getMessage());
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.deleteConsultationById")) {
+            Optional<Consultation> optional = getConsultationById(id);
+            optional.ifPresent(consultations::remove);
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "DELETE FROM consultations WHERE id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, id);
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la ștergere consultație: " + e.getMessage());
+            }
+            AuditService.getInstance().log(optional.isPresent() ? "DELETE_CONSULTATION: ID=" + id : "DELETE_CONSULTATION_FAILED: ID=" + id);
+            return optional.isPresent();
         }
-        AuditService.getInstance().log(optional.isPresent() ? "DELETE_CONSULTATION: ID=" + id : "DELETE_CONSULTATION_FAILED: ID=" + id);
-        return optional.isPresent();
     }
 
     public List<Consultation> getConsultationsByDate(LocalDate date) {
-        List<Consultation> list = consultations.stream()
-                .filter(c -> c.getDate().equals(date))
-                .collect(Collectors.toList());
-        AuditService.getInstance().log("READ_CONSULTATIONS_BY_DATE: " + date);
-        return list;
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.getConsultationsByDate")) {
+            List<Consultation> list = consultations.stream()
+                    .filter(c -> c.getDate().equals(date))
+                    .collect(Collectors.toList());
+            AuditService.getInstance().log("READ_CONSULTATIONS_BY_DATE: " + date);
+            return list;
+        }
     }
 
     public List<Consultation> getLastNConsultations(int n) {
-        List<Consultation> list = consultations.stream()
-                .sorted(Comparator.comparing(Consultation::getDate).reversed())
-                .limit(n)
-                .collect(Collectors.toList());
-        AuditService.getInstance().log("READ_LAST_" + n + "_CONSULTATIONS");
-        return list;
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.getLastNConsultations")) {
+            List<Consultation> list = consultations.stream()
+                    .sorted(Comparator.comparing(Consultation::getDate).reversed())
+                    .limit(n)
+                    .collect(Collectors.toList());
+            AuditService.getInstance().log("READ_LAST_" + n + "_CONSULTATIONS");
+            return list;
+        }
     }
 
     public void reportConsultationsPerDoctor() {
-        System.out.println("📊 Număr de consultații per doctor:");
-        consultations.stream()
-                .collect(Collectors.groupingBy(c -> c.getDoctor().getFullName(), Collectors.counting()))
-                .forEach((doctor, count) -> System.out.println("- " + doctor + ": " + count + " consultații"));
-        AuditService.getInstance().log("REPORT_CONSULTATIONS_PER_DOCTOR");
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.reportConsultationsPerDoctor")) {
+            System.out.println("📊 Număr de consultații per doctor:");
+            consultations.stream()
+                    .collect(Collectors.groupingBy(c -> c.getDoctor().getFullName(), Collectors.counting()))
+                    .forEach((doctor, count) -> System.out.println("- " + doctor + ": " + count + " consultații"));
+            AuditService.getInstance().log("REPORT_CONSULTATIONS_PER_DOCTOR");
+        }
     }
 
     public void reset() {
-        consultations.clear();
-        Consultation.resetIdCounter();
-        AuditService.getInstance().log("RESET_ALL_CONSULTATIONS");
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.reset")) {
+            consultations.clear();
+            Consultation.resetIdCounter();
+            AuditService.getInstance().log("RESET_ALL_CONSULTATIONS");
+        }
     }
 
     public void saveConsultation(Consultation consultation) {
-        String updateSql = """
-        UPDATE consultations
-        SET patient_id = ?, doctor_id = ?, diagnosis_id = ?, date = ?, notes = ?
-        WHERE id = ?
-    """;
+        try (Metrics.Scope scope = Metrics.scope("ConsultationService.saveConsultation")) {
+            String updateSql = """
+            UPDATE consultations
+            SET patient_id = ?, doctor_id = ?, diagnosis_id = ?, date = ?, notes = ?
+            WHERE id = ?
+        """;
+
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+
+                stmt.setInt(1, consultation.getPatient().getId());
+                stmt.setInt(2, consultation.getDoctor().getId());
+                stmt.setInt(3, consultation.getDiagnosis().getId());
+                stmt.setDate(4, Date.valueOf(consultation.getDate()));
+                stmt.setString(5, consultation.getNotes());
+                stmt.setInt(6, consultation.getId());
+
+                int rows = stmt.executeUpdate();
+                if (rows == 0) {
+                    System.out.println("❌ Nicio consultație nu a fost actualizată în baza de date.");
+                } else {
+                    System.out.println("✅ Consultația a fost salvată în baza de date.");
+                }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(updateSql)) {
-
-            stmt.setInt(1, consultation.getPatient().getId());
-            stmt.setInt(2, consultation.getDoctor().getId());
-            stmt.setInt(3, consultation.getDiagnosis().getId());
-            stmt.setDate(4, Date.valueOf(consultation.getDate()));
-            stmt.setString(5, consultation.getNotes());
-            stmt.setInt(6, consultation.getId());
-
-            int rows = stmt.executeUpdate();
-            if (rows == 0) {
-                System.out.println("❌ Nicio consultație nu a fost actualizată în baza de date.");
-            } else {
-                System.out.println("✅ Consultația a fost salvată în baza de date.");
+            } catch (SQLException e) {
+                System.out.println("❌ Eroare la salvarea consultației: " + e.getMessage());
             }
-
-        } catch (SQLException e) {
-            System.out.println("❌ Eroare la salvarea consultației: " + e.getMessage());
         }
     }
 
@@ -5,294 +5,400 @@ import main.java.hospital.model.Doctor;
 import main.java.hospital.model.Prescription;
 import main.java.hospital.util.AuditService;
 import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.Metrics;
 
 import java.sql.*;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.*;
 
+@SuppressWarnings("try")
 public class DiagnosisService {
 
+    private static final int ID_BATCH_SIZE = 500;
+
     private final List<Diagnosis> diagnoses = new ArrayList<>();
+    private final Map<Integer, Diagnosis> diagnosesById = new HashMap<>();
 
     public void loadFromDatabase(List<Doctor> allDoctors) {
-        diagnoses.clear();
-        try (Connection conn = DatabaseConnection.getInstance().getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM diagnoses");
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                String name = rs.getString("name");
-                String desc = rs.getString("description");
-                LocalDate date = rs.getDate("date").toLocalDate();
-                int doctorId = rs.getInt("doctor_id");
-                int medicalRecordId = rs.getInt("medical_record_id");
-                int diagnosisId = rs.getInt("id");
-
-                Doctor doctor = allDoctors.stream()
-                        .filter(d -> d.getId() == doctorId)
-                        .findFirst()
-                        .orElse(null);
-
-                Diagnosis d = new Diagnosis(name, desc, date, doctor, medicalRecordId);
-                d.setId(diagnosisId);
-
-                try (PreparedStatement pStmt = conn.prepareStatement("SELECT * FROM prescriptions WHERE diagnosis_id = ?")) {
-                    pStmt.setInt(1, diagnosisId);
-                    ResultSet prs = pStmt.executeQuery();
-
-                    while (prs.next()) {
-                        Prescription p = new Prescription(
-                                prs.getString("medication"),
-                                prs.getString("dosage"),
-                                prs.getDate("date_issued").toLocalDate(),
-                                prs.getDate("start_date").toLocalDate(),
-                                prs.getDate("end_date").toLocalDate(),
-                                prs.getBoolean("auto_renew"),
-                                prs.getDate("renew_date") != null ? prs.getDate("renew_date").toLocalDate() : null
-                        );
-                        p.setId(prs.getInt("id"));
-                        p.setDiagnosisId(diagnosisId);
-                        d.addPrescription(p);
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.loadFromDatabase")) {
+            diagnoses.clear();
+            diagnosesById.clear();
+
+            Map<Integer, Doctor> doctorsById = new HashMap<>();
+            for (Doctor doctor : allDoctors) {
+                doctorsById.putIfAbsent(doctor.getId(), doctor);
+            }
+
+            try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+                // 1. Toate rețetele într-o singură trecere, grupate după diagnostic
+                Map<Integer, List<Prescription>> prescriptionsByDiagnosis = loadPrescriptionsGrouped(conn);
+
+                // 2. Diagnosticele, citite în flux; rețetele se atașează din map, fără interogări per rând
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM diagnoses",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    stmt.setFetchSize(DatabaseConnection.FETCH_SIZE);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            int diagnosisId = rs.getInt("id");
+                            Doctor doctor = doctorsById.get(rs.getInt("doctor_id"));
+
+                            Diagnosis d = new Diagnosis(
+                                    rs.getString("name"),
+                                    rs.getString("description"),
+                                    rs.getDate("date").toLocalDate(),
+                                    doctor,
+                                    prescriptionsByDiagnosis.remove(diagnosisId),
+                                    rs.getInt("medical_record_id")
+                            );
+                            d.setId(diagnosisId);
+                            diagnoses.add(d);
+                            diagnosesById.put(diagnosisId, d);
+                        }
                     }
                 }
 
-                diagnoses.add(d);
-            }
+                AuditService.getInstance().log("LOAD_ALL_DIAGNOSES_FROM_DB");
 
-            AuditService.getInstance().log("LOAD_ALL_DIAGNOSES_FROM_DB");
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare la încărcarea diagnosticelor: " + e.getMessage());
+            }
+        }
+    }
 
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare la încărcarea diagnosticelor: " + e.getMessage());
+    private Map<Integer, List<Prescription>> loadPrescriptionsGrouped(Connection conn) throws SQLException {
+        Map<Integer, List<Prescription>> grouped = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM prescriptions",
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(DatabaseConnection.FETCH_SIZE);
+            try (ResultSet prs = stmt.executeQuery()) {
+                while (prs.next()) {
+                    int diagnosisId = prs.getInt("diagnosis_id");
+                    Prescription p = new Prescription(
+                            prs.getString("medication"),
+                            prs.getString("dosage"),
+                            prs.getDate("date_issued") != null ? prs.getDate("date_issued").toLocalDate() : LocalDate.now(),
+                            prs.getDate("start_date").toLocalDate(),
+                            prs.getDate("end_date").toLocalDate(),
+                            prs.getBoolean("auto_renew"),
+                            prs.getDate("renew_date") != null ? prs.getDate("renew_date").toLocalDate() : null
+                    );
+                    p.setId(prs.getInt("id"));
+                    p.setDiagnosisId(diagnosisId);
+                    grouped.computeIfAbsent(diagnosisId, k -> new ArrayList<>()).add(p);
+                }
+            }
         }
+        return grouped;
     }
 
     public Diagnosis addDiagnosis(String name, String description, LocalDate date, Doctor doctor, int medicalRecordId) {
-        Diagnosis diagnosis = new Diagnosis(name.trim(), description, date, doctor, medicalRecordId);
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.addDiagnosis")) {
+            Diagnosis diagnosis = new Diagnosis(name.trim(), description, date, doctor, medicalRecordId);
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
-            String sql = "INSERT INTO diagnoses (name, description, date, doctor_id, medical_record_id) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+                String sql = "INSERT INTO diagnoses (name, description, date, doctor_id, medical_record_id) VALUES (?, ?, ?, ?, ?)";
+                PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+
+                stmt.setString(1, diagnosis.getName());
+                stmt.setString(2, diagnosis.getDescription());
+                stmt.setDate(3, Date.valueOf(diagnosis.getDate()));
+                if (doctor != null) {
+                    stmt.setInt(4, doctor.getId());
+                } else {
+                    stmt.setNull(4, Types.INTEGER);
+                }
+                stmt.setInt(5, medicalRecordId);
+                stmt.executeUpdate();
 
-            stmt.setString(1, diagnosis.getName());
-            stmt.setString(2, diagnosis.getDescription());
-            stmt.setDate(3, Date.valueOf(diagnosis.getDate()));
-            if (doctor != null) {
-                stmt.setInt(4, doctor.getId());
-            } else {
-                stmt.setNull(4, Types.INTEGER);
-            }
-            stmt.setInt(5, medicalRecordId);
-            stmt.executeUpdate();
+                ResultSet rs = stmt.getGeneratedKeys();
+                if (rs.next()) {
+                    diagnosis.setId(rs.getInt(1));
+                }
 
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                diagnosis.setId(rs.getInt(1));
-            }
+                stmt.close();
+                AuditService.getInstance().log("CREATE_DIAGNOSIS: " + name);
+                diagnoses.add(diagnosis);
+                diagnosesById.put(diagnosis.getId(), diagnosis);
+                System.out.println("✅ Diagnostic salvat în DB pentru fișa ID: " + medicalRecordId);
 
-            stmt.close();
-            AuditService.getInstance().log("CREATE_DIAGNOSIS: " + name);
-            diagnoses.add(diagnosis);
-            System.out.println("✅ Diagnostic salvat în DB pentru fișa ID: " + medicalRecordId);
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare la salvarea diagnosticului în DB: " + e.getMessage());
+            }
 
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare la salvarea diagnosticului în DB: " + e.getMessage());
+            return diagnosis;
         }
-
-        return diagnosis;
     }
 
     public boolean updateDiagnosisNameById(int id, String newName) {
-        Optional<Diagnosis> optional = diagnoses.stream().filter(d -> d.getId() == id).findFirst();
-        if (optional.isEmpty()) {
-            System.out.println("❌ Diagnosticul cu ID " + id + " nu a fost găsit în memorie.");
-            return false;
-        }
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.updateDiagnosisNameById")) {
+            Diagnosis diagnosis = diagnosesById.get(id);
+            if (diagnosis == null) {
+                System.out.println("❌ Diagnosticul cu ID " + id + " nu a fost găsit în memorie.");
+                return false;
+            }
 
-        Diagnosis diagnosis = optional.get();
-        diagnosis.setName(newName);
+            diagnosis.setName(newName);
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
-            String sql = "UPDATE diagnoses SET name = ? WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, newName);
-            stmt.setInt(2, id);
+            try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+                String sql = "UPDATE diagnoses SET name = ? WHERE id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setString(1, newName);
+                stmt.setInt(2, id);
 
-            int rows = stmt.executeUpdate();
-            stmt.close();
+                int rows = stmt.executeUpdate();
+                stmt.close();
 
-            if (rows > 0) {
-                AuditService.getInstance().log("UPDATE_DIAGNOSIS_NAME_BY_ID: ID=" + id + " -> " + newName);
-                return true;
-            } else {
-                System.out.println("❌ Nicio înregistrare modificată. Verifică dacă ID-ul există.");
+                if (rows > 0) {
+                    AuditService.getInstance().log("UPDATE_DIAGNOSIS_NAME_BY_ID: ID=" + id + " -> " + newName);
+                    return true;
+                } else {
+                    System.out.println("❌ Nicio înregistrare modificată. Verifică dacă ID-ul există.");
+                }
+
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC: " + e.getMessage());
             }
 
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC: " + e.getMessage());
+            return false;
         }
-
-        return false;
     }
 
     public Optional<Diagnosis> findDiagnosisByName(String name) {
-        return diagnoses.stream()
-                .filter(d -> d.getName().equalsIgnoreCase(name.trim()))
-                .findFirst();
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.findDiagnosisByName")) {
+            return diagnoses.stream()
+                    .filter(d -> d.getName().equalsIgnoreCase(name.trim()))
+                    .findFirst();
+        }
     }
 
     public boolean deleteDiagnosis(String name) {
-        Optional<Diagnosis> optional = findDiagnosisByName(name);
-        if (optional.isPresent()) {
-            diagnoses.remove(optional.get());
-            try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
-                PreparedStatement stmt = conn.prepareStatement("DELETE FROM diagnoses WHERE name = ?");
-                stmt.setString(1, name);
-                stmt.executeUpdate();
-                stmt.close();
-                AuditService.getInstance().log("DELETE_DIAGNOSIS_DB: " + name);
-                return true;
-            } catch (SQLException e) {
-                System.err.println("❌ Eroare la ștergerea din DB: " + e.getMessage());
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.deleteDiagnosis")) {
+            Optional<Diagnosis> optional = findDiagnosisByName(name);
+            if (optional.isPresent()) {
+                diagnoses.remove(optional.get());
+                diagnosesById.remove(optional.get().getId(), optional.get());
+                try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+                    PreparedStatement stmt = conn.prepareStatement("DELETE FROM diagnoses WHERE name = ?");
+                    stmt.setString(1, name);
+                    stmt.executeUpdate();
+                    stmt.close();
+                    AuditService.getInstance().log("DELETE_DIAGNOSIS_DB: " + name);
+                    return true;
+                } catch (SQLException e) {
+                    scope.fail();
+                    System.err.println("❌ Eroare la ștergerea din DB: " + e.getMessage());
+                }
             }
+            return false;
         }
-        return false;
     }
 
     public boolean updateDiagnosisInDatabase(String oldName, String newDescription, LocalDate newDate) {
-        Optional<Diagnosis> optional = findDiagnosisByName(oldName);
-        if (optional.isEmpty()) return false;
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.updateDiagnosisInDatabase")) {
+            Optional<Diagnosis> optional = findDiagnosisByName(oldName);
+            if (optional.isEmpty()) return false;
 
-        Diagnosis diagnosis = optional.get();
-        if (newDescription != null && !newDescription.isBlank()) {
-            diagnosis.setDescription(newDescription);
-        }
-        if (newDate != null) {
-            diagnosis.setDate(newDate);
-        }
+            Diagnosis diagnosis = optional.get();
+            if (newDescription != null && !newDescription.isBlank()) {
+                diagnosis.setDescription(newDescription);
+            }
+            if (newDate != null) {
+                diagnosis.setDate(newDate);
+            }
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
-            String sql = "UPDATE diagnoses SET description = ?, date = ? WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, diagnosis.getDescription());
-            stmt.setDate(2, Date.valueOf(diagnosis.getDate()));
-            stmt.setInt(3, diagnosis.getId());
-            int rows = stmt.executeUpdate();
-            stmt.close();
-            AuditService.getInstance().log("UPDATE_DIAGNOSIS_DB: ID=" + diagnosis.getId());
-            return rows > 0;
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare la actualizarea în DB: " + e.getMessage());
+            try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+                String sql = "UPDATE diagnoses SET description = ?, date = ? WHERE id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setString(1, diagnosis.getDescription());
+                stmt.setDate(2, Date.valueOf(diagnosis.getDate()));
+                stmt.setInt(3, diagnosis.getId());
+                int rows = stmt.executeUpdate();
+                stmt.close();
+                AuditService.getInstance().log("UPDATE_DIAGNOSIS_DB: ID=" + diagnosis.getId());
+                return rows > 0;
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare la actualizarea în DB: " + e.getMessage());
+            }
+            return false;
         }
-        return false;
     }
 
     public boolean updateDiagnosisDoctor(String diagnosisName, Doctor newDoctor) {
-        Optional<Diagnosis> optional = findDiagnosisByName(diagnosisName);
-        if (optional.isEmpty()) return false;
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.updateDiagnosisDoctor")) {
+            Optional<Diagnosis> optional = findDiagnosisByName(diagnosisName);
+            if (optional.isEmpty()) return false;
 
-        Diagnosis diagnosis = optional.get();
-        diagnosis.setDoctor(newDoctor);
+            Diagnosis diagnosis = optional.get();
+            diagnosis.setDoctor(newDoctor);
 
-        try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
-            PreparedStatement stmt = conn.prepareStatement("UPDATE diagnoses SET doctor_id = ? WHERE id = ?");
-            if (newDoctor != null) {
-                stmt.setInt(1, newDoctor.getId());
-            } else {
-                stmt.setNull(1, Types.INTEGER);
+            try (Connection conn = DatabaseConnection.getInstance().getConnection()) {
+                PreparedStatement stmt = conn.prepareStatement("UPDATE diagnoses SET doctor_id = ? WHERE id = ?");
+                if (newDoctor != null) {
+                    stmt.setInt(1, newDoctor.getId());
+                } else {
+                    stmt.setNull(1, Types.INTEGER);
+                }
+                stmt.setInt(2, diagnosis.getId());
+                int rows = stmt.executeUpdate();
+                stmt.close();
+                AuditService.getInstance().log("UPDATE_DIAGNOSIS_DOCTOR: ID=" + diagnosis.getId());
+                return rows > 0;
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare la actualizarea doctorului: " + e.getMessage());
             }
-            stmt.setInt(2, diagnosis.getId());
-            int rows = stmt.executeUpdate();
-            stmt.close();
-            AuditService.getInstance().log("UPDATE_DIAGNOSIS_DOCTOR: ID=" + diagnosis.getId());
-            return rows > 0;
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare la actualizarea doctorului: " + e.getMessage());
+            return false;
         }
-        return false;
     }
 
     public void displayPrescriptionsForDiagnosis(String diagnosisName) {
-        Optional<Diagnosis> optional = findDiagnosisByName(diagnosisName);
-        if (optional.isPresent()) {
-            List<Prescription> prescriptions = optional.get().getPrescriptions();
-            if (prescriptions.isEmpty()) {
-                System.out.println("📭 Nicio prescripție asociată cu acest diagnostic.");
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.displayPrescriptionsForDiagnosis")) {
+            Optional<Diagnosis> optional = findDiagnosisByName(diagnosisName);
+            if (optional.isPresent()) {
+                List<Prescription> prescriptions = optional.get().getPrescriptions();
+                if (prescriptions.isEmpty()) {
+                    System.out.println("📭 Nicio prescripție asociată cu acest diagnostic.");
+                } else {
+                    prescriptions.forEach(System.out::println);
+                }
             } else {
-                prescriptions.forEach(System.out::println);
+                System.out.println("❌ Diagnosticul nu a fost găsit.");
             }
-        } else {
-            System.out.println("❌ Diagnosticul nu a fost găsit.");
+            AuditService.getInstance().log("DISPLAY_PRESCRIPTIONS_FOR_DIAGNOSIS: " + diagnosisName);
         }
-        AuditService.getInstance().log("DISPLAY_PRESCRIPTIONS_FOR_DIAGNOSIS: " + diagnosisName);
     }
 
     public List<Diagnosis> getAllDiagnoses() {
-        return new ArrayList<>(diagnoses);
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.getAllDiagnoses")) {
+            return new ArrayList<>(diagnoses);
+        }
     }
 
     public List<Diagnosis> getDiagnosesByMedicalRecordId(int medicalRecordId) {
-        return diagnoses.stream()
-                .filter(d -> d.getMedicalRecordId() == medicalRecordId)
-                .toList();
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.getDiagnosesByMedicalRecordId")) {
+            return diagnoses.stream()
+                    .filter(d -> d.getMedicalRecordId() == medicalRecordId)
+                    .toList();
+        }
     }
 
     public Optional<Diagnosis> getDiagnosisById(int id) {
-        String sql = """
-        SELECT d.*, doc.id AS doctor_id, doc.first_name, doc.last_name, doc.parafa_code
-        FROM diagnoses d
-        LEFT JOIN doctors doc ON d.doctor_id = doc.id
-        WHERE d.id = ?
-    """;
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                String name = rs.getString("name");
-                String description = rs.getString("description");
-                LocalDate date = rs.getDate("date").toLocalDate();
-                int medicalRecordId = rs.getInt("medical_record_id");
-
-                Doctor doctor = null;
-                int doctorId = rs.getInt("doctor_id");
-                if (!rs.wasNull()) {
-                    String firstName = rs.getString("first_name");
-                    String lastName = rs.getString("last_name");
-                    String stampCode = rs.getString("parafa_code");
-
-                    doctor = new Doctor( doctorId, firstName, lastName, stampCode);
-                }
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.getDiagnosisById")) {
+            Diagnosis loaded = diagnosesById.get(id);
+            if (loaded != null) {
+                return Optional.of(loaded);
+            }
+            Map<Integer, Diagnosis> result = new HashMap<>();
+            try {
+                fetchDiagnoses(List.of(id), result);
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC în getDiagnosisById: " + e.getMessage());
+            }
+            return Optional.ofNullable(result.get(id));
+        }
+    }
+
+    // Diagnosticul încărcat în memorie sau null, fără acces la baza de date
+    Diagnosis getLoadedDiagnosis(int id) {
+        return diagnosesById.get(id);
+    }
 
-                Diagnosis diagnosis = new Diagnosis(name, description, date, doctor, medicalRecordId);
-                diagnosis.setId(id);
-                return Optional.of(diagnosis);
+    /**
+     * Diagnosticele cu ID-urile date: cele din memorie direct, restul din baza de date,
+     * cu câte o interogare IN pentru fiecare lot de ID_BATCH_SIZE ID-uri.
+     */
+    public Map<Integer, Diagnosis> getDiagnosesByIds(Collection<Integer> ids) {
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.getDiagnosesByIds")) {
+            Map<Integer, Diagnosis> result = new HashMap<>();
+            List<Integer> missing = new ArrayList<>();
+            for (int id : new LinkedHashSet<>(ids)) {
+                Diagnosis loaded = diagnosesById.get(id);
+                if (loaded != null) result.put(id, loaded);
+                else missing.add(id);
+            }
+            if (missing.isEmpty()) return result;
+
+            try {
+                fetchDiagnoses(missing, result);
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC în getDiagnosesByIds: " + e.getMessage());
+            }
+            return result;
+        }
+    }
+
+    // Citește din baza de date diagnosticele cu ID-urile date, pe loturi; necronometrat, apelantul are scope-ul lui
+    private void fetchDiagnoses(List<Integer> ids, Map<Integer, Diagnosis> result) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+                List<Integer> batch = ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size()));
+                String sql = """
+                SELECT d.*, doc.id AS doctor_id, doc.first_name, doc.last_name, doc.parafa_code
+                FROM diagnoses d
+                LEFT JOIN doctors doc ON d.doctor_id = doc.id
+                WHERE d.id IN (%s)
+            """.formatted(String.join(", ", Collections.nCopies(batch.size(), "?")));
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        stmt.setInt(i + 1, batch.get(i));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            Diagnosis diagnosis = mapDiagnosis(rs);
+                            result.put(diagnosis.getId(), diagnosis);
+                        }
+                    }
+                }
             }
+        }
+    }
+
+    private static Diagnosis mapDiagnosis(ResultSet rs) throws SQLException {
+        String name = rs.getString("name");
+        String description = rs.getString("description");
+        LocalDate date = rs.getDate("date").toLocalDate();
+        int medicalRecordId = rs.getInt("medical_record_id");
+
+        Doctor doctor = null;
+        int doctorId = rs.getInt("doctor_id");
+        if (!rs.wasNull()) {
+            String firstName = rs.getString("first_name");
+            String lastName = rs.getString("last_name");
+            String stampCode = rs.getString("parafa_code");
 
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC în getDiagnosisById: " + e.getMessage());
+            doctor = new Doctor( doctorId, firstName, lastName, stampCode);
         }
 
-        return Optional.empty();
+        Diagnosis diagnosis = new Diagnosis(name, description, date, doctor, medicalRecordId);
+        diagnosis.setId(rs.getInt("id"));
+        return diagnosis;
     }
 
 
     public boolean addPrescriptionToDiagnosis(Diagnosis diagnosis, Prescription prescription, PrescriptionService prescriptionService) {
-        if (diagnosis == null || prescription == null) return false;
-
-        try {
-            prescription.setDiagnosisId(diagnosis.getId());
-            prescriptionService.addPrescription(prescription);
-            diagnosis.addPrescription(prescription);
-            prescriptionService.reloadPrescriptions();
-            AuditService.getInstance().log("ADD_PRESCRIPTION_TO_DIAGNOSIS: ID=" + diagnosis.getId());
-            return true;
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare la adăugarea rețetei în DB: " + e.getMessage());
-            return false;
+        try (Metrics.Scope scope = Metrics.scope("DiagnosisService.addPrescriptionToDiagnosis")) {
+            if (diagnosis == null || prescription == null) return false;
+
+            try {
+                prescription.setDiagnosisId(diagnosis.getId());
+                prescriptionService.addPrescription(prescription);
+                diagnosis.addPrescription(prescription);
+                prescriptionService.reloadPrescriptions();
+                AuditService.getInstance().log("ADD_PRESCRIPTION_TO_DIAGNOSIS: ID=" + diagnosis.getId());
+                return true;
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare la adăugarea rețetei în DB: " + e.getMessage());
+                return false;
+            }
         }
     }
 
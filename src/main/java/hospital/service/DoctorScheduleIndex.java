@@ -0,0 +1,207 @@
+package main.java.hospital.service;
+
+import main.java.hospital.model.Doctor;
+import main.java.hospital.util.Metrics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Index în memorie al programărilor, pe doctor: pentru fiecare doctor, un TreeMap ordonat după ora de început.
+ * Nicio programare nu durează mai mult decât cea mai lungă durată înregistrată, deci suprapunerile cu [t, t+d)
+ * se caută doar printre începuturile din (t - durataMaximă, t + d) - O(log n) plus numărul de conflicte.
+ */
+@SuppressWarnings("try")
+public class DoctorScheduleIndex {
+
+    // Durata implicită a unei programări și programul zilnic - pot fi suprascrise cu -Dhospital.appointments.*
+    public static final Duration SLOT_LENGTH = Duration.ofMinutes(Integer.getInteger("hospital.appointments.slotMinutes", 30));
+    private static final LocalTime DAY_START = LocalTime.of(Integer.getInteger("hospital.appointments.dayStartHour", 8), 0);
+    private static final LocalTime DAY_END = LocalTime.of(Integer.getInteger("hospital.appointments.dayEndHour", 20), 0);
+    private static final int SEARCH_DAYS = Integer.getInteger("hospital.appointments.searchDays", 60);
+
+    private final Map<Integer, TreeMap<LocalDateTime, List<Booking>>> byDoctor = new HashMap<>();
+    private final Map<Integer, Booking> byAppointment = new HashMap<>();
+    private Duration maxDuration = SLOT_LENGTH;
+
+    public synchronized void clear() {
+        byDoctor.clear();
+        byAppointment.clear();
+        maxDuration = SLOT_LENGTH;
+    }
+
+    public synchronized void add(int appointmentId, int doctorId, LocalDateTime start) {
+        try (Metrics.Scope scope = Metrics.scope("DoctorScheduleIndex.add")) {
+            put(appointmentId, doctorId, start, SLOT_LENGTH);
+        }
+    }
+
+    public synchronized void add(int appointmentId, int doctorId, LocalDateTime start, Duration duration) {
+        try (Metrics.Scope scope = Metrics.scope("DoctorScheduleIndex.add")) {
+            put(appointmentId, doctorId, start, duration);
+        }
+    }
+
+    public synchronized boolean remove(int appointmentId) {
+        try (Metrics.Scope scope = Metrics.scope("DoctorScheduleIndex.remove")) {
+            return unlink(appointmentId);
+        }
+    }
+
+    public synchronized boolean move(int appointmentId, LocalDateTime newStart) {
+        try (Metrics.Scope scope = Metrics.scope("DoctorScheduleIndex.move")) {
+            Booking booking = byAppointment.get(appointmentId);
+            if (booking == null) return false;
+            put(appointmentId, booking.doctorId, newStart, Duration.between(booking.start, booking.end));
+            return true;
+        }
+    }
+
+    // Metodele publice sunt cronometrate o singură dată; cele interne lucrează direct pe index
+    private void put(int appointmentId, int doctorId, LocalDateTime start, Duration duration) {
+        unlink(appointmentId); // o programare re-adăugată își înlocuiește intervalul vechi
+        Booking booking = new Booking(appointmentId, doctorId, start, start.plus(duration));
+        byDoctor.computeIfAbsent(doctorId, k -> new TreeMap<>())
+                .computeIfAbsent(start, k -> new ArrayList<>(1))
+                .add(booking);
+        byAppointment.put(appointmentId, booking);
+        if (duration.compareTo(maxDuration) > 0) {
+            maxDuration = duration;
+        }
+    }
+
+    private boolean unlink(int appointmentId) {
+        Booking booking = byAppointment.remove(appointmentId);
+        if (booking == null) return false;
+
+        TreeMap<LocalDateTime, List<Booking>> schedule = byDoctor.get(booking.doctorId);
+        List<Booking> atStart = schedule.get(booking.start);
+        atStart.remove(booking);
+        if (atStart.isEmpty()) schedule.remove(booking.start);
+        if (schedule.isEmpty()) byDoctor.remove(booking.doctorId);
+        return true;
+    }
+
+    public synchronized boolean isFree(int doctorId, LocalDateTime start, Duration duration) {
+        try (Metrics.Scope scope = Metrics.scope("DoctorScheduleIndex.isFree")) {
+            return latestConflictEnd(doctorId, start, start.plus(duration)) == null;
+        }
+    }
+
+    /**
+     * Primele {@code count} intervale libere, în ordine cronologică, pentru oricare dintre doctorii dați,
+     * începând cu {@code from}. Se caută doar în programul zilnic și cel mult SEARCH_DAYS zile înainte.
+     */
+    public synchronized List<FreeSlot> findNextFreeSlots(Collection<Doctor> doctors, LocalDateTime from, int count) {
+        try (Metrics.Scope scope = Metrics.scope("DoctorScheduleIndex.findNextFreeSlots")) {
+            LocalDateTime horizon = from.plusDays(SEARCH_DAYS);
+            PriorityQueue<FreeSlot> candidates = new PriorityQueue<>(
+                    Comparator.comparing((FreeSlot s) -> s.start).thenComparingInt(s -> s.doctor.getId()));
+
+            for (Doctor doctor : doctors) {
+                LocalDateTime next = nextFreeStart(doctor.getId(), from, horizon);
+                if (next != null) candidates.add(new FreeSlot(doctor, next, next.plus(SLOT_LENGTH)));
+            }
+
+            List<FreeSlot> result = new ArrayList<>(count);
+            while (result.size() < count && !candidates.isEmpty()) {
+                FreeSlot slot = candidates.poll();
+                result.add(slot);
+                LocalDateTime next = nextFreeStart(slot.doctor.getId(), slot.end, horizon);
+                if (next != null) candidates.add(new FreeSlot(slot.doctor, next, next.plus(SLOT_LENGTH)));
+            }
+            return result;
+        }
+    }
+
+    private LocalDateTime nextFreeStart(int doctorId, LocalDateTime from, LocalDateTime horizon) {
+        LocalDateTime t = alignToSlot(from);
+        while (t.isBefore(horizon)) {
+            LocalTime time = t.toLocalTime();
+            LocalTime slotEnd = time.plus(SLOT_LENGTH);
+            if (time.isBefore(DAY_START)) {
+                t = t.toLocalDate().atTime(DAY_START);
+                continue;
+            }
+            if (slotEnd.isAfter(DAY_END) || slotEnd.isBefore(time)) { // după program (sau trece de miezul nopții)
+                t = t.toLocalDate().plusDays(1).atTime(DAY_START);
+                continue;
+            }
+            LocalDateTime conflictEnd = latestConflictEnd(doctorId, t, t.plus(SLOT_LENGTH));
+            if (conflictEnd == null) return t;
+            t = alignToSlot(conflictEnd);
+        }
+        return null;
+    }
+
+    // Sfârșitul celui mai lung interval care se suprapune cu [start, end), sau null dacă nu există
+    private LocalDateTime latestConflictEnd(int doctorId, LocalDateTime start, LocalDateTime end) {
+        TreeMap<LocalDateTime, List<Booking>> schedule = byDoctor.get(doctorId);
+        if (schedule == null) return null;
+
+        LocalDateTime latest = null;
+        for (List<Booking> bookings : schedule.subMap(start.minus(maxDuration), false, end, false).values()) {
+            for (Booking b : bookings) {
+                if (b.end.isAfter(start) && (latest == null || b.end.isAfter(latest))) {
+                    latest = b.end;
+                }
+            }
+        }
+        return latest;
+    }
+
+    // Rotunjește în sus la grila de sloturi a zilei (ex: 10:07 -> 10:30 pentru sloturi de 30 min)
+    private static LocalDateTime alignToSlot(LocalDateTime t) {
+        long slotSeconds = SLOT_LENGTH.getSeconds();
+        LocalDateTime midnight = t.toLocalDate().atStartOfDay();
+        long seconds = Duration.between(midnight, t).getSeconds();
+        long aligned = ((seconds + slotSeconds - 1) / slotSeconds) * slotSeconds;
+        if (aligned == seconds && t.getNano() > 0) aligned += slotSeconds;
+        return midnight.plusSeconds(aligned);
+    }
+
+    public synchronized int size() {
+        return byAppointment.size();
+    }
+
+    private static final class Booking {
+        private final int appointmentId;
+        private final int doctorId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        Booking(int appointmentId, int doctorId, LocalDateTime start, LocalDateTime end) {
+            this.appointmentId = appointmentId;
+            this.doctorId = doctorId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    public static final class FreeSlot {
+        private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+        private final Doctor doctor;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        FreeSlot(Doctor doctor, LocalDateTime start, LocalDateTime end) {
+            this.doctor = doctor;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Doctor getDoctor() { return doctor; }
+        public LocalDateTime getStart() { return start; }
+        public LocalDateTime getEnd() { return end; }
+
+        @Override
+        public String toString() {
+            return FMT.format(start) + " - " + end.toLocalTime() + " | Dr. " + doctor.getFullName()
+                    + " (" + doctor.getParafaCode() + ")";
+        }
+    }
+}
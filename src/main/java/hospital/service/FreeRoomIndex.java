@@ -0,0 +1,121 @@
+package main.java.hospital.service;
+
+import main.java.hospital.model.Room;
+import main.java.hospital.util.Metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Index al camerelor libere, pe (departament, tip): pentru fiecare cheie, o coadă fără blocare de camere.
+ *
+ * Camerele se pun în coadă când sunt adăugate libere și ori de câte ori devin libere sau își schimbă tipul
+ * ori departamentul (Room anunță indexul). O cameră apare cel mult o dată în coada unei chei, deci cozile
+ * nu cresc peste numărul de camere. Intrările care nu mai sunt valabile (cameră ocupată între timp,
+ * ștearsă sau mutată sub altă cheie) se aruncă la prima citire, deci căutarea este O(1) amortizat.
+ * Alocarea folosește Room.tryOccupy, deci o cameră nu poate fi dată la două internări simultane.
+ */
+@SuppressWarnings("try")
+public class FreeRoomIndex {
+
+    private final Map<String, FreeQueue> freeRooms = new ConcurrentHashMap<>();
+    private final Set<Room> indexed = ConcurrentHashMap.newKeySet();
+
+    public void add(Room room) {
+        try (Metrics.Scope scope = Metrics.scope("FreeRoomIndex.add")) {
+            indexed.add(room);
+            room.setAvailabilityListener(this::offer);
+            offer(room);
+        }
+    }
+
+    public void remove(Room room) {
+        try (Metrics.Scope scope = Metrics.scope("FreeRoomIndex.remove")) {
+            indexed.remove(room);
+            room.setAvailabilityListener(null);
+        }
+    }
+
+    public void clear() {
+        try (Metrics.Scope scope = Metrics.scope("FreeRoomIndex.clear")) {
+            indexed.forEach(room -> room.setAvailabilityListener(null));
+            indexed.clear();
+            freeRooms.clear();
+        }
+    }
+
+    /**
+     * O cameră liberă de tipul dat din departament, fără să o ocupe; null dacă nu există.
+     */
+    public Room peek(int departmentId, String type) {
+        try (Metrics.Scope scope = Metrics.scope("FreeRoomIndex.peek")) {
+            FreeQueue queue = freeRooms.get(key(departmentId, type));
+            if (queue == null) return null;
+            Room room;
+            while ((room = queue.rooms.peek()) != null) {
+                if (isUsable(room, departmentId, type)) {
+                    return room;
+                }
+                if (queue.rooms.remove(room)) {
+                    unqueue(queue, room);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Ocupă atomic o cameră liberă de tipul dat din departament; null dacă nu există.
+     */
+    public Room claim(int departmentId, String type, int appointmentId) {
+        try (Metrics.Scope scope = Metrics.scope("FreeRoomIndex.claim")) {
+            FreeQueue queue = freeRooms.get(key(departmentId, type));
+            if (queue == null) return null;
+            Room room;
+            while ((room = queue.rooms.poll()) != null) {
+                queue.queued.remove(room);
+                if (isUsable(room, departmentId, type) && room.tryOccupy(appointmentId)) {
+                    return room;
+                }
+                offer(room); // eliberată sau mutată între poll și verificare: anunțul ei a fost ignorat
+            }
+            return null;
+        }
+    }
+
+    private void offer(Room room) {
+        if (!indexed.contains(room) || room.isOccupied() || room.getDepartment() == null || room.getType() == null) {
+            return;
+        }
+        FreeQueue queue = freeRooms.computeIfAbsent(key(room.getDepartment().getId(), room.getType()), k -> new FreeQueue());
+        if (queue.queued.add(room)) {
+            queue.rooms.offer(room);
+        }
+    }
+
+    // Scoate marcajul după ce intrarea a ieșit din coadă; un anunț primit între timp ar fi fost ignorat
+    private void unqueue(FreeQueue queue, Room room) {
+        queue.queued.remove(room);
+        offer(room);
+    }
+
+    private boolean isUsable(Room room, int departmentId, String type) {
+        return indexed.contains(room) && !room.isOccupied()
+                && room.getDepartment() != null && room.getDepartment().getId() == departmentId
+                && room.getType() != null && room.getType().equalsIgnoreCase(type);
+    }
+
+    private static String key(int departmentId, String type) {
+        return departmentId + ":" + type.toLowerCase(Locale.ROOT);
+    }
+
+    // Coada unei chei, plus camerele aflate în ea (o cameră nu se pune de două ori)
+    private static final class FreeQueue {
+        private final Queue<Room> rooms = new ConcurrentLinkedQueue<>();
+        private final Set<Room> queued = ConcurrentHashMap.newKeySet();
+    }
+}
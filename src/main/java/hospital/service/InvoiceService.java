@@ -4,14 +4,29 @@ import main.java.hospital.model.Invoice;
 import main.java.hospital.model.Patient;
 import main.java.hospital.util.AuditService;
 import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.Metrics;
 
 import java.sql.*;
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.*;
 
+@SuppressWarnings("try")
 public class InvoiceService {
-    private final List<Invoice> invoices = new ArrayList<>();
+    // Facturile în memorie, după id (în ordinea încărcării), plus separat cele plătite și cele neplătite
+    private final Map<Integer, Invoice> invoices = new LinkedHashMap<>();
+    private final Map<Integer, Invoice> paidInvoices = new LinkedHashMap<>();
+    private final Map<Integer, Invoice> unpaidInvoices = new LinkedHashMap<>();
+
+    // Totaluri în bani (long), actualizate la fiecare modificare: global, per pacient și per zi
+    private final Totals totals = new Totals();
+    private final Map<Integer, Totals> totalsByPatient = new HashMap<>();
+    private final NavigableMap<LocalDate, Totals> totalsByDay = new TreeMap<>();
+
+    // Index sortat pe zile, pentru interogările pe interval de date
+    private final NavigableMap<LocalDate, List<Invoice>> invoicesByDay = new TreeMap<>();
+    private boolean loaded = false;
+
     private final PatientService patientService;
 
     public InvoiceService(PatientService patientService) {
@@ -19,270 +34,441 @@ public class InvoiceService {
         loadInvoicesFromDB();
     }
 
+    private void index(Invoice invoice) {
+        Invoice previous = invoices.put(invoice.getInvoiceId(), invoice);
+        if (previous != null) {
+            unindexTotals(previous);
+        }
+        (invoice.isPaid() ? paidInvoices : unpaidInvoices).put(invoice.getInvoiceId(), invoice);
+        invoicesByDay.computeIfAbsent(invoice.getDate(), day -> new ArrayList<>()).add(invoice);
+        long cents = invoice.getAmountCents();
+        totals.add(cents, invoice.isPaid());
+        totalsByPatient.computeIfAbsent(invoice.getPatient().getId(), id -> new Totals()).add(cents, invoice.isPaid());
+        totalsByDay.computeIfAbsent(invoice.getDate(), day -> new Totals()).add(cents, invoice.isPaid());
+    }
+
+    private void unindex(Invoice invoice) {
+        if (invoices.remove(invoice.getInvoiceId()) != null) {
+            unindexTotals(invoice);
+        }
+    }
+
+    private void unindexTotals(Invoice invoice) {
+        paidInvoices.remove(invoice.getInvoiceId());
+        unpaidInvoices.remove(invoice.getInvoiceId());
+        List<Invoice> day = invoicesByDay.get(invoice.getDate());
+        if (day != null) {
+            day.removeIf(i -> i.getInvoiceId() == invoice.getInvoiceId());
+            if (day.isEmpty()) invoicesByDay.remove(invoice.getDate());
+        }
+        long cents = invoice.getAmountCents();
+        totals.remove(cents, invoice.isPaid());
+        removeFrom(totalsByPatient, invoice.getPatient().getId(), cents, invoice.isPaid());
+        removeFrom(totalsByDay, invoice.getDate(), cents, invoice.isPaid());
+    }
+
+    private static <K> void removeFrom(Map<K, Totals> byKey, K key, long cents, boolean paid) {
+        Totals bucket = byKey.get(key);
+        if (bucket == null) return;
+        bucket.remove(cents, paid);
+        if (bucket.getCount() == 0) {
+            byKey.remove(key);
+        }
+    }
+
+    private void indexPaid(Invoice invoice) {
+        if (invoice.isPaid()) return;
+        invoice.markAsPaid();
+        unpaidInvoices.remove(invoice.getInvoiceId());
+        paidInvoices.put(invoice.getInvoiceId(), invoice);
+        long cents = invoice.getAmountCents();
+        totals.markPaid(cents);
+        totalsByPatient.get(invoice.getPatient().getId()).markPaid(cents);
+        totalsByDay.get(invoice.getDate()).markPaid(cents);
+    }
+
     public Invoice addInvoice(Patient patient, double amount, String description, LocalDate date, boolean isPaid) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "INSERT INTO invoices (patient_id, amount, description, date, is_paid) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            stmt.setInt(1, patient.getId());
-            stmt.setDouble(2, amount);
-            stmt.setString(3, description);
-            stmt.setDate(4, Date.valueOf(date));
-            stmt.setBoolean(5, isPaid);
-            stmt.executeUpdate();
-
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                int id = rs.getInt(1);
-                Invoice invoice = new Invoice(id, patient, amount, description, date, isPaid);
-                invoices.add(invoice);
-                AuditService.getInstance().log("CREATE_INVOICE: ID=" + id);
-                return invoice;
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.addInvoice")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "INSERT INTO invoices (patient_id, amount, description, date, is_paid) VALUES (?, ?, ?, ?, ?)";
+                PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                stmt.setInt(1, patient.getId());
+                stmt.setDouble(2, amount);
+                stmt.setString(3, description);
+                stmt.setDate(4, Date.valueOf(date));
+                stmt.setBoolean(5, isPaid);
+                stmt.executeUpdate();
+
+                ResultSet rs = stmt.getGeneratedKeys();
+                if (rs.next()) {
+                    int id = rs.getInt(1);
+                    Invoice invoice = new Invoice(id, patient, amount, description, date, isPaid);
+                    index(invoice);
+                    AuditService.getInstance().log("CREATE_INVOICE: ID=" + id);
+                    return invoice;
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la adăugare factură: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la adăugare factură: " + e.getMessage());
+            return null;
         }
-        return null;
     }
 
     public void loadInvoicesFromDB() {
-        invoices.clear();
-
-        // Curăță listele de facturi ale fiecărui pacient
-        for (Patient patient : patientService.getAllPatients()) {
-            patient.getInvoices().clear(); // 🧼 Elimină duplicările
-        }
-
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT * FROM invoices";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                int patientId = rs.getInt("patient_id");
-                double amount = rs.getDouble("amount");
-                String desc = rs.getString("description");
-                LocalDate date = rs.getDate("date").toLocalDate();
-                boolean isPaid = rs.getBoolean("is_paid");
-
-                Optional<Patient> patientOpt = patientService.getPatientById(patientId);
-                patientOpt.ifPresent(p -> {
-                    Invoice invoice = new Invoice(id, p, amount, desc, date, isPaid);
-                    invoices.add(invoice);
-                    ///p.getInvoices().add(invoice); // ✅ atașare directă la pacient
-                });
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.loadInvoicesFromDB")) {
+            invoices.clear();
+            paidInvoices.clear();
+            unpaidInvoices.clear();
+            totals.clear();
+            totalsByPatient.clear();
+            totalsByDay.clear();
+            invoicesByDay.clear();
+            loaded = false;
+
+            // Curăță listele de facturi ale fiecărui pacient
+            for (Patient patient : patientService.getAllPatients()) {
+                patient.getInvoices().clear(); // 🧼 Elimină duplicările
+            }
+
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT * FROM invoices";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    int patientId = rs.getInt("patient_id");
+                    double amount = rs.getDouble("amount");
+                    String desc = rs.getString("description");
+                    LocalDate date = rs.getDate("date").toLocalDate();
+                    boolean isPaid = rs.getBoolean("is_paid");
+
+                    Optional<Patient> patientOpt = patientService.getPatientById(patientId);
+                    patientOpt.ifPresent(p -> {
+                        Invoice invoice = new Invoice(id, p, amount, desc, date, isPaid);
+                        index(invoice);
+                        ///p.getInvoices().add(invoice); // ✅ atașare directă la pacient
+                    });
+                }
+                loaded = true;
+                AuditService.getInstance().log("LOAD_INVOICES_FROM_DB");
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la încărcare facturi: " + e.getMessage());
             }
-            AuditService.getInstance().log("LOAD_INVOICES_FROM_DB");
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la încărcare facturi: " + e.getMessage());
         }
     }
 
 
     public List<Invoice> getInvoicesForPatient(Patient patient) {
-        List<Invoice> result = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT * FROM invoices WHERE patient_id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, patient.getId());
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                Invoice invoice = new Invoice(
-                        rs.getInt("id"),
-                        patient,
-                        rs.getDouble("amount"),
-                        rs.getString("description"),
-                        rs.getDate("date").toLocalDate(),
-                        rs.getBoolean("is_paid")
-                );
-                result.add(invoice);
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getInvoicesForPatient")) {
+            List<Invoice> result = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT * FROM invoices WHERE patient_id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, patient.getId());
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    Invoice invoice = new Invoice(
+                            rs.getInt("id"),
+                            patient,
+                            rs.getDouble("amount"),
+                            rs.getString("description"),
+                            rs.getDate("date").toLocalDate(),
+                            rs.getBoolean("is_paid")
+                    );
+                    result.add(invoice);
+                }
+                AuditService.getInstance().log("READ_INVOICES_FOR_PATIENT: ID=" + patient.getId());
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la getInvoicesForPatient: " + e.getMessage());
             }
-            AuditService.getInstance().log("READ_INVOICES_FOR_PATIENT: ID=" + patient.getId());
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la getInvoicesForPatient: " + e.getMessage());
+            return result;
         }
-        return result;
     }
 
     public boolean markInvoiceAsPaid(int id) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "UPDATE invoices SET is_paid = TRUE WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, id);
-            int updated = stmt.executeUpdate();
-            if (updated > 0) {
-                invoices.stream().filter(i -> i.getInvoiceId() == id).findFirst().ifPresent(Invoice::markAsPaid);
-                AuditService.getInstance().log("MARK_INVOICE_PAID: ID=" + id);
-                return true;
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.markInvoiceAsPaid")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "UPDATE invoices SET is_paid = TRUE WHERE id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, id);
+                int updated = stmt.executeUpdate();
+                if (updated > 0) {
+                    Invoice invoice = invoices.get(id);
+                    if (invoice != null) {
+                        indexPaid(invoice);
+                    }
+                    AuditService.getInstance().log("MARK_INVOICE_PAID: ID=" + id);
+                    return true;
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la plată factură: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la plată factură: " + e.getMessage());
+            AuditService.getInstance().log("MARK_INVOICE_PAID_FAILED: ID=" + id);
+            return false;
         }
-        AuditService.getInstance().log("MARK_INVOICE_PAID_FAILED: ID=" + id);
-        return false;
     }
 
     public boolean deleteInvoiceById(int id) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "DELETE FROM invoices WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, id);
-            int result = stmt.executeUpdate();
-            if (result > 0) {
-                invoices.removeIf(i -> i.getInvoiceId() == id);
-                AuditService.getInstance().log("DELETE_INVOICE: ID=" + id);
-                return true;
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.deleteInvoiceById")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "DELETE FROM invoices WHERE id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, id);
+                int result = stmt.executeUpdate();
+                if (result > 0) {
+                    Invoice invoice = invoices.get(id);
+                    if (invoice != null) {
+                        unindex(invoice);
+                    }
+                    AuditService.getInstance().log("DELETE_INVOICE: ID=" + id);
+                    return true;
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la ștergere factură: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la ștergere factură: " + e.getMessage());
+            AuditService.getInstance().log("DELETE_INVOICE_FAILED: ID=" + id);
+            return false;
         }
-        AuditService.getInstance().log("DELETE_INVOICE_FAILED: ID=" + id);
-        return false;
     }
 
     public Invoice createInvoiceForPatient(String cnp, double amount, String description, LocalDate date, boolean isPaid) {
-        Optional<Patient> optional = patientService.getPatientByCnp(cnp);
-        return optional.map(patient -> addInvoice(patient, amount, description, date, isPaid)).orElse(null);
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.createInvoiceForPatient")) {
+            Optional<Patient> optional = patientService.getPatientByCnp(cnp);
+            return optional.map(patient -> addInvoice(patient, amount, description, date, isPaid)).orElse(null);
+        }
     }
 
     public List<Invoice> getUnpaidInvoices() {
-        return invoices.stream().filter(i -> !i.isPaid()).toList();
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getUnpaidInvoices")) {
+            return List.copyOf(unpaidInvoices.values());
+        }
     }
 
     public List<Invoice> getPaidInvoices() {
-        return invoices.stream().filter(Invoice::isPaid).toList();
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getPaidInvoices")) {
+            return List.copyOf(paidInvoices.values());
+        }
     }
 
     public double getTotalRevenue() {
-        return invoices.stream().mapToDouble(Invoice::getAmount).sum();
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getTotalRevenue")) {
+            return totals.getTotalCents() / 100.0;
+        }
     }
 
     public double getTotalUnpaidAmount() {
-        return invoices.stream().filter(i -> !i.isPaid()).mapToDouble(Invoice::getAmount).sum();
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getTotalUnpaidAmount")) {
+            return totals.getUnpaidCents() / 100.0;
+        }
     }
 
     public void printAllInvoices() {
-        if (invoices.isEmpty()) System.out.println("📄 Nu există facturi înregistrate.");
-        else invoices.forEach(System.out::println);
-        AuditService.getInstance().log("DISPLAY_ALL_INVOICES");
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.printAllInvoices")) {
+            if (invoices.isEmpty()) System.out.println("📄 Nu există facturi înregistrate.");
+            else invoices.values().forEach(System.out::println);
+            AuditService.getInstance().log("DISPLAY_ALL_INVOICES");
+        }
     }
 
     public void printUnpaidInvoices() {
-        List<Invoice> list = getUnpaidInvoices();
-        if (list.isEmpty()) System.out.println("✅ Toate facturile au fost achitate.");
-        else list.forEach(System.out::println);
-        AuditService.getInstance().log("DISPLAY_UNPAID_INVOICES");
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.printUnpaidInvoices")) {
+            List<Invoice> list = getUnpaidInvoices();
+            if (list.isEmpty()) System.out.println("✅ Toate facturile au fost achitate.");
+            else list.forEach(System.out::println);
+            AuditService.getInstance().log("DISPLAY_UNPAID_INVOICES");
+        }
     }
 
     public void printInvoicesForPatient(String cnp) {
-        Optional<Patient> optional = patientService.getPatientByCnp(cnp);
-        if (optional.isPresent()) {
-            List<Invoice> list = getInvoicesForPatient(optional.get());
-            if (list.isEmpty()) System.out.println("📭 Nicio factură pentru pacientul cu CNP: " + cnp);
-            else list.forEach(System.out::println);
-        } else {
-            System.out.println("❌ Pacientul cu CNP " + cnp + " nu a fost găsit.");
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.printInvoicesForPatient")) {
+            Optional<Patient> optional = patientService.getPatientByCnp(cnp);
+            if (optional.isPresent()) {
+                List<Invoice> list = getInvoicesForPatient(optional.get());
+                if (list.isEmpty()) System.out.println("📭 Nicio factură pentru pacientul cu CNP: " + cnp);
+                else list.forEach(System.out::println);
+            } else {
+                System.out.println("❌ Pacientul cu CNP " + cnp + " nu a fost găsit.");
+            }
+            AuditService.getInstance().log("DISPLAY_INVOICES_FOR_PATIENT: " + cnp);
         }
-        AuditService.getInstance().log("DISPLAY_INVOICES_FOR_PATIENT: " + cnp);
     }
     public void menuInvoicesByDate() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            Scanner scanner = new Scanner(System.in);
-            System.out.print("📅 Introdu data (yyyy-MM-dd): ");
-            LocalDate dateInput = LocalDate.parse(scanner.nextLine());
-
-            String sql = "SELECT * FROM invoices WHERE date = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setDate(1, Date.valueOf(dateInput));
-            ResultSet rs = stmt.executeQuery();
-
-            boolean found = false;
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                int patientId = rs.getInt("patient_id");
-                double amount = rs.getDouble("amount");
-                String desc = rs.getString("description");
-                LocalDate invoiceDate = rs.getDate("date").toLocalDate();
-                boolean isPaid = rs.getBoolean("is_paid");
-                Optional<Patient> patientOpt = patientService.getPatientById(patientId);
-                if (patientOpt.isPresent()) {
-                    Invoice invoice = new Invoice(id, patientOpt.get(), amount, desc, invoiceDate, isPaid);
-                    System.out.println(invoice);
-                    found = true;
-                }
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.menuInvoicesByDate")) {
+            try {
+                Scanner scanner = new Scanner(System.in);
+                System.out.print("📅 Introdu data (yyyy-MM-dd): ");
+                LocalDate dateInput = LocalDate.parse(scanner.nextLine());
+
+                List<Invoice> list = getInvoicesBetween(dateInput, dateInput);
+                if (list.isEmpty()) System.out.println("📭 Nicio factură găsită pentru data specificată.");
+                else list.forEach(System.out::println);
+                AuditService.getInstance().log("DISPLAY_INVOICES_BY_DATE: " + dateInput);
+            } catch (Exception e) {
+                scope.fail();
+                System.out.println("❌ Eroare la interogare după dată: " + e.getMessage());
             }
-            if (!found) System.out.println("📭 Nicio factură găsită pentru data specificată.");
-            AuditService.getInstance().log("DISPLAY_INVOICES_BY_DATE: " + dateInput);
-        } catch (Exception e) {
-            System.out.println("❌ Eroare la interogare după dată: " + e.getMessage());
         }
     }
 
     public void menuInvoicesBetweenDates() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            Scanner scanner = new Scanner(System.in);
-            System.out.print("📅 Introdu data de început (yyyy-MM-dd): ");
-            LocalDate start = LocalDate.parse(scanner.nextLine());
-            System.out.print("📅 Introdu data de sfârșit (yyyy-MM-dd): ");
-            LocalDate end = LocalDate.parse(scanner.nextLine());
-
-            String sql = "SELECT * FROM invoices WHERE date BETWEEN ? AND ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setDate(1, Date.valueOf(start));
-            stmt.setDate(2, Date.valueOf(end));
-            ResultSet rs = stmt.executeQuery();
-
-            boolean found = false;
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                int patientId = rs.getInt("patient_id");
-                double amount = rs.getDouble("amount");
-                String desc = rs.getString("description");
-                LocalDate invoiceDate = rs.getDate("date").toLocalDate();
-                boolean isPaid = rs.getBoolean("is_paid");
-                Optional<Patient> patientOpt = patientService.getPatientById(patientId);
-                if (patientOpt.isPresent()) {
-                    Invoice invoice = new Invoice(id, patientOpt.get(), amount, desc, invoiceDate, isPaid);
-                    System.out.println(invoice);
-                    found = true;
-                }
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.menuInvoicesBetweenDates")) {
+            try {
+                Scanner scanner = new Scanner(System.in);
+                System.out.print("📅 Introdu data de început (yyyy-MM-dd): ");
+                LocalDate start = LocalDate.parse(scanner.nextLine());
+                System.out.print("📅 Introdu data de sfârșit (yyyy-MM-dd): ");
+                LocalDate end = LocalDate.parse(scanner.nextLine());
+
+                List<Invoice> list = getInvoicesBetween(start, end);
+                if (list.isEmpty()) System.out.println("📭 Nicio factură în perioada specificată.");
+                else list.forEach(System.out::println);
+                AuditService.getInstance().log("DISPLAY_INVOICES_BETWEEN: " + start + " - " + end);
+            } catch (Exception e) {
+                scope.fail();
+                System.out.println("❌ Eroare la interogare între date: " + e.getMessage());
             }
-            if (!found) System.out.println("📭 Nicio factură în perioada specificată.");
-            AuditService.getInstance().log("DISPLAY_INVOICES_BETWEEN: " + start + " - " + end);
-        } catch (Exception e) {
-            System.out.println("❌ Eroare la interogare între date: " + e.getMessage());
         }
     }
 
+    /**
+     * Facturile cu data în [start, end], în ordinea datei, din indexul pe zile.
+     * Baza de date este citită doar dacă facturile nu au putut fi încărcate până acum.
+     */
     public List<Invoice> getInvoicesBetween(LocalDate start, LocalDate end) {
-        List<Invoice> result = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT * FROM invoices WHERE date BETWEEN ? AND ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setDate(1, Date.valueOf(start));
-            stmt.setDate(2, Date.valueOf(end));
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                int patientId = rs.getInt("patient_id");
-                double amount = rs.getDouble("amount");
-                String desc = rs.getString("description");
-                LocalDate invoiceDate = rs.getDate("date").toLocalDate();
-                boolean isPaid = rs.getBoolean("is_paid");
-
-                Optional<Patient> patientOpt = patientService.getPatientById(patientId);
-                patientOpt.ifPresent(p -> {
-                    Invoice invoice = new Invoice(id, p, amount, desc, invoiceDate, isPaid);
-                    result.add(invoice);
-                });
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getInvoicesBetween")) {
+            if (!loaded) {
+                loadInvoicesFromDB();
+            }
+            List<Invoice> result = new ArrayList<>();
+            if (!start.isAfter(end)) {
+                for (List<Invoice> day : invoicesByDay.subMap(start, true, end, true).values()) {
+                    result.addAll(day);
+                }
             }
             AuditService.getInstance().log("GET_INVOICES_BETWEEN: " + start + " - " + end);
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la getInvoicesBetween: " + e.getMessage());
+            return result;
+        }
+    }
+
+    /**
+     * Totalurile facturilor cu data în [start, end], adunate din totalurile pe zile.
+     */
+    public Totals getTotalsBetween(LocalDate start, LocalDate end) {
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getTotalsBetween")) {
+            Totals result = new Totals();
+            if (!start.isAfter(end)) {
+                for (Totals day : totalsByDay.subMap(start, true, end, true).values()) {
+                    result.addAll(day);
+                }
+            }
+            return result;
         }
-        return result;
     }
 
     public double getTotalPaidAmount() {
-        return invoices.stream().filter(Invoice::isPaid).mapToDouble(Invoice::getAmount).sum();
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getTotalPaidAmount")) {
+            return totals.getPaidCents() / 100.0;
+        }
+    }
+
+    public Totals getTotals() {
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getTotals")) {
+            return totals.snapshot();
+        }
+    }
+
+    public Totals getTotalsForPatient(int patientId) {
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getTotalsForPatient")) {
+            return totalsByPatient.getOrDefault(patientId, Totals.EMPTY).snapshot();
+        }
+    }
+
+    public Totals getTotalsForDay(LocalDate day) {
+        try (Metrics.Scope scope = Metrics.scope("InvoiceService.getTotalsForDay")) {
+            return totalsByDay.getOrDefault(day, Totals.EMPTY).snapshot();
+        }
+    }
+
+    // Facturile pacientului au fost șterse direct în baza de date (ștergerea pacientului)
+    void removeInvoicesForPatient(int patientId) {
+        List<Invoice> removed = new ArrayList<>();
+        for (Invoice invoice : invoices.values()) {
+            if (invoice.getPatient().getId() == patientId) removed.add(invoice);
+        }
+        removed.forEach(this::unindex);
+    }
+
+    /**
+     * Totaluri de facturare în bani (1 leu = 100 de bani), ca sumele să se adune exact.
+     * În afara serviciului ajung doar copii (snapshot), care nu se mai schimbă după ce au fost întoarse.
+     */
+    public static final class Totals {
+        private static final Totals EMPTY = new Totals();
+
+        private int count;
+        private int unpaidCount;
+        private long totalCents;
+        private long unpaidCents;
+
+        public int getCount() { return count; }
+        public int getUnpaidCount() { return unpaidCount; }
+        public long getTotalCents() { return totalCents; }
+        public long getPaidCents() { return totalCents - unpaidCents; }
+        public long getUnpaidCents() { return unpaidCents; }
+
+        private void add(long cents, boolean paid) {
+            count++;
+            totalCents += cents;
+            if (!paid) {
+                unpaidCount++;
+                unpaidCents += cents;
+            }
+        }
+
+        private void remove(long cents, boolean paid) {
+            count--;
+            totalCents -= cents;
+            if (!paid) {
+                unpaidCount--;
+                unpaidCents -= cents;
+            }
+        }
+
+        private void markPaid(long cents) {
+            unpaidCount--;
+            unpaidCents -= cents;
+        }
+
+        private void addAll(Totals other) {
+            count += other.count;
+            unpaidCount += other.unpaidCount;
+            totalCents += other.totalCents;
+            unpaidCents += other.unpaidCents;
+        }
+
+        // Copie nouă, independentă de totalurile ținute la zi de serviciu
+        private Totals snapshot() {
+            Totals copy = new Totals();
+            copy.addAll(this);
+            return copy;
+        }
+
+        private void clear() {
+            count = 0;
+            unpaidCount = 0;
+            totalCents = 0;
+            unpaidCents = 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Totals {facturi=%d, total=%.2f lei, neplătite=%d (%.2f lei)}",
+                    count, totalCents / 100.0, unpaidCount, unpaidCents / 100.0);
+        }
     }
 }
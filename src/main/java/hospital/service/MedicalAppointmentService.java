@@ -3,439 +3,628 @@ package main.java.hospital.service;
 import main.java.hospital.model.*;
 import main.java.hospital.util.AuditService;
 import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.EntityCache;
+import main.java.hospital.util.Metrics;
+import main.java.hospital.util.WriteBehindQueue;
 
 import java.sql.*;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
+@SuppressWarnings("try")
 public class MedicalAppointmentService {
 
     private final List<MedicalAppointment> appointments = new ArrayList<>();
+    // Intervalele ocupate ale fiecărui doctor, pentru verificări de disponibilitate fără drum la DB
+    private final DoctorScheduleIndex schedule = new DoctorScheduleIndex();
 
     public MedicalAppointmentService() {
         loadFromDatabase();
     }
 
+    // Programarea împreună cu pacientul și doctorul ei, într-un singur drum la baza de date
+    private static final String APPOINTMENT_SELECT = """
+            SELECT a.id, a.patient_id, a.doctor_id, a.room_number, a.date_time, a.reason,
+                   p.id AS p_id, p.first_name AS p_first_name, p.last_name AS p_last_name, p.email AS p_email,
+                   p.phone_number AS p_phone_number, p.cnp AS p_cnp, p.address AS p_address,
+                   p.blood_group AS p_blood_group, p.rh_type AS p_rh_type,
+                   d.id AS d_id, d.first_name AS d_first_name, d.last_name AS d_last_name
+            FROM medical_appointments a
+            LEFT JOIN patients p ON a.patient_id = p.id
+            LEFT JOIN doctors d ON a.doctor_id = d.id
+            """;
+
     public void loadFromDatabase() {
-        appointments.clear();
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.loadFromDatabase")) {
+            appointments.clear();
+            schedule.clear();
+
+            try {
+                queryAppointments("", stmt -> { }, appointment -> {
+                    appointments.add(appointment);
+                    indexAppointment(appointment);
+                    AuditService.getInstance().log("MAP_APPOINTMENT_ROW: id=" + appointment.getId());
+                });
+                AuditService.getInstance().log("LOAD_APPOINTMENTS_FROM_DB");
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("\u274C Eroare JDBC la loadFromDatabase: " + e.getMessage());
+                AuditService.getInstance().log("LOAD_APPOINTMENTS_FAILED: " + e.getMessage());
+            }
+        }
+    }
 
+    @FunctionalInterface
+    private interface ParameterBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+
+    /**
+     * Rulează interogarea de bază (cu filtrul dat) și trimite programările, rând cu rând,
+     * către consumer. Rezultatul este citit cu cursor, deci nu se ține tot tabelul în memorie.
+     */
+    private void queryAppointments(String whereClause, ParameterBinder binder,
+                                   java.util.function.Consumer<MedicalAppointment> sink) throws SQLException {
+        WriteBehindQueue.getInstance().flush("medical_appointments");
         try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM medical_appointments")) {
+             PreparedStatement stmt = conn.prepareStatement(APPOINTMENT_SELECT + whereClause,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(DatabaseConnection.FETCH_SIZE);
+            binder.bind(stmt);
+
+            AppointmentRowMapper mapper = new AppointmentRowMapper();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sink.accept(mapper.map(rs));
+                }
+            }
+        }
+    }
 
-            List<Map<String, Object>> rows = new ArrayList<>();
-            ResultSetMetaData meta = rs.getMetaData();
-            int columnCount = meta.getColumnCount();
+    /**
+     * Construiește programări din rândurile interogării cu JOIN.
+     * Pacienții și doctorii care apar de mai multe ori sunt creați o singură dată.
+     */
+    private static class AppointmentRowMapper {
+        private final Map<Integer, Patient> patients = new HashMap<>();
+        private final Map<Integer, Doctor> doctors = new HashMap<>();
+
+        MedicalAppointment map(ResultSet rs) throws SQLException {
+            int id = rs.getInt("id");
+            int roomNumber = rs.getInt("room_number");
+            LocalDateTime dateTime = rs.getTimestamp("date_time").toLocalDateTime();
+            String reason = rs.getString("reason");
+
+            Patient patient = mapPatient(rs);
+            Doctor doctor = mapDoctor(rs);
+            Room room = new Room(roomNumber, "Unknown", null, false);
+
+            MedicalAppointment appointment = new MedicalAppointment(patient, doctor, dateTime, reason, room);
+            appointment.setId(id);
+            return appointment;
+        }
 
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    row.put(meta.getColumnName(i), rs.getObject(i));
-                }
-                rows.add(row);
+        private Patient mapPatient(ResultSet rs) throws SQLException {
+            int patientId = rs.getInt("patient_id");
+            Patient patient = patients.get(patientId);
+            if (patient == null) {
+                // aceeași instanță pe care o ține PatientService, dacă e deja încărcată
+                patient = EntityCache.getInstance().get(Patient.class, patientId);
+                if (patient != null) patients.put(patientId, patient);
+            }
+            if (patient == null && rs.getObject("p_id") != null) {
+                patient = readPatient(rs, patientId);
+                patients.put(patientId, patient);
             }
+            return patient;
+        }
 
-            for (Map<String, Object> row : rows) {
-                appointments.add(mapRowToAppointment(row));
+        // Citește coloanele p_* (vezi APPOINTMENT_SELECT / PATIENT_BATCH_SELECT) și întoarce instanța partajată
+        static Patient readPatient(ResultSet rs, int patientId) throws SQLException {
+            Patient mapped = new Patient(
+                    rs.getString("p_first_name"),
+                    rs.getString("p_last_name"),
+                    rs.getString("p_email"),
+                    rs.getString("p_phone_number"),
+                    rs.getString("p_cnp"),
+                    rs.getString("p_address"),
+                    BloodGroup.valueOf(rs.getString("p_blood_group")),
+                    RhType.valueOf(rs.getString("p_rh_type")),
+                    false // persisted
+            );
+            mapped.setId(patientId);
+            return EntityCache.getInstance().resolve(Patient.class, patientId, () -> mapped);
+        }
+
+        private Doctor mapDoctor(ResultSet rs) throws SQLException {
+            int doctorId = rs.getInt("doctor_id");
+            Doctor doctor = doctors.get(doctorId);
+            if (doctor == null) {
+                doctor = EntityCache.getInstance().get(Doctor.class, doctorId);
+                if (doctor != null) doctors.put(doctorId, doctor);
             }
+            if (doctor == null && rs.getObject("d_id") != null) {
+                doctor = readDoctor(rs, doctorId);
+                doctors.put(doctorId, doctor);
+            }
+            return doctor;
+        }
 
-            AuditService.getInstance().log("LOAD_APPOINTMENTS_FROM_DB");
-        } catch (SQLException e) {
-            System.err.println("\u274C Eroare JDBC la loadFromDatabase: " + e.getMessage());
-            AuditService.getInstance().log("LOAD_APPOINTMENTS_FAILED: " + e.getMessage());
+        static Doctor readDoctor(ResultSet rs, int doctorId) throws SQLException {
+            Doctor mapped = new Doctor(
+                    rs.getString("d_first_name"),
+                    rs.getString("d_last_name")
+            );
+            mapped.setId(doctorId);
+            return EntityCache.getInstance().resolve(Doctor.class, doctorId, () -> mapped);
         }
     }
 
-    private Patient getPatientById(int id) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT * FROM patients WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                Patient p = new Patient(
-                        rs.getString("first_name"),
-                        rs.getString("last_name"),
-                        rs.getString("email"),
-                        rs.getString("phone_number"),
-                        rs.getString("cnp"),
-                        rs.getString("address"),
-                        BloodGroup.valueOf(rs.getString("blood_group")),
-                        RhType.valueOf(rs.getString("rh_type")),
-                        false
-                );
-                p.setId(id);
-                return p;
+    // ==================== paginare (keyset) și streaming ====================
+
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger("hospital.appointments.pageSize", 20);
+
+    private static final String PAGE_SELECT = """
+            SELECT a.id, a.patient_id, a.doctor_id, a.room_number, a.date_time, a.reason
+            FROM medical_appointments a
+            WHERE a.id > ?
+            ORDER BY a.id
+            LIMIT ?
+            """;
+    private static final String PATIENT_BATCH_SELECT = """
+            SELECT p.id AS p_id, p.first_name AS p_first_name, p.last_name AS p_last_name, p.email AS p_email,
+                   p.phone_number AS p_phone_number, p.cnp AS p_cnp, p.address AS p_address,
+                   p.blood_group AS p_blood_group, p.rh_type AS p_rh_type
+            FROM patients p WHERE p.id IN (%s)
+            """;
+    private static final String DOCTOR_BATCH_SELECT = """
+            SELECT d.id AS d_id, d.first_name AS d_first_name, d.last_name AS d_last_name
+            FROM doctors d WHERE d.id IN (%s)
+            """;
+
+    /**
+     * O pagină de programări cu id mai mare decât {@code afterId}, în ordinea id-urilor.
+     * Pentru pagina următoare se trece id-ul ultimei programări primite; o pagină mai scurtă decât
+     * {@code pageSize} înseamnă că nu mai urmează nimic. Pacienții și doctorii care nu sunt deja în
+     * EntityCache se aduc cu câte o singură interogare IN (...) per pagină.
+     */
+    public List<MedicalAppointment> getAppointmentsPage(int afterId, int pageSize) {
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.getAppointmentsPage")) {
+            try {
+                List<MedicalAppointment> page = fetchPage(afterId, pageSize);
+                AuditService.getInstance().log("READ_APPOINTMENTS_PAGE: afterId=" + afterId + ", size=" + page.size());
+                return page;
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la citirea paginii de programări: " + e.getMessage());
+                return Collections.emptyList();
             }
-        } catch (SQLException e) {
-            System.err.println("\u274C Eroare JDBC la getPatientById: " + e.getMessage());
         }
-        return null;
     }
 
-    private MedicalAppointment mapRowToAppointment(Map<String, Object> row) {
-        int id = (int) row.get("id");
-        int patientId = (int) row.get("patient_id");
-        int doctorId = (int) row.get("doctor_id");
-        int roomNumber = (int) row.get("room_number");
-
-        Object dateObj = row.get("date_time");
-        LocalDateTime dateTime;
-        if (dateObj instanceof Timestamp) {
-            dateTime = ((Timestamp) dateObj).toLocalDateTime();
-        } else if (dateObj instanceof LocalDateTime) {
-            dateTime = (LocalDateTime) dateObj;
-        } else {
-            throw new IllegalArgumentException("Unsupported type for date_time: " + dateObj.getClass());
+    /**
+     * Toate programările, ca Stream citit pagină cu pagină: în memorie se află cel mult o pagină,
+     * iar între pagini nu rămâne nicio conexiune ocupată.
+     */
+    public java.util.stream.Stream<MedicalAppointment> streamAllAppointments(int pageSize) {
+        Spliterator<MedicalAppointment> pages = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Iterator<MedicalAppointment> current = Collections.emptyIterator();
+            private int lastId = 0;
+            private boolean exhausted = false;
+
+            @Override
+            public boolean tryAdvance(java.util.function.Consumer<? super MedicalAppointment> action) {
+                if (!current.hasNext()) {
+                    if (exhausted) return false;
+                    List<MedicalAppointment> page;
+                    // Stream-ul e leneș: cronometrăm fiecare pagină citită, nu doar crearea lui
+                    try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.streamAllAppointments")) {
+                        try {
+                            page = fetchPage(lastId, pageSize);
+                        } catch (SQLException e) {
+                            scope.fail();
+                            throw new IllegalStateException("Eroare JDBC la citirea programărilor: " + e.getMessage(), e);
+                        }
+                    }
+                    exhausted = page.size() < pageSize;
+                    if (page.isEmpty()) return false;
+                    lastId = page.get(page.size() - 1).getId();
+                    current = page.iterator();
+                }
+                action.accept(current.next());
+                return true;
+            }
+        };
+        return java.util.stream.StreamSupport.stream(pages, false);
+    }
+
+    private List<MedicalAppointment> fetchPage(int afterId, int pageSize) throws SQLException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Dimensiunea paginii trebuie să fie pozitivă: " + pageSize);
+        }
+        List<PageRow> rows = new ArrayList<>(pageSize);
+        Map<Integer, Patient> patients = new HashMap<>();
+        Map<Integer, Doctor> doctors = new HashMap<>();
+
+        WriteBehindQueue.getInstance().flush("medical_appointments");
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(PAGE_SELECT,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(Math.min(pageSize, DatabaseConnection.FETCH_SIZE));
+                stmt.setInt(1, afterId);
+                stmt.setInt(2, pageSize);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new PageRow(rs));
+                    }
+                }
+            }
+
+            Set<Integer> missingPatients = new LinkedHashSet<>();
+            Set<Integer> missingDoctors = new LinkedHashSet<>();
+            for (PageRow row : rows) {
+                resolveCached(Patient.class, row.patientId, patients, missingPatients);
+                resolveCached(Doctor.class, row.doctorId, doctors, missingDoctors);
+            }
+            hydrate(conn, PATIENT_BATCH_SELECT, missingPatients, rs -> {
+                int id = rs.getInt("p_id");
+                patients.put(id, AppointmentRowMapper.readPatient(rs, id));
+            });
+            hydrate(conn, DOCTOR_BATCH_SELECT, missingDoctors, rs -> {
+                int id = rs.getInt("d_id");
+                doctors.put(id, AppointmentRowMapper.readDoctor(rs, id));
+            });
         }
 
-        String reason = (String) row.get("reason");
+        List<MedicalAppointment> page = new ArrayList<>(rows.size());
+        for (PageRow row : rows) {
+            MedicalAppointment appointment = new MedicalAppointment(patients.get(row.patientId), doctors.get(row.doctorId),
+                    row.dateTime, row.reason, new Room(row.roomNumber, "Unknown", null, false));
+            appointment.setId(row.id);
+            page.add(appointment);
+        }
+        return page;
+    }
 
-        Patient patient = getPatientById(patientId);
-        Doctor doctor = getDoctorById(doctorId);
-        Room room = new Room(roomNumber, "Unknown Type", null, false);
+    // Rândul brut din medical_appointments, înainte ca pacientul și doctorul să fie rezolvați
+    private static final class PageRow {
+        private final int id;
+        private final int patientId;
+        private final int doctorId;
+        private final int roomNumber;
+        private final LocalDateTime dateTime;
+        private final String reason;
+
+        PageRow(ResultSet rs) throws SQLException {
+            this.id = rs.getInt("id");
+            this.patientId = rs.getInt("patient_id");
+            this.doctorId = rs.getInt("doctor_id");
+            this.roomNumber = rs.getInt("room_number");
+            this.dateTime = rs.getTimestamp("date_time").toLocalDateTime();
+            this.reason = rs.getString("reason");
+        }
+    }
 
-        MedicalAppointment app = new MedicalAppointment(patient, doctor, dateTime, reason, room);
-        app.setId(id);
+    private static <T> void resolveCached(Class<T> type, int id, Map<Integer, T> resolved, Set<Integer> missing) {
+        if (resolved.containsKey(id) || missing.contains(id)) return;
+        T cached = EntityCache.getInstance().get(type, id);
+        if (cached != null) {
+            resolved.put(id, cached);
+        } else {
+            missing.add(id);
+        }
+    }
 
-        AuditService.getInstance().log("MAP_APPOINTMENT_ROW: id=" + id);
-        return app;
+    @FunctionalInterface
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
     }
 
-    private Doctor getDoctorById(int id) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT * FROM doctors WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                Doctor doctor = new Doctor(
-                        rs.getString("first_name"),
-                        rs.getString("last_name")
-                );
-                doctor.setId(id);
-                return doctor;
+    private static void hydrate(Connection conn, String sqlTemplate, Set<Integer> ids, RowHandler handler) throws SQLException {
+        if (ids.isEmpty()) return;
+        // Lista IN este rotunjită la o putere a lui 2 (completată cu ultimul id), ca SQL-ul să aibă puține forme
+        // și statement-ul pregătit să fie refolosit din cache-ul conexiunii
+        int slots = ids.size() == 1 ? 1 : Integer.highestOneBit(ids.size() - 1) << 1;
+        String placeholders = String.join(", ", Collections.nCopies(slots, "?"));
+        try (PreparedStatement stmt = conn.prepareStatement(String.format(sqlTemplate, placeholders))) {
+            int index = 1;
+            int last = 0;
+            for (int id : ids) {
+                stmt.setInt(index++, id);
+                last = id;
+            }
+            while (index <= slots) {
+                stmt.setInt(index++, last);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
             }
-        } catch (SQLException e) {
-            System.err.println("\u274C Eroare JDBC la getDoctorById: " + e.getMessage());
         }
-        return null;
     }
 
-    public void addAppointment(MedicalAppointment appointment) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "INSERT INTO medical_appointments (patient_id, doctor_id, room_number, date_time, reason) VALUES (?, ?, ?, ?, ?)";
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            stmt.setInt(1, appointment.getPatient().getId());
-            stmt.setInt(2, appointment.getDoctor().getId());
-            if (appointment.getRoom() != null)
-                stmt.setInt(3, appointment.getRoom().getRoomNumber());
-            else
-                stmt.setNull(3, Types.INTEGER);
-            stmt.setTimestamp(4, Timestamp.valueOf(appointment.getDateTime()));
-            stmt.setString(5, appointment.getReason());
-
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows > 0) {
+    /**
+     * Salvează programarea; întoarce false dacă inserarea a eșuat.
+     */
+    public boolean addAppointment(MedicalAppointment appointment) {
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.addAppointment")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "INSERT INTO medical_appointments (patient_id, doctor_id, room_number, date_time, reason) VALUES (?, ?, ?, ?, ?)";
+                PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                stmt.setInt(1, appointment.getPatient().getId());
+                stmt.setInt(2, appointment.getDoctor().getId());
+                if (appointment.getRoom() != null)
+                    stmt.setInt(3, appointment.getRoom().getRoomNumber());
+                else
+                    stmt.setNull(3, Types.INTEGER);
+                stmt.setTimestamp(4, Timestamp.valueOf(appointment.getDateTime()));
+                stmt.setString(5, appointment.getReason());
+
+                int affectedRows = stmt.executeUpdate();
+                if (affectedRows == 0) {
+                    AuditService.getInstance().log("ADD_APPOINTMENT_FAILED: no rows inserted");
+                    return false;
+                }
                 ResultSet generatedKeys = stmt.getGeneratedKeys();
                 if (generatedKeys.next()) {
                     int id = generatedKeys.getInt(1);
                     appointment.setId(id);
+                    appointments.add(appointment);
+                    indexAppointment(appointment);
                     System.out.println("✅ Programare adăugată cu ID: " + id);
                 }
-            }
 
-            AuditService.getInstance().log("ADD_APPOINTMENT: DB INSERT SUCCESS");
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la inserare programare: " + e.getMessage());
-            AuditService.getInstance().log("ADD_APPOINTMENT_FAILED: " + e.getMessage());
+                // Verificările de disponibilitate nu se auditează; se auditează doar programarea făcută
+                AuditService.getInstance().log("ADD_APPOINTMENT: ID=" + appointment.getId()
+                        + ", doctorId=" + appointment.getDoctor().getId() + ", dateTime=" + appointment.getDateTime());
+                return true;
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la inserare programare: " + e.getMessage());
+                AuditService.getInstance().log("ADD_APPOINTMENT_FAILED: " + e.getMessage());
+                return false;
+            }
         }
     }
 
-    private MedicalAppointment mapResultSetToAppointment(ResultSet rs) throws SQLException {
-        int id = rs.getInt("id");
-        int patientId = rs.getInt("patient_id");
-        int doctorId = rs.getInt("doctor_id");
-        int roomId = rs.getInt("room_number");
-        LocalDateTime dateTime = rs.getTimestamp("date_time").toLocalDateTime();
-        String reason = rs.getString("reason");
-
-        Patient patient = getPatientById(patientId);
-        Doctor doctor = getDoctorById(doctorId);
-        Room room = new Room(roomId, "Unknown Type", null, false);
-
-        return new MedicalAppointment(patient, doctor, dateTime, reason, room);
-    }
-
     public List<MedicalAppointment> getAllAppointments() {
-        List<MedicalAppointment> appointments = new ArrayList<>();
-
-        Map<Integer, Patient> allPatients = loadAllPatients();
-        Map<Integer, Doctor> allDoctors = loadAllDoctors();
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM medical_appointments")) {
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                int patientId = rs.getInt("patient_id");
-                int doctorId = rs.getInt("doctor_id");
-                int roomNumber = rs.getInt("room_number");
-                LocalDateTime dateTime = rs.getTimestamp("date_time").toLocalDateTime();
-                String reason = rs.getString("reason");
-
-                Patient patient = allPatients.get(patientId);
-                Doctor doctor = allDoctors.get(doctorId);
-                Room room = new Room(roomNumber, "Unknown", null, false);
-
-                appointments.add(new MedicalAppointment( patient, doctor, dateTime, reason, room));
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.getAllAppointments")) {
+            List<MedicalAppointment> appointments = new ArrayList<>();
+
+            try {
+                queryAppointments("", stmt -> { }, appointments::add);
+                AuditService.getInstance().log("READ_ALL_APPOINTMENTS FROM DB");
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la citire programări: " + e.getMessage());
             }
 
-            AuditService.getInstance().log("READ_ALL_APPOINTMENTS FROM DB");
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la citire programări: " + e.getMessage());
+            return appointments;
         }
-
-        return appointments;
     }
 
 
     public boolean deleteAppointment(int id) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "DELETE FROM medical_appointments WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, id);
-            int deleted = stmt.executeUpdate();
-            AuditService.getInstance().log("DELETE_APPOINTMENT: ID=" + id);
-            return deleted > 0;
-        } catch (SQLException e) {
-            AuditService.getInstance().log("DELETE_APPOINTMENT_FAILED: ID=" + id);
-            System.err.println("❌ Eroare JDBC la ștergere programare: " + e.getMessage());
-            return false;
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.deleteAppointment")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "DELETE FROM medical_appointments WHERE id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, id);
+                int deleted = stmt.executeUpdate();
+                if (deleted > 0) {
+                    appointments.removeIf(a -> a.getId() == id);
+                    schedule.remove(id);
+                }
+                AuditService.getInstance().log("DELETE_APPOINTMENT: ID=" + id);
+                return deleted > 0;
+            } catch (SQLException e) {
+                scope.fail();
+                AuditService.getInstance().log("DELETE_APPOINTMENT_FAILED: ID=" + id);
+                System.err.println("❌ Eroare JDBC la ștergere programare: " + e.getMessage());
+                return false;
+            }
         }
     }
 
     public boolean updateAppointmentDateTime(int id, LocalDateTime newDateTime) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "UPDATE medical_appointments SET date_time = ? WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setTimestamp(1, Timestamp.valueOf(newDateTime));
-            stmt.setInt(2, id);
-            int updated = stmt.executeUpdate();
-            if (updated > 0) {
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.updateAppointmentDateTime")) {
+            Optional<MedicalAppointment> queued = queueUpdate(id, "date_time", newDateTime);
+            if (queued.isPresent()) {
+                queued.get().setDateTime(newDateTime);
+                schedule.move(id, newDateTime);
                 AuditService.getInstance().log("UPDATE_APPOINTMENT_DATETIME: ID=" + id);
                 System.out.println("✅ Dată/oră actualizată.");
                 return true;
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la actualizare dată/oră: " + e.getMessage());
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "UPDATE medical_appointments SET date_time = ? WHERE id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setTimestamp(1, Timestamp.valueOf(newDateTime));
+                stmt.setInt(2, id);
+                int updated = stmt.executeUpdate();
+                if (updated > 0) {
+                    schedule.move(id, newDateTime);
+                    AuditService.getInstance().log("UPDATE_APPOINTMENT_DATETIME: ID=" + id);
+                    System.out.println("✅ Dată/oră actualizată.");
+                    return true;
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la actualizare dată/oră: " + e.getMessage());
+            }
+            return false;
         }
-        return false;
     }
 
     public boolean updateAppointmentRoom(int id, Room roomId) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "UPDATE medical_appointments SET room_number = ? WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, roomId.getRoomNumber());
-            stmt.setInt(2, id);
-            int updated = stmt.executeUpdate();
-            if (updated > 0) {
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.updateAppointmentRoom")) {
+            Optional<MedicalAppointment> queued = queueUpdate(id, "room_number", roomId.getRoomNumber());
+            if (queued.isPresent()) {
+                queued.get().setRoom(roomId);
                 AuditService.getInstance().log("UPDATE_APPOINTMENT_ROOM: ID=" + id);
                 System.out.println("✅ Cameră actualizată.");
                 return true;
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la actualizare cameră: " + e.getMessage());
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "UPDATE medical_appointments SET room_number = ? WHERE id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, roomId.getRoomNumber());
+                stmt.setInt(2, id);
+                int updated = stmt.executeUpdate();
+                if (updated > 0) {
+                    AuditService.getInstance().log("UPDATE_APPOINTMENT_ROOM: ID=" + id);
+                    System.out.println("✅ Cameră actualizată.");
+                    return true;
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la actualizare cameră: " + e.getMessage());
+            }
+            return false;
         }
-        return false;
     }
 
     public boolean updateAppointmentNotes(int id, String newNotes) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "UPDATE medical_appointments SET reason = ? WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, newNotes);
-            stmt.setInt(2, id);
-            int updated = stmt.executeUpdate();
-            if (updated > 0) {
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.updateAppointmentNotes")) {
+            Optional<MedicalAppointment> queued = queueUpdate(id, "reason", newNotes);
+            if (queued.isPresent()) {
+                queued.get().setReason(newNotes);
                 AuditService.getInstance().log("UPDATE_APPOINTMENT_NOTES: ID=" + id);
                 System.out.println("✅ Observații actualizate.");
                 return true;
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la actualizare observații: " + e.getMessage());
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "UPDATE medical_appointments SET reason = ? WHERE id = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setString(1, newNotes);
+                stmt.setInt(2, id);
+                int updated = stmt.executeUpdate();
+                if (updated > 0) {
+                    AuditService.getInstance().log("UPDATE_APPOINTMENT_NOTES: ID=" + id);
+                    System.out.println("✅ Observații actualizate.");
+                    return true;
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la actualizare observații: " + e.getMessage());
+            }
+            return false;
         }
-        return false;
     }
 
-    public List<MedicalAppointment> getAppointmentsByPatientId(int patientId) {
-        List<MedicalAppointment> appointments = new ArrayList<>();
-
-        Patient patient = getPatientById(patientId);
-        Map<Integer, Doctor> allDoctors = loadAllDoctors();
-
-        if (patient == null) return appointments;
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM medical_appointments WHERE patient_id = ?")) {
-
-            stmt.setInt(1, patientId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                int doctorId = rs.getInt("doctor_id");
-                int roomNumber = rs.getInt("room_number");
-                LocalDateTime dateTime = rs.getTimestamp("date_time").toLocalDateTime();
-                String reason = rs.getString("reason");
+    // Programarea din memorie, dacă modificarea ei a fost pusă în coada write-behind
+    private Optional<MedicalAppointment> queueUpdate(int id, String column, Object value) {
+        WriteBehindQueue writeBehind = WriteBehindQueue.getInstance();
+        if (!writeBehind.isEnabled()) return Optional.empty();
 
-                Doctor doctor = allDoctors.get(doctorId);
-                Room room = new Room(roomNumber, "Unknown", null, false);
+        Optional<MedicalAppointment> loaded = appointments.stream().filter(a -> a.getId() == id).findFirst();
+        if (loaded.isPresent() && writeBehind.submit("medical_appointments", "id", id, column, value)) {
+            return loaded;
+        }
+        return Optional.empty();
+    }
 
-                MedicalAppointment appointment = new MedicalAppointment(patient, doctor, dateTime, reason, room);
-                appointment.setId(id);
-                appointments.add(appointment);
+    public List<MedicalAppointment> getAppointmentsByPatientId(int patientId) {
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.getAppointmentsByPatientId")) {
+            List<MedicalAppointment> appointments = new ArrayList<>();
+
+            try {
+                queryAppointments("WHERE a.patient_id = ? AND p.id IS NOT NULL",
+                        stmt -> stmt.setInt(1, patientId), appointments::add);
+                AuditService.getInstance().log("GET_APPOINTMENTS_BY_PATIENT_ID: " + patientId);
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la filtrare programări după pacient: " + e.getMessage());
             }
 
-            AuditService.getInstance().log("GET_APPOINTMENTS_BY_PATIENT_ID: " + patientId);
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la filtrare programări după pacient: " + e.getMessage());
+            return appointments;
         }
-
-        return appointments;
     }
 
     public List<MedicalAppointment> getAppointmentsByDate(LocalDateTime date) {
-        List<MedicalAppointment> appointments = new ArrayList<>();
-
-        Map<Integer, Patient> allPatients = loadAllPatients();
-        Map<Integer, Doctor> allDoctors = loadAllDoctors();
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.getAppointmentsByDate")) {
+            List<MedicalAppointment> appointments = new ArrayList<>();
+
+            try {
+                // Interval pe date_time în loc de DATE(date_time), ca să poată folosi indexul coloanei
+                queryAppointments("WHERE a.date_time >= ? AND a.date_time < ?", stmt -> {
+                    stmt.setTimestamp(1, Timestamp.valueOf(date.toLocalDate().atStartOfDay()));
+                    stmt.setTimestamp(2, Timestamp.valueOf(date.toLocalDate().plusDays(1).atStartOfDay()));
+                }, appointments::add);
+                AuditService.getInstance().log("GET_APPOINTMENTS_BY_DATE: " + date);
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la filtrare programări după dată: " + e.getMessage());
+            }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM medical_appointments WHERE DATE(date_time) = ?")) {
-
-            stmt.setDate(1, java.sql.Date.valueOf(date.toLocalDate()));
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                int patientId = rs.getInt("patient_id");
-                int doctorId = rs.getInt("doctor_id");
-                int roomNumber = rs.getInt("room_number");
-                LocalDateTime dateTime = rs.getTimestamp("date_time").toLocalDateTime();
-                String reason = rs.getString("reason");
-
-                Patient patient = allPatients.get(patientId);
-                Doctor doctor = allDoctors.get(doctorId);
-                Room room = new Room(roomNumber, "Unknown", null, false);
-
-                MedicalAppointment appointment = new MedicalAppointment(patient, doctor, dateTime, reason, room);
-                appointment.setId(id);
-                appointments.add(appointment);            }
-
-            AuditService.getInstance().log("GET_APPOINTMENTS_BY_DATE: " + date);
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la filtrare programări după dată: " + e.getMessage());
+            return appointments;
         }
-
-        return appointments;
     }
 
-    private Map<Integer, Doctor> loadAllDoctors() {
 
-        Map<Integer, Doctor> doctors = new HashMap<>();
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM doctors")) {
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                Doctor doctor = new Doctor(
-                        rs.getString("first_name"),
-                        rs.getString("last_name")
-                );
-                doctor.setId(id);
-                doctors.put(id, doctor);
-            }
-            AuditService.getInstance().log("LOAD_ALL_DOCTORS");
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la încărcare doctori: " + e.getMessage());
+    private void indexAppointment(MedicalAppointment appointment) {
+        if (appointment.getDoctor() != null && appointment.getDateTime() != null) {
+            schedule.add(appointment.getId(), appointment.getDoctor().getId(), appointment.getDateTime());
         }
-        return doctors;
     }
 
-    private Map<Integer, Patient> loadAllPatients() {
-        Map<Integer, Patient> patients = new HashMap<>();
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT * FROM patients")) {
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                Patient patient = new Patient(
-                        rs.getString("first_name"),
-                        rs.getString("last_name"),
-                        rs.getString("email"),
-                        rs.getString("phone_number"),
-                        rs.getString("cnp"),
-                        rs.getString("address"),
-                        BloodGroup.valueOf(rs.getString("blood_group")),
-                        RhType.valueOf(rs.getString("rh_type")),
-                        false // persisted
-                );
-                patient.setId(id);
-                patients.put(id, patient);
-            }
-            AuditService.getInstance().log("LOAD_ALL_PATIENTS");
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la încărcare pacienți: " + e.getMessage());
+    // Verifică suprapunerea cu orice programare a doctorului (durata implicită a unui slot), din indexul în memorie
+    public boolean isDoctorAvailable(int doctorId, LocalDateTime dateTime) {
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.isDoctorAvailable")) {
+            return schedule.isFree(doctorId, dateTime, DoctorScheduleIndex.SLOT_LENGTH);
         }
-        return patients;
     }
 
+    public boolean isDoctorAvailable(int doctorId, LocalDateTime start, Duration duration) {
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.isDoctorAvailable")) {
+            return schedule.isFree(doctorId, start, duration);
+        }
+    }
 
-    public boolean isDoctorAvailable(int doctorId, LocalDateTime dateTime) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT COUNT(*) FROM medical_appointments WHERE doctor_id = ? AND date_time = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, doctorId);
-            stmt.setTimestamp(2, Timestamp.valueOf(dateTime));
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                boolean available = rs.getInt(1) == 0;
-                AuditService.getInstance().log("CHECK_DOCTOR_AVAILABILITY: " + (available ? "AVAILABLE" : "NOT_AVAILABLE") + " -> doctorId=" + doctorId);
-                return available;
-            }
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la verificare disponibilitate medic: " + e.getMessage());
+    public List<DoctorScheduleIndex.FreeSlot> findNextFreeSlots(Specialization specialization, List<Doctor> doctors,
+                                                                LocalDateTime from, int count) {
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.findNextFreeSlots")) {
+            List<Doctor> candidates = doctors.stream()
+                    .filter(d -> d.getSpecialization() == specialization)
+                    .toList();
+            List<DoctorScheduleIndex.FreeSlot> slots = schedule.findNextFreeSlots(candidates, from, count);
+            AuditService.getInstance().log("FIND_FREE_SLOTS: " + specialization + " x" + count);
+            return slots;
         }
-        return false;
     }
 
     public void printAllAppointments() {
-        List<MedicalAppointment> appointments = getAllAppointments();
-        if (appointments.isEmpty()) {
-            System.out.println("📭 Nu există programări înregistrate.");
-        } else {
-            appointments.forEach(System.out::println);
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.printAllAppointments")) {
+            long[] printed = {0};
+            try (java.util.stream.Stream<MedicalAppointment> all = streamAllAppointments(DatabaseConnection.FETCH_SIZE)) {
+                all.forEach(appointment -> {
+                    System.out.println(appointment);
+                    printed[0]++;
+                });
+            } catch (IllegalStateException e) {
+                scope.fail();
+                System.err.println("❌ " + e.getMessage());
+            }
+            if (printed[0] == 0) {
+                System.out.println("📭 Nu există programări înregistrate.");
+            }
+            AuditService.getInstance().log("DISPLAY_ALL_APPOINTMENTS");
         }
-        AuditService.getInstance().log("DISPLAY_ALL_APPOINTMENTS");
     }
 
     public Optional<MedicalAppointment> getAppointmentById(int id) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT * FROM medical_appointments WHERE id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return Optional.of(mapResultSetToAppointment(rs));
+        try (Metrics.Scope scope = Metrics.scope("MedicalAppointmentService.getAppointmentById")) {
+            List<MedicalAppointment> found = new ArrayList<>(1);
+            try {
+                queryAppointments("WHERE a.id = ?", stmt -> stmt.setInt(1, id), found::add);
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la getAppointmentById: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la getAppointmentById: " + e.getMessage());
+            return found.stream().findFirst();
         }
-        return Optional.empty();
     }
 }
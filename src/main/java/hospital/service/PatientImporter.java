@@ -0,0 +1,327 @@
+package main.java.hospital.service;
+
+import main.java.hospital.model.BloodGroup;
+import main.java.hospital.model.MedicalRecord;
+import main.java.hospital.model.Patient;
+import main.java.hospital.model.RhType;
+import main.java.hospital.util.AuditService;
+import main.java.hospital.util.CnpRegistry;
+import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.Metrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Import în masă de pacienți (ex: liste primite de la clinici partenere).
+ * Rândurile se citesc pe rând și se procesează în loturi de chunkSize: validarea CNP-urilor se face în paralel,
+ * fișele medicale și pacienții se inserează cu addBatch, cheile generate se preiau pentru tot lotul,
+ * iar fiecare lot se confirmă separat. Un lot eșuat este anulat fără să le afecteze pe celelalte.
+ */
+@SuppressWarnings("try")
+public class PatientImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = Integer.getInteger("hospital.import.chunkSize", 1000);
+    private static final String CSV_HEADER = "first_name,last_name,email,phone_number,cnp,address,blood_group,rh_type";
+
+    private final PatientService patientService;
+    private final int chunkSize;
+
+    public PatientImporter(PatientService patientService) {
+        this(patientService, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PatientImporter(PatientService patientService, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Dimensiunea lotului trebuie să fie pozitivă: " + chunkSize);
+        }
+        this.patientService = patientService;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Importă un fișier CSV cu antetul: first_name,last_name,email,phone_number,cnp,address,blood_group,rh_type.
+     * Câmpurile care conțin virgule pot fi puse între ghilimele.
+     */
+    public Result importCsv(Path file) throws IOException {
+        try (Metrics.Scope scope = Metrics.scope("PatientImporter.importCsv")) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String header = reader.readLine();
+                if (header == null || !header.replace("\uFEFF", "").trim().equalsIgnoreCase(CSV_HEADER)) {
+                    throw new IOException("Antet CSV neașteptat. Se așteaptă: " + CSV_HEADER);
+                }
+                // Primul rând se citește deja la construirea iteratorului, deci și el e în try
+                try {
+                    Iterator<Row> rows = new Iterator<>() {
+                        private int lineNumber = 1;
+                        private String next = advance();
+
+                        private String advance() {
+                            try {
+                                String line;
+                                do {
+                                    line = reader.readLine();
+                                    lineNumber++;
+                                } while (line != null && line.isBlank());
+                                return line;
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null;
+                        }
+
+                        @Override
+                        public Row next() {
+                            if (next == null) throw new NoSuchElementException();
+                            Row row = Row.fromCsv(lineNumber, next);
+                            next = advance();
+                            return row;
+                        }
+                    };
+                    return importRows(rows);
+                } catch (UncheckedIOException e) {
+                    scope.fail();
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+
+    public Result importRows(Iterator<Row> rows) {
+        try (Metrics.Scope scope = Metrics.scope("PatientImporter.importRows")) {
+            Result result = new Result();
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, result);
+            }
+            AuditService.getInstance().log("IMPORT_PATIENTS: " + result.imported + " importați, " + result.rejected.size() + " respinși");
+            return result;
+        }
+    }
+
+    private void importChunk(List<Row> chunk, Result result) {
+        // Validarea nu depinde de starea comună, deci rulează în paralel
+        chunk.parallelStream().forEach(Row::validate);
+
+        // Unicitatea se rezervă atomic în registru; CNP-urile se eliberează dacă lotul nu ajunge în baza de date
+        CnpRegistry registry = CnpRegistry.getInstance();
+        List<Row> accepted = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.error == null && !registry.register(row.cnp)) {
+                row.error = "CNP deja folosit: " + row.cnp;
+            }
+            if (row.error != null) {
+                result.rejected.add("linia " + row.lineNumber + ": " + row.error);
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) return;
+
+        try {
+            List<Patient> patients = insert(accepted);
+            patientService.indexImported(patients);
+            result.imported += patients.size();
+        } catch (SQLException e) {
+            accepted.forEach(row -> registry.release(row.cnp));
+            result.failedChunks++;
+            for (Row row : accepted) {
+                result.rejected.add("linia " + row.lineNumber + ": lot anulat - " + e.getMessage());
+            }
+            System.err.println("❌ Eroare JDBC la importul unui lot de pacienți: " + e.getMessage());
+        }
+    }
+
+    private List<Patient> insert(List<Row> rows) throws SQLException {
+        LocalDate today = LocalDate.now();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int[] recordIds;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT INTO medical_records (creation_date) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        stmt.setDate(1, Date.valueOf(today));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    recordIds = generatedKeys(stmt, rows.size(), "fișelor medicale");
+                }
+
+                int[] patientIds;
+                String sql = "INSERT INTO patients (first_name, last_name, email, phone_number, cnp, address, blood_group, rh_type, medical_record_id, active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        Row row = rows.get(i);
+                        stmt.setString(1, row.firstName);
+                        stmt.setString(2, row.lastName);
+                        stmt.setString(3, row.email);
+                        stmt.setString(4, row.phoneNumber);
+                        stmt.setString(5, row.cnp);
+                        stmt.setString(6, row.address);
+                        stmt.setString(7, row.bloodGroup.name());
+                        stmt.setString(8, row.rhType.name());
+                        stmt.setInt(9, recordIds[i]);
+                        stmt.setBoolean(10, true);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    patientIds = generatedKeys(stmt, rows.size(), "pacienților");
+                }
+
+                conn.commit();
+
+                List<Patient> patients = new ArrayList<>(rows.size());
+                for (int i = 0; i < rows.size(); i++) {
+                    Row row = rows.get(i);
+                    patients.add(new Patient(patientIds[i], row.firstName, row.lastName, row.email, row.phoneNumber,
+                            row.cnp, row.address, row.bloodGroup, row.rhType, true, new MedicalRecord(recordIds[i], today)));
+                }
+                return patients;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Cheile generate vin în ordinea rândurilor din lot
+    private static int[] generatedKeys(PreparedStatement stmt, int expected, String what) throws SQLException {
+        int[] keys = new int[expected];
+        int count = 0;
+        try (ResultSet rs = stmt.getGeneratedKeys()) {
+            while (rs.next() && count < expected) {
+                keys[count++] = rs.getInt(1);
+            }
+        }
+        if (count != expected) {
+            throw new SQLException("Eroare la generarea ID-urilor " + what + ": " + count + " din " + expected);
+        }
+        return keys;
+    }
+
+    /**
+     * Un rând de importat. Erorile de validare sunt reținute pe rând, nu aruncate.
+     */
+    public static class Row {
+        private final int lineNumber;
+        private final String firstName;
+        private final String lastName;
+        private final String email;
+        private final String phoneNumber;
+        private final String cnp;
+        private final String address;
+        private final String bloodGroupText;
+        private final String rhTypeText;
+        private BloodGroup bloodGroup;
+        private RhType rhType;
+        private String error;
+
+        public Row(int lineNumber, String firstName, String lastName, String email, String phoneNumber,
+                   String cnp, String address, String bloodGroup, String rhType) {
+            this.lineNumber = lineNumber;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+            this.phoneNumber = phoneNumber;
+            this.cnp = cnp == null ? null : cnp.trim();
+            this.address = address;
+            this.bloodGroupText = bloodGroup;
+            this.rhTypeText = rhType;
+        }
+
+        static Row fromCsv(int lineNumber, String line) {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != 8) {
+                Row row = new Row(lineNumber, null, null, null, null, null, null, null, null);
+                row.error = "număr greșit de coloane (" + fields.size() + " în loc de 8)";
+                return row;
+            }
+            return new Row(lineNumber, fields.get(0), fields.get(1), fields.get(2), fields.get(3),
+                    fields.get(4), fields.get(5), fields.get(6), fields.get(7));
+        }
+
+        void validate() {
+            if (error != null) return;
+            if (firstName == null || firstName.isBlank() || lastName == null || lastName.isBlank()) {
+                error = "numele și prenumele sunt obligatorii";
+            } else if (cnp == null || !cnp.matches("\\d{13}")) {
+                error = "CNP invalid: trebuie să conțină exact 13 cifre";
+            } else if (!Patient.isValidCnpStructure(cnp)) {
+                error = "CNP invalid: cifra de control este incorectă";
+            } else {
+                try {
+                    bloodGroup = BloodGroup.fromString(bloodGroupText.trim());
+                    rhType = RhType.fromString(rhTypeText);
+                } catch (RuntimeException e) {
+                    error = "grupă sanguină sau RH invalid (" + bloodGroupText + ", " + rhTypeText + ")";
+                }
+            }
+        }
+
+        private static List<String> splitCsv(String line) {
+            List<String> fields = new ArrayList<>(8);
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(current.toString().trim());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            fields.add(current.toString().trim());
+            return fields;
+        }
+    }
+
+    public static class Result {
+        private int imported;
+        private int failedChunks;
+        private final List<String> rejected = new ArrayList<>();
+
+        public int getImported() { return imported; }
+        public int getFailedChunks() { return failedChunks; }
+        public List<String> getRejected() { return rejected; }
+
+        @Override
+        public String toString() {
+            return "Importați: " + imported + ", respinși: " + rejected.size()
+                    + (failedChunks > 0 ? ", loturi anulate: " + failedChunks : "");
+        }
+    }
+}
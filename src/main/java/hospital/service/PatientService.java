@@ -3,6 +3,9 @@ package main.java.hospital.service;
 import main.java.hospital.model.*;
 import main.java.hospital.util.AuditService;
 import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.EntityCache;
+import main.java.hospital.util.Metrics;
+import main.java.hospital.util.WriteBehindQueue;
 
 import java.sql.*;
 import java.sql.Date;
@@ -10,15 +13,45 @@ import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
+@SuppressWarnings("try")
 public class PatientService {
-    private final List<Patient> patients;
+    // Indexuri în memorie: după id (păstrează ordinea încărcării) și după CNP
+    private final Map<Integer, Patient> patientsById = new LinkedHashMap<>();
+    private final Map<String, Patient> patientsByCnp = new HashMap<>();
+
+    private InvoiceService invoiceService;
 
     public PatientService() {
-        this.patients = new ArrayList<>();
         loadPatientsFromDB();
     }
 
+    // Totalurile facturilor pe pacient sunt ținute de InvoiceService
+    public void setInvoiceService(InvoiceService invoiceService) {
+        this.invoiceService = invoiceService;
+    }
+
+    private void index(Patient patient) {
+        Patient previous = patientsById.put(patient.getId(), patient);
+        if (previous != null && !previous.getCnp().equals(patient.getCnp())) {
+            patientsByCnp.remove(previous.getCnp());
+        }
+        patientsByCnp.put(patient.getCnp(), patient);
+        EntityCache.getInstance().put(Patient.class, patient.getId(), patient);
+    }
+
+    private void unindex(Patient patient) {
+        patientsById.remove(patient.getId());
+        patientsByCnp.remove(patient.getCnp());
+        EntityCache.getInstance().invalidate(Patient.class, patient.getId());
+    }
+
+    // Pacienții importați în masă (PatientImporter) sunt deja în baza de date, cu CNP-ul rezervat în registru
+    void indexImported(Collection<Patient> patients) {
+        patients.forEach(this::index);
+    }
+
     private void loadPatientsFromDB() {
+        WriteBehindQueue.getInstance().flush("patients");
         try (Connection conn = DatabaseConnection.getConnection()) {
             String sql = "SELECT p.*, mr.id AS mr_id, mr.creation_date FROM patients p JOIN medical_records mr ON p.medical_record_id = mr.id";
             PreparedStatement stmt = conn.prepareStatement(sql);
@@ -43,7 +76,7 @@ public class PatientService {
                         record
                 );
 
-                patients.add(patient);
+                index(patient);
             }
             AuditService.getInstance().log("LOAD_PATIENTS_FROM_DB");
         } catch (SQLException e) {
@@ -54,205 +87,263 @@ public class PatientService {
 
     public Patient addPatient(String firstName, String lastName, String email, String phoneNumber,
                               String cnp, String address, BloodGroup bloodGroup, RhType rhType) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            conn.setAutoCommit(false);
-
-            int medicalRecordId;
-            try (PreparedStatement stmt = conn.prepareStatement(
-                    "INSERT INTO medical_records (creation_date) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
-                stmt.setDate(1, Date.valueOf(LocalDate.now()));
-                stmt.executeUpdate();
-
-                ResultSet rs = stmt.getGeneratedKeys();
-                if (rs.next()) {
-                    medicalRecordId = rs.getInt(1);
-                } else {
-                    conn.rollback();
-                    throw new SQLException("Eroare la generarea ID-ului fișei medicale");
+        try (Metrics.Scope scope = Metrics.scope("PatientService.addPatient")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+
+                int medicalRecordId;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "INSERT INTO medical_records (creation_date) VALUES (?)", Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setDate(1, Date.valueOf(LocalDate.now()));
+                    stmt.executeUpdate();
+
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        medicalRecordId = rs.getInt(1);
+                    } else {
+                        conn.rollback();
+                        throw new SQLException("Eroare la generarea ID-ului fișei medicale");
+                    }
                 }
-            }
 
-            String sql = "INSERT INTO patients (first_name, last_name, email, phone_number, cnp, address, blood_group, rh_type, medical_record_id, active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, firstName);
-                stmt.setString(2, lastName);
-                stmt.setString(3, email);
-                stmt.setString(4, phoneNumber);
-                stmt.setString(5, cnp);
-                stmt.setString(6, address);
-                stmt.setString(7, bloodGroup.name());
-                stmt.setString(8, rhType.name());
-                stmt.setInt(9, medicalRecordId);
-                stmt.setBoolean(10, true);
-                stmt.executeUpdate();
-            }
-
-            Patient patient = new Patient(firstName, lastName, email, phoneNumber, cnp, address, bloodGroup, rhType, true);
-            MedicalRecord record = new MedicalRecord(medicalRecordId, LocalDate.now());
-            patient.setMedicalRecord(record);
-            patients.add(patient);
-
-            conn.commit();
-            AuditService.getInstance().log("CREATE_PATIENT: " + cnp);
-            AuditService.getInstance().log("CREATE_MEDICAL_RECORD_FOR_PATIENT: " + medicalRecordId + " - " + cnp);
-            return patient;
+                int patientId = -1;
+                String sql = "INSERT INTO patients (first_name, last_name, email, phone_number, cnp, address, blood_group, rh_type, medical_record_id, active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    stmt.setString(1, firstName);
+                    stmt.setString(2, lastName);
+                    stmt.setString(3, email);
+                    stmt.setString(4, phoneNumber);
+                    stmt.setString(5, cnp);
+                    stmt.setString(6, address);
+                    stmt.setString(7, bloodGroup.name());
+                    stmt.setString(8, rhType.name());
+                    stmt.setInt(9, medicalRecordId);
+                    stmt.setBoolean(10, true);
+                    stmt.executeUpdate();
+
+                    ResultSet rs = stmt.getGeneratedKeys();
+                    if (rs.next()) {
+                        patientId = rs.getInt(1);
+                    }
+                }
 
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare la adăugarea pacientului și fișei medicale: " + e.getMessage());
+                Patient patient = new Patient(firstName, lastName, email, phoneNumber, cnp, address, bloodGroup, rhType, true);
+                if (patientId > 0) {
+                    patient.setId(patientId); // id-ul din DB, ca indexul să corespundă cu patient_id din celelalte tabele
+                }
+                MedicalRecord record = new MedicalRecord(medicalRecordId, LocalDate.now());
+                patient.setMedicalRecord(record);
+
+                conn.commit();
+                index(patient);
+                AuditService.getInstance().log("CREATE_PATIENT: " + cnp);
+                AuditService.getInstance().log("CREATE_MEDICAL_RECORD_FOR_PATIENT: " + medicalRecordId + " - " + cnp);
+                return patient;
+
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare la adăugarea pacientului și fișei medicale: " + e.getMessage());
+            }
+            return null;
         }
-        return null;
     }
 
     public boolean deletePatient(String cnp) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            conn.setAutoCommit(false);
+        try (Metrics.Scope scope = Metrics.scope("PatientService.deletePatient")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
 
-            Optional<Patient> optional = getPatientByCnp(cnp);
-            if (optional.isEmpty()) return false;
+                Optional<Patient> optional = getPatientByCnp(cnp);
+                if (optional.isEmpty()) return false;
 
-            Patient patient = optional.get();
-            int medicalRecordId = patient.getMedicalRecord().getId();
+                Patient patient = optional.get();
+                int medicalRecordId = patient.getMedicalRecord().getId();
 
-            try (PreparedStatement deletePrescriptions = conn.prepareStatement("DELETE FROM prescriptions WHERE diagnosis_id IN (SELECT id FROM diagnoses WHERE medical_record_id = ?)");
-                 PreparedStatement deleteDiagnoses = conn.prepareStatement("DELETE FROM diagnoses WHERE medical_record_id = ?");
-                 PreparedStatement deleteConsultations = conn.prepareStatement("DELETE FROM consultations WHERE patient_id = (SELECT id FROM patients WHERE cnp = ?)");
-                 PreparedStatement deleteAppointments = conn.prepareStatement("DELETE FROM medical_appointments WHERE patient_id = (SELECT id FROM patients WHERE cnp = ?)");
-                 PreparedStatement deleteInvoices = conn.prepareStatement("DELETE FROM invoices WHERE patient_id = (SELECT id FROM patients WHERE cnp = ?)");
-                 PreparedStatement deletePatient = conn.prepareStatement("DELETE FROM patients WHERE cnp = ?");
-                 PreparedStatement deleteRecord = conn.prepareStatement("DELETE FROM medical_records WHERE id = ?")
-            ) {
-                deletePrescriptions.setInt(1, medicalRecordId);
-                deletePrescriptions.executeUpdate();
+                try (PreparedStatement deletePrescriptions = conn.prepareStatement("DELETE FROM prescriptions WHERE diagnosis_id IN (SELECT id FROM diagnoses WHERE medical_record_id = ?)");
+                     PreparedStatement deleteDiagnoses = conn.prepareStatement("DELETE FROM diagnoses WHERE medical_record_id = ?");
+                     PreparedStatement deleteConsultations = conn.prepareStatement("DELETE FROM consultations WHERE patient_id = (SELECT id FROM patients WHERE cnp = ?)");
+                     PreparedStatement deleteAppointments = conn.prepareStatement("DELETE FROM medical_appointments WHERE patient_id = (SELECT id FROM patients WHERE cnp = ?)");
+                     PreparedStatement deleteInvoices = conn.prepareStatement("DELETE FROM invoices WHERE patient_id = (SELECT id FROM patients WHERE cnp = ?)");
+                     PreparedStatement deletePatient = conn.prepareStatement("DELETE FROM patients WHERE cnp = ?");
+                     PreparedStatement deleteRecord = conn.prepareStatement("DELETE FROM medical_records WHERE id = ?")
+                ) {
+                    deletePrescriptions.setInt(1, medicalRecordId);
+                    deletePrescriptions.executeUpdate();
 
-                deleteDiagnoses.setInt(1, medicalRecordId);
-                deleteDiagnoses.executeUpdate();
+                    deleteDiagnoses.setInt(1, medicalRecordId);
+                    deleteDiagnoses.executeUpdate();
 
-                deleteConsultations.setString(1, cnp);
-                deleteConsultations.executeUpdate();
+                    deleteConsultations.setString(1, cnp);
+                    deleteConsultations.executeUpdate();
 
-                deleteAppointments.setString(1, cnp);
-                deleteAppointments.executeUpdate();
+                    deleteAppointments.setString(1, cnp);
+                    deleteAppointments.executeUpdate();
 
-                deleteInvoices.setString(1, cnp);
-                deleteInvoices.executeUpdate();
+                    deleteInvoices.setString(1, cnp);
+                    deleteInvoices.executeUpdate();
 
-                deletePatient.setString(1, cnp);
-                deletePatient.executeUpdate();
+                    deletePatient.setString(1, cnp);
+                    deletePatient.executeUpdate();
 
-                deleteRecord.setInt(1, medicalRecordId);
-                deleteRecord.executeUpdate();
-            }
+                    deleteRecord.setInt(1, medicalRecordId);
+                    deleteRecord.executeUpdate();
+                }
 
-            patients.removeIf(p -> p.getCnp().equals(cnp));
-            conn.commit();
-            AuditService.getInstance().log("DELETE_PATIENT_AND_RELATED_DATA: " + cnp);
-            return true;
+                conn.commit();
+                unindex(patient);
+                if (invoiceService != null) {
+                    invoiceService.removeInvoicesForPatient(patient.getId());
+                }
+                AuditService.getInstance().log("DELETE_PATIENT_AND_RELATED_DATA: " + cnp);
+                return true;
 
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare la ștergerea pacientului și a datelor asociate: " + e.getMessage());
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare la ștergerea pacientului și a datelor asociate: " + e.getMessage());
+            }
+            return false;
         }
-        return false;
     }
 
     public Optional<Patient> getPatientByCnp(String cnp) {
-        return patients.stream().filter(p -> p.getCnp().equals(cnp)).findFirst();
+        try (Metrics.Scope scope = Metrics.scope("PatientService.getPatientByCnp")) {
+            return Optional.ofNullable(patientsByCnp.get(cnp));
+        }
     }
 
     public List<Patient> getAllPatients() {
-        return new ArrayList<>(patients);
+        try (Metrics.Scope scope = Metrics.scope("PatientService.getAllPatients")) {
+            return new ArrayList<>(patientsById.values());
+        }
     }
 
     public List<Patient> getActivePatients() {
-        return patients.stream().filter(Patient::isActive).collect(Collectors.toList());
+        try (Metrics.Scope scope = Metrics.scope("PatientService.getActivePatients")) {
+            return patientsById.values().stream().filter(Patient::isActive).collect(Collectors.toList());
+        }
     }
 
     public MedicalRecord getMedicalRecordForPatient(String cnp) {
-        return getPatientByCnp(cnp).map(Patient::getMedicalRecord).orElse(null);
+        try (Metrics.Scope scope = Metrics.scope("PatientService.getMedicalRecordForPatient")) {
+            return getPatientByCnp(cnp).map(Patient::getMedicalRecord).orElse(null);
+        }
     }
 
     public void displayAllPatients() {
-        if (patients.isEmpty()) {
-            System.out.println("📋 Nu există pacienți înregistrați.");
-        } else {
-            System.out.println("=== Lista pacienților înregistrați ===");
-            for (Patient patient : patients) {
-                System.out.println(patient + " (" + patient.getAge() + " ani)");
+        try (Metrics.Scope scope = Metrics.scope("PatientService.displayAllPatients")) {
+            if (patientsById.isEmpty()) {
+                System.out.println("📋 Nu există pacienți înregistrați.");
+            } else {
+                System.out.println("=== Lista pacienților înregistrați ===");
+                for (Patient patient : patientsById.values()) {
+                    System.out.println(patient + " (" + patient.getAge() + " ani)");
+                }
             }
+            AuditService.getInstance().log("DISPLAY_ALL_PATIENTS");
         }
-        AuditService.getInstance().log("DISPLAY_ALL_PATIENTS");
     }
 
     public void displayPatientByCnp() {
-        Scanner scanner = new Scanner(System.in);
-        System.out.print("CNP pacient: ");
-        String cnp = scanner.nextLine();
-        Optional<Patient> optional = getPatientByCnp(cnp);
-        optional.ifPresentOrElse(
-                p -> System.out.println("Pacient găsit: " + p + " (" + p.getAge() + " ani)"),
-                () -> System.out.println("⚠️ Pacientul cu CNP " + cnp + " nu a fost găsit.")
-        );
-        AuditService.getInstance().log("DISPLAY_PATIENT_BY_CNP: " + cnp);
+        try (Metrics.Scope scope = Metrics.scope("PatientService.displayPatientByCnp")) {
+            Scanner scanner = new Scanner(System.in);
+            System.out.print("CNP pacient: ");
+            String cnp = scanner.nextLine();
+            Optional<Patient> optional = getPatientByCnp(cnp);
+            optional.ifPresentOrElse(
+                    p -> System.out.println("Pacient găsit: " + p + " (" + p.getAge() + " ani)"),
+                    () -> System.out.println("⚠️ Pacientul cu CNP " + cnp + " nu a fost găsit.")
+            );
+            AuditService.getInstance().log("DISPLAY_PATIENT_BY_CNP: " + cnp);
+        }
     }
 
     public void displayPatientsByAgeCategory() {
-        Map<String, List<Patient>> categories = new HashMap<>();
-        categories.put("children", new ArrayList<>());
-        categories.put("adults", new ArrayList<>());
-        categories.put("elderly", new ArrayList<>());
-
-        for (Patient p : getActivePatients()) {
-            int age = p.getAge();
-            if (age < 18) categories.get("children").add(p);
-            else if (age < 65) categories.get("adults").add(p);
-            else categories.get("elderly").add(p);
-        }
+        try (Metrics.Scope scope = Metrics.scope("PatientService.displayPatientsByAgeCategory")) {
+            Map<String, List<Patient>> categories = new HashMap<>();
+            categories.put("children", new ArrayList<>());
+            categories.put("adults", new ArrayList<>());
+            categories.put("elderly", new ArrayList<>());
+
+            for (Patient p : getActivePatients()) {
+                int age = p.getAge();
+                if (age < 18) categories.get("children").add(p);
+                else if (age < 65) categories.get("adults").add(p);
+                else categories.get("elderly").add(p);
+            }
 
-        categories.forEach((category, list) -> {
-            System.out.println("=== " + category.toUpperCase() + " ===");
-            list.stream().sorted(Comparator.comparingInt(Patient::getAge)).forEach(p ->
-                    System.out.println(p + " (" + p.getAge() + " ani)")
-            );
-        });
+            categories.forEach((category, list) -> {
+                System.out.println("=== " + category.toUpperCase() + " ===");
+                list.stream().sorted(Comparator.comparingInt(Patient::getAge)).forEach(p ->
+                        System.out.println(p + " (" + p.getAge() + " ani)")
+                );
+            });
 
-        AuditService.getInstance().log("DISPLAY_PATIENTS_BY_AGE_CATEGORY");
+            AuditService.getInstance().log("DISPLAY_PATIENTS_BY_AGE_CATEGORY");
+        }
     }
 
     public void updatePatientAddress(String cnp, String address) {
-        updateField("UPDATE patients SET address = ? WHERE cnp = ?", address, cnp, "address", p -> p.setAddress(address));
+        try (Metrics.Scope scope = Metrics.scope("PatientService.updatePatientAddress")) {
+            updateField("UPDATE patients SET address = ? WHERE cnp = ?", address, cnp, "address", p -> p.setAddress(address));
+        }
     }
 
     public void updatePatientBloodGroup(String cnp, BloodGroup bg) {
-        updateField("UPDATE patients SET blood_group = ? WHERE cnp = ?", bg.name(), cnp, "blood_group", p -> p.setBloodGroup(bg));
+        try (Metrics.Scope scope = Metrics.scope("PatientService.updatePatientBloodGroup")) {
+            updateField("UPDATE patients SET blood_group = ? WHERE cnp = ?", bg.name(), cnp, "blood_group", p -> p.setBloodGroup(bg));
+        }
     }
 
     public void updatePatientRhType(String cnp, RhType rh) {
-        updateField("UPDATE patients SET rh_type = ? WHERE cnp = ?", rh.name(), cnp, "rh_type", p -> p.setRhType(rh));
+        try (Metrics.Scope scope = Metrics.scope("PatientService.updatePatientRhType")) {
+            updateField("UPDATE patients SET rh_type = ? WHERE cnp = ?", rh.name(), cnp, "rh_type", p -> p.setRhType(rh));
+        }
     }
 
     public void updatePhoneNumber(String cnp, String phone) {
-        updateField("UPDATE patients SET phone_number = ? WHERE cnp = ?", phone, cnp, "phone_number", p -> p.setPhoneNumber(phone));
+        try (Metrics.Scope scope = Metrics.scope("PatientService.updatePhoneNumber")) {
+            updateField("UPDATE patients SET phone_number = ? WHERE cnp = ?", phone, cnp, "phone_number", p -> p.setPhoneNumber(phone));
+        }
     }
 
     public void updatePatientEmail(String cnp, String email) {
-        updateField("UPDATE patients SET email = ? WHERE cnp = ?", email, cnp, "email", p -> p.setEmail(email));
+        try (Metrics.Scope scope = Metrics.scope("PatientService.updatePatientEmail")) {
+            updateField("UPDATE patients SET email = ? WHERE cnp = ?", email, cnp, "email", p -> p.setEmail(email));
+        }
     }
 
     public void updatePatientName(String cnp, String lastName) {
-        updateField("UPDATE patients SET last_name = ? WHERE cnp = ?", lastName, cnp, "last_name", p -> p.setLastName(lastName));
+        try (Metrics.Scope scope = Metrics.scope("PatientService.updatePatientName")) {
+            updateField("UPDATE patients SET last_name = ? WHERE cnp = ?", lastName, cnp, "last_name", p -> p.setLastName(lastName));
+        }
     }
 
     public void updatePatientFirstName(String cnp, String firstName) {
-        updateField("UPDATE patients SET first_name = ? WHERE cnp = ?", firstName, cnp, "first_name", p -> p.setFirstName(firstName));
+        try (Metrics.Scope scope = Metrics.scope("PatientService.updatePatientFirstName")) {
+            updateField("UPDATE patients SET first_name = ? WHERE cnp = ?", firstName, cnp, "first_name", p -> p.setFirstName(firstName));
+        }
     }
 
     private boolean updateField(String sql, String value, String cnp, String column, java.util.function.Consumer<Patient> updater) {
+        // În modul write-behind se modifică pacientul din memorie, iar UPDATE-ul pleacă mai târziu, în lot
+        WriteBehindQueue writeBehind = WriteBehindQueue.getInstance();
+        if (writeBehind.isEnabled()) {
+            Optional<Patient> loaded = getPatientByCnp(cnp);
+            if (loaded.isPresent() && writeBehind.submit("patients", "cnp", cnp, column, value)) {
+                updater.accept(loaded.get());
+                AuditService.getInstance().log("UPDATE_" + column.toUpperCase() + ": " + cnp);
+                return true;
+            }
+        }
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, value);
             stmt.setString(2, cnp);
             int updated = stmt.executeUpdate();
             if (updated > 0) {
-                getPatientByCnp(cnp).ifPresent(updater);
+                getPatientByCnp(cnp).ifPresentOrElse(updater,
+                        // rândul nu e în memorie: nicio copie veche nu trebuie să mai fie servită din cache
+                        () -> EntityCache.getInstance().invalidateAll(Patient.class));
                 AuditService.getInstance().log("UPDATE_" + column.toUpperCase() + ": " + cnp);
                 return true;
             }
@@ -263,41 +354,52 @@ public class PatientService {
     }
 
     public void displayInvoicesForPatient(String cnp) {
-        Optional<Patient> optional = getPatientByCnp(cnp);
-        if (optional.isPresent()) {
-            List<Invoice> invoices = optional.get().getInvoices();
-            System.out.println("📄 Facturi pentru pacientul " + optional.get().getFullName() + ":");
-            invoices.forEach(System.out::println);
-        } else {
-            System.out.println("❌ Pacientul cu CNP " + cnp + " nu a fost găsit.");
+        try (Metrics.Scope scope = Metrics.scope("PatientService.displayInvoicesForPatient")) {
+            Optional<Patient> optional = getPatientByCnp(cnp);
+            if (optional.isPresent()) {
+                List<Invoice> invoices = optional.get().getInvoices();
+                System.out.println("📄 Facturi pentru pacientul " + optional.get().getFullName() + ":");
+                invoices.forEach(System.out::println);
+            } else {
+                System.out.println("❌ Pacientul cu CNP " + cnp + " nu a fost găsit.");
+            }
+            AuditService.getInstance().log("DISPLAY_INVOICES_FOR_PATIENT: " + cnp);
         }
-        AuditService.getInstance().log("DISPLAY_INVOICES_FOR_PATIENT: " + cnp);
     }
 
     public double getTotalUnpaidAmountForPatient(String cnp) {
+        try (Metrics.Scope scope = Metrics.scope("PatientService.getTotalUnpaidAmountForPatient")) {
 
-        Optional<Patient> optional = getPatientByCnp(cnp);
-        if (optional.isPresent()) {
-            return optional.get().getInvoices().stream()
-                    .filter(invoice -> !invoice.isPaid())
-                    .mapToDouble(Invoice::getAmount)
-                    .sum();
+            Optional<Patient> optional = getPatientByCnp(cnp);
+            if (optional.isPresent() && invoiceService != null) {
+                return invoiceService.getTotalsForPatient(optional.get().getId()).getUnpaidCents() / 100.0;
+            }
+            if (optional.isPresent()) {
+                return optional.get().getInvoices().stream()
+                        .filter(invoice -> !invoice.isPaid())
+                        .mapToDouble(Invoice::getAmount)
+                        .sum();
+            }
+            System.out.println("❌ Pacientul cu CNP " + cnp + " nu a fost găsit.");
+            return 0.0;
         }
-        System.out.println("❌ Pacientul cu CNP " + cnp + " nu a fost găsit.");
-        return 0.0;
     }
     public void linkMedicalRecords(MedicalRecordService medicalRecordService) {
-        for (Patient patient : patients) {
-            MedicalRecord record = patient.getMedicalRecord();
-            if (record != null) {
-                medicalRecordService.getMedicalRecordById(record.getId())
-                        .ifPresent(patient::setMedicalRecord);
+        try (Metrics.Scope scope = Metrics.scope("PatientService.linkMedicalRecords")) {
+            for (Patient patient : patientsById.values()) {
+                MedicalRecord record = patient.getMedicalRecord();
+                if (record != null) {
+                    medicalRecordService.getMedicalRecordById(record.getId())
+                            .ifPresent(patient::setMedicalRecord);
+                }
             }
+            AuditService.getInstance().log("LINK_PATIENTS_WITH_LOADED_MEDICAL_RECORDS");
         }
-        AuditService.getInstance().log("LINK_PATIENTS_WITH_LOADED_MEDICAL_RECORDS");
     }
     public Optional<Patient> getPatientById(int id) {
-        return patients.stream().filter(p -> p.getId() == id).findFirst();
+        try (Metrics.Scope scope = Metrics.scope("PatientService.getPatientById")) {
+            return Optional.ofNullable(patientsById.get(id));
+        }
     }
 
 }
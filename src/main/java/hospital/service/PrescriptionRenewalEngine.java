@@ -0,0 +1,193 @@
+package main.java.hospital.service;
+
+import main.java.hospital.model.Prescription;
+import main.java.hospital.util.AuditService;
+import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.Metrics;
+import main.java.hospital.util.TimingWheel;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reînnoirea automată a rețetelor, pe o roată de timp cu un tick pe zi (cheia este renewDate).
+ *
+ * O rulare avansează roata până la data cerută, deci zilele ratate cât aplicația a fost oprită sunt recuperate
+ * în ordine. Rețetele scadente se salvează în loturi de batchSize, fiecare într-o tranzacție: INSERT în lot pentru
+ * rețetele noi și UPDATE în lot care oprește reînnoirea celor vechi. O rețetă nouă ajunsă deja la scadență
+ * (după o oprire lungă) este reînnoită în aceeași rulare.
+ */
+@SuppressWarnings("try")
+public class PrescriptionRenewalEngine {
+
+    private static final int BATCH_SIZE = Math.max(1, Integer.getInteger("hospital.prescriptions.renewBatchSize", 1000));
+
+    private final PrescriptionService prescriptionService;
+    private TimingWheel<Prescription> wheel = new TimingWheel<>(LocalDate.now().toEpochDay() - 1);
+    private long renewedCount;
+    private long failedCount;
+
+    PrescriptionRenewalEngine(PrescriptionService prescriptionService) {
+        this.prescriptionService = prescriptionService;
+    }
+
+    /**
+     * Reconstruiește roata din rețetele încărcate. Ziua de azi nu este considerată procesată,
+     * iar reînnoirile cu dată trecută rămân restante până la următoarea rulare.
+     */
+    synchronized void rebuild(Collection<Prescription> prescriptions) {
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionRenewalEngine.rebuild")) {
+            wheel = new TimingWheel<>(LocalDate.now().toEpochDay() - 1);
+            prescriptions.forEach(this::schedule);
+        }
+    }
+
+    synchronized void schedule(Prescription prescription) {
+        if (prescription.isAutoRenew() && prescription.getRenewDate() != null) {
+            wheel.schedule(prescription.getRenewDate().toEpochDay(), prescription);
+        }
+    }
+
+    /**
+     * Reînnoiește toate rețetele scadente până la data dată (inclusiv).
+     *
+     * @return numărul de rețete noi salvate
+     */
+    public synchronized int renewUntil(LocalDate date) {
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionRenewalEngine.renewUntil")) {
+            List<Prescription> batch = new ArrayList<>(Math.min(BATCH_SIZE, 4096));
+            // o rețetă reprogramată pentru aceeași zi are mai multe intrări în roată; intră o singură dată în lot
+            Set<Prescription> batched = Collections.newSetFromMap(new IdentityHashMap<>());
+            int[] renewed = {0};
+            do {
+                wheel.advanceTo(date.toEpochDay(), (day, due) -> {
+                    for (Prescription prescription : due) {
+                        if (!isDue(prescription, day) || !batched.add(prescription)) continue;
+                        batch.add(prescription);
+                        if (batch.size() >= BATCH_SIZE) {
+                            renewed[0] += persist(batch);
+                            batch.clear();
+                            batched.clear();
+                        }
+                    }
+                });
+                renewed[0] += persist(batch);
+                batch.clear();
+                batched.clear();
+            } while (wheel.hasOverdue()); // reînnoirile salvate la final pot fi deja scadente
+
+            AuditService.getInstance().log("RENEW_PRESCRIPTIONS_UNTIL: " + date + " (" + renewed[0] + ")");
+            return renewed[0];
+        }
+    }
+
+    public synchronized int getScheduledCount() {
+        return wheel.size();
+    }
+
+    public synchronized long getRenewedCount() {
+        return renewedCount;
+    }
+
+    public synchronized long getFailedCount() {
+        return failedCount;
+    }
+
+    // Intrările rămase în roată după ștergere sau după schimbarea datei/flag-ului nu se mai reînnoiesc;
+    // după un lot salvat, rețeta veche are auto_renew oprit, deci nici dublurile din loturile următoare
+    private boolean isDue(Prescription prescription, long day) {
+        return prescription.isAutoRenew()
+                && prescription.getRenewDate() != null
+                && prescription.getRenewDate().toEpochDay() == day
+                && prescriptionService.isLoaded(prescription);
+    }
+
+    /**
+     * Salvează lotul într-o singură tranzacție. Modelul din memorie se schimbă doar după commit;
+     * la eroare lotul rămâne nereînnoit și este reluat la următoarea reîncărcare a rețetelor.
+     */
+    private int persist(List<Prescription> due) {
+        if (due.isEmpty()) return 0;
+
+        List<Prescription> renewals = new ArrayList<>(due.size());
+        for (Prescription prescription : due) {
+            renewals.add(renewalOf(prescription));
+        }
+
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionRenewalEngine.persist")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                boolean autoCommit = conn.getAutoCommit();
+                conn.setAutoCommit(false);
+                try (PreparedStatement insert = conn.prepareStatement(PrescriptionService.INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                     PreparedStatement stop = conn.prepareStatement("UPDATE prescriptions SET auto_renew = FALSE WHERE id = ?")) {
+                    for (Prescription renewal : renewals) {
+                        PrescriptionService.bindInsert(insert, renewal);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        for (Prescription renewal : renewals) {
+                            if (!keys.next()) {
+                                throw new SQLException("Baza de date nu a întors ID-urile tuturor rețetelor reînnoite.");
+                            }
+                            renewal.setId(keys.getInt(1));
+                        }
+                    }
+
+                    for (Prescription prescription : due) {
+                        stop.setInt(1, prescription.getId());
+                        stop.addBatch();
+                    }
+                    stop.executeBatch();
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(autoCommit);
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                failedCount += due.size();
+                System.err.println("❌ Eroare la salvarea reînnoirilor de rețete: " + e.getMessage());
+                AuditService.getInstance().log("RENEW_PRESCRIPTIONS_FAILED: " + due.size());
+                return 0;
+            }
+
+            for (int i = 0; i < due.size(); i++) {
+                Prescription renewal = renewals.get(i);
+                due.get(i).setAutoRenew(false);
+                prescriptionService.addRenewed(renewal);
+                schedule(renewal);
+            }
+            renewedCount += renewals.size();
+            AuditService.getInstance().log("RENEW_PRESCRIPTIONS_BATCH: " + renewals.size());
+            return renewals.size();
+        }
+    }
+
+    /**
+     * Rețeta nouă începe la data reînnoirii, cu aceeași durată a tratamentului, și se reînnoiește
+     * la același interval (de la început până la reînnoire) ca rețeta veche.
+     */
+    static Prescription renewalOf(Prescription prescription) {
+        LocalDate start = prescription.getRenewDate();
+        long course = ChronoUnit.DAYS.between(prescription.getStartDate(), prescription.getEndDate());
+        long interval = ChronoUnit.DAYS.between(prescription.getStartDate(), start);
+        if (interval <= 0) {
+            interval = course + 1;
+        }
+
+        Prescription renewal = new Prescription(prescription.getMedication(), prescription.getDosage(), start,
+                start, start.plusDays(course), true, start.plusDays(interval));
+        renewal.setDiagnosisId(prescription.getDiagnosisId());
+        return renewal;
+    }
+}
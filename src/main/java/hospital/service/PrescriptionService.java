@@ -3,6 +3,7 @@ package main.java.hospital.service;
 import main.java.hospital.model.Prescription;
 import main.java.hospital.util.AuditService;
 import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.Metrics;
 
 import java.sql.*;
 import java.sql.Date;
@@ -10,49 +11,69 @@ import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
+@SuppressWarnings("try")
 public class PrescriptionService {
 
+    static final String INSERT_SQL = "INSERT INTO prescriptions (medication, dosage, start_date, end_date, date_issued, auto_renew, renew_date, diagnosis_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Reînnoirile restante se aplică la fiecare încărcare dacă -Dhospital.prescriptions.renewOnLoad=true
+    private static final boolean RENEW_ON_LOAD = Boolean.getBoolean("hospital.prescriptions.renewOnLoad");
+
     private final List<Prescription> prescriptions = new ArrayList<>();
+    private final Map<Integer, Prescription> prescriptionsById = new HashMap<>();
+    private final PrescriptionRenewalEngine renewalEngine = new PrescriptionRenewalEngine(this);
 
     // === Încărcare inițială din baza de date ===
     public void loadFromDatabase() {
-        prescriptions.clear();
-        try {
-            Connection conn = DatabaseConnection.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement("SELECT * FROM prescriptions");
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Prescription p = new Prescription(
-                        rs.getString("medication"),
-                        rs.getString("dosage"),
-                        rs.getDate("date_issued") != null ? rs.getDate("date_issued").toLocalDate() : LocalDate.now(),
-                        rs.getDate("start_date").toLocalDate(),
-                        rs.getDate("end_date").toLocalDate(),
-                        rs.getBoolean("auto_renew"),
-                        rs.getDate("renew_date") != null ? rs.getDate("renew_date").toLocalDate() : null
-                );
-                p.setId(rs.getInt("id"));
-                p.setDiagnosisId(rs.getInt("diagnosis_id"));
-                prescriptions.add(p);
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.loadFromDatabase")) {
+            prescriptions.clear();
+            prescriptionsById.clear();
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("SELECT * FROM prescriptions")) {
+                stmt.setFetchSize(DatabaseConnection.FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        Prescription p = new Prescription(
+                                rs.getString("medication"),
+                                rs.getString("dosage"),
+                                rs.getDate("date_issued") != null ? rs.getDate("date_issued").toLocalDate() : LocalDate.now(),
+                                rs.getDate("start_date").toLocalDate(),
+                                rs.getDate("end_date").toLocalDate(),
+                                rs.getBoolean("auto_renew"),
+                                rs.getDate("renew_date") != null ? rs.getDate("renew_date").toLocalDate() : null
+                        );
+                        p.setId(rs.getInt("id"));
+                        p.setDiagnosisId(rs.getInt("diagnosis_id"));
+                        index(p);
+                    }
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare la încărcarea rețetelor din DB: " + e.getMessage());
             }
 
-            rs.close();
-            stmt.close();
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare la încărcarea rețetelor din DB: " + e.getMessage());
+            renewalEngine.rebuild(prescriptions);
+            if (RENEW_ON_LOAD) {
+                renewDuePrescriptions(LocalDate.now());
+            }
         }
     }
 
-    public void addPrescription(Prescription prescription) throws SQLException {
-        if (prescription == null) {
-            throw new IllegalArgumentException("Rețeta nu poate fi null.");
-        }
+    private void index(Prescription prescription) {
+        prescriptions.add(prescription);
+        prescriptionsById.put(prescription.getId(), prescription);
+    }
+
+    // Folosit de PrescriptionRenewalEngine după ce rețeta nouă a fost salvată
+    void addRenewed(Prescription prescription) {
+        index(prescription);
+    }
 
-        Connection conn = DatabaseConnection.getInstance().getConnection();
-        String sql = "INSERT INTO prescriptions (medication, dosage, start_date, end_date, date_issued, auto_renew, renew_date, diagnosis_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    boolean isLoaded(Prescription prescription) {
+        return prescriptionsById.get(prescription.getId()) == prescription;
+    }
 
-        PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+    static void bindInsert(PreparedStatement stmt, Prescription prescription) throws SQLException {
         stmt.setString(1, prescription.getMedication());
         stmt.setString(2, prescription.getDosage());
         stmt.setDate(3, Date.valueOf(prescription.getStartDate()));
@@ -67,144 +88,246 @@ public class PrescriptionService {
         }
 
         stmt.setInt(8, prescription.getDiagnosisId());
+    }
 
-        stmt.executeUpdate();
-
-        // Obține ID-ul generat de MySQL
-        ResultSet generatedKeys = stmt.getGeneratedKeys();
-        if (generatedKeys.next()) {
-            int generatedId = generatedKeys.getInt(1);
-            prescription.setId(generatedId);
+    /**
+     * Reînnoiește rețetele cu reînnoire automată scadente până la data dată, inclusiv cele ratate cât aplicația
+     * a fost oprită. Întoarce numărul de rețete noi.
+     */
+    public int renewDuePrescriptions(LocalDate upTo) {
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.renewDuePrescriptions")) {
+            return renewalEngine.renewUntil(upTo);
         }
+    }
 
-        stmt.close();
+    public void addPrescription(Prescription prescription) throws SQLException {
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.addPrescription")) {
+            if (prescription == null) {
+                throw new IllegalArgumentException("Rețeta nu poate fi null.");
+            }
 
-        // Adaugă în memorie după ce a fost inserat cu succes
-        prescriptions.add(prescription);
+            try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                 PreparedStatement stmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindInsert(stmt, prescription);
+                stmt.executeUpdate();
 
-        AuditService.getInstance().log("CREATE_PRESCRIPTION: ID=" + prescription.getId());
+                // Obține ID-ul generat de MySQL
+                ResultSet generatedKeys = stmt.getGeneratedKeys();
+                if (generatedKeys.next()) {
+                    int generatedId = generatedKeys.getInt(1);
+                    prescription.setId(generatedId);
+                }
+            }
+
+            // Adaugă în memorie după ce a fost inserat cu succes
+            index(prescription);
+            renewalEngine.schedule(prescription);
+
+            AuditService.getInstance().log("CREATE_PRESCRIPTION: ID=" + prescription.getId());
+        }
     }
 
 
     public List<Prescription> getAllPrescriptions() {
-        AuditService.getInstance().log("READ_ALL_PRESCRIPTIONS");
-        return new ArrayList<>(prescriptions);
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.getAllPrescriptions")) {
+            AuditService.getInstance().log("READ_ALL_PRESCRIPTIONS");
+            return new ArrayList<>(prescriptions);
+        }
     }
 
     public Optional<Prescription> findById(int id) {
-        Optional<Prescription> result = prescriptions.stream().filter(p -> p.getId() == id).findFirst();
-        AuditService.getInstance().log("READ_PRESCRIPTION_BY_ID: " + id);
-        return result;
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.findById")) {
+            Optional<Prescription> result = Optional.ofNullable(prescriptionsById.get(id));
+            AuditService.getInstance().log("READ_PRESCRIPTION_BY_ID: " + id);
+            return result;
+        }
     }
 
     public boolean deletePrescription(int id) {
-        Optional<Prescription> optional = findById(id);
-        if (optional.isPresent()) {
-            prescriptions.remove(optional.get());
-
-            try {
-                Connection conn = DatabaseConnection.getInstance().getConnection();
-                PreparedStatement stmt = conn.prepareStatement("DELETE FROM prescriptions WHERE id = ?");
-                stmt.setInt(1, id);
-                stmt.executeUpdate();
-                stmt.close();
-            } catch (SQLException e) {
-                System.err.println("❌ Eroare la ștergerea rețetei din DB: " + e.getMessage());
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.deletePrescription")) {
+            Optional<Prescription> optional = findById(id);
+            if (optional.isPresent()) {
+                prescriptions.remove(optional.get());
+                prescriptionsById.remove(id);
+
+                try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                     PreparedStatement stmt = conn.prepareStatement("DELETE FROM prescriptions WHERE id = ?")) {
+                    stmt.setInt(1, id);
+                    stmt.executeUpdate();
+                } catch (SQLException e) {
+                    scope.fail();
+                    System.err.println("❌ Eroare la ștergerea rețetei din DB: " + e.getMessage());
+                }
+
+                AuditService.getInstance().log("DELETE_PRESCRIPTION: ID=" + id);
+                return true;
             }
-
-            AuditService.getInstance().log("DELETE_PRESCRIPTION: ID=" + id);
-            return true;
+            AuditService.getInstance().log("DELETE_PRESCRIPTION_FAILED: ID=" + id);
+            return false;
         }
-        AuditService.getInstance().log("DELETE_PRESCRIPTION_FAILED: ID=" + id);
-        return false;
     }
 
     public List<Prescription> getPrescriptionsToRenew(LocalDate date) {
-        List<Prescription> result = prescriptions.stream()
-                .filter(p -> p.isAutoRenew() && date.equals(p.getRenewDate()))
-                .collect(Collectors.toList());
-        AuditService.getInstance().log("GET_PRESCRIPTIONS_TO_RENEW_ON: " + date);
-        return result;
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.getPrescriptionsToRenew")) {
+            List<Prescription> result = prescriptions.stream()
+                    .filter(p -> p.isAutoRenew() && date.equals(p.getRenewDate()))
+                    .collect(Collectors.toList());
+            AuditService.getInstance().log("GET_PRESCRIPTIONS_TO_RENEW_ON: " + date);
+            return result;
+        }
     }
 
     public List<Prescription> getActivePrescriptions() {
-        LocalDate today = LocalDate.now();
-        List<Prescription> result = prescriptions.stream()
-                .filter(p -> (p.getStartDate().isBefore(today) || p.getStartDate().isEqual(today)) &&
-                        (p.getEndDate().isAfter(today) || p.getEndDate().isEqual(today)))
-                .collect(Collectors.toList());
-        AuditService.getInstance().log("READ_ACTIVE_PRESCRIPTIONS");
-        return result;
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.getActivePrescriptions")) {
+            LocalDate today = LocalDate.now();
+            List<Prescription> result = prescriptions.stream()
+                    .filter(p -> (p.getStartDate().isBefore(today) || p.getStartDate().isEqual(today)) &&
+                            (p.getEndDate().isAfter(today) || p.getEndDate().isEqual(today)))
+                    .collect(Collectors.toList());
+            AuditService.getInstance().log("READ_ACTIVE_PRESCRIPTIONS");
+            return result;
+        }
     }
 
     public boolean updateDosage(int id, String newDosage) {
-        Optional<Prescription> optional = findById(id);
-        if (optional.isPresent()) {
-            optional.get().setDosage(newDosage);
-
-            try {
-                Connection conn = DatabaseConnection.getInstance().getConnection();
-                PreparedStatement stmt = conn.prepareStatement("UPDATE prescriptions SET dosage = ? WHERE id = ?");
-                stmt.setString(1, newDosage);
-                stmt.setInt(2, id);
-                stmt.executeUpdate();
-                stmt.close();
-            } catch (SQLException e) {
-                System.err.println("❌ Eroare la actualizarea dozei în DB: " + e.getMessage());
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.updateDosage")) {
+            Optional<Prescription> optional = findById(id);
+            if (optional.isPresent()) {
+                optional.get().setDosage(newDosage);
+
+                try (Connection conn = DatabaseConnection.getInstance().getConnection();
+                     PreparedStatement stmt = conn.prepareStatement("UPDATE prescriptions SET dosage = ? WHERE id = ?")) {
+                    stmt.setString(1, newDosage);
+                    stmt.setInt(2, id);
+                    stmt.executeUpdate();
+                } catch (SQLException e) {
+                    scope.fail();
+                    System.err.println("❌ Eroare la actualizarea dozei în DB: " + e.getMessage());
+                }
+
+                AuditService.getInstance().log("UPDATE_DOSAGE: ID=" + id);
+                return true;
+            }
+            AuditService.getInstance().log("UPDATE_DOSAGE_FAILED: ID=" + id);
+            return false;
+        }
+    }
+
+    public boolean updateAutoRenew(int id, boolean autoRenew) {
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.updateAutoRenew")) {
+            Optional<Prescription> optional = findById(id);
+            if (optional.isPresent()) {
+                Prescription prescription = optional.get();
+                try (Connection conn = DatabaseConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement("UPDATE prescriptions SET auto_renew = ? WHERE id = ?")) {
+                    stmt.setBoolean(1, autoRenew);
+                    stmt.setInt(2, id);
+                    stmt.executeUpdate();
+                } catch (SQLException e) {
+                    scope.fail();
+                    System.err.println("❌ Eroare la actualizarea reînnoirii automate în DB: " + e.getMessage());
+                    AuditService.getInstance().log("UPDATE_AUTO_RENEW_FAILED: ID=" + id);
+                    return false;
+                }
+
+                // modelul și roata se schimbă doar după ce baza de date a acceptat valoarea;
+                // intrarea veche din roată este ignorată, deci ajunge o programare nouă
+                prescription.setAutoRenew(autoRenew);
+                renewalEngine.schedule(prescription);
+                AuditService.getInstance().log("UPDATE_AUTO_RENEW: ID=" + id + " -> " + autoRenew);
+                return true;
             }
+            AuditService.getInstance().log("UPDATE_AUTO_RENEW_FAILED: ID=" + id);
+            return false;
+        }
+    }
 
-            AuditService.getInstance().log("UPDATE_DOSAGE: ID=" + id);
-            return true;
+    public boolean updateRenewDate(int id, LocalDate renewDate) {
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.updateRenewDate")) {
+            Optional<Prescription> optional = findById(id);
+            if (optional.isPresent()) {
+                Prescription prescription = optional.get();
+                try (Connection conn = DatabaseConnection.getConnection();
+                     PreparedStatement stmt = conn.prepareStatement("UPDATE prescriptions SET renew_date = ? WHERE id = ?")) {
+                    if (renewDate != null) {
+                        stmt.setDate(1, Date.valueOf(renewDate));
+                    } else {
+                        stmt.setNull(1, Types.DATE);
+                    }
+                    stmt.setInt(2, id);
+                    stmt.executeUpdate();
+                } catch (SQLException e) {
+                    scope.fail();
+                    System.err.println("❌ Eroare la actualizarea datei de reînnoire în DB: " + e.getMessage());
+                    AuditService.getInstance().log("UPDATE_RENEW_DATE_FAILED: ID=" + id);
+                    return false;
+                }
+
+                prescription.setRenewDate(renewDate);
+                renewalEngine.schedule(prescription);
+                AuditService.getInstance().log("UPDATE_RENEW_DATE: ID=" + id + " -> " + renewDate);
+                return true;
+            }
+            AuditService.getInstance().log("UPDATE_RENEW_DATE_FAILED: ID=" + id);
+            return false;
         }
-        AuditService.getInstance().log("UPDATE_DOSAGE_FAILED: ID=" + id);
-        return false;
     }
 
     public void printAllPrescriptions() {
-        if (prescriptions.isEmpty()) {
-            System.out.println("📋 Nu există rețete înregistrate.");
-        } else {
-            System.out.println("=== Lista rețetelor înregistrate ===");
-            for (Prescription p : prescriptions) {
-                System.out.println(p);
-                System.out.println("-----------------------------");
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.printAllPrescriptions")) {
+            if (prescriptions.isEmpty()) {
+                System.out.println("📋 Nu există rețete înregistrate.");
+            } else {
+                System.out.println("=== Lista rețetelor înregistrate ===");
+                for (Prescription p : prescriptions) {
+                    System.out.println(p);
+                    System.out.println("-----------------------------");
+                }
             }
+            AuditService.getInstance().log("DISPLAY_ALL_PRESCRIPTIONS");
         }
-        AuditService.getInstance().log("DISPLAY_ALL_PRESCRIPTIONS");
     }
 
     public void searchByMedication(String name) {
-        var results = prescriptions.stream()
-                .filter(p -> p.getMedication().equalsIgnoreCase(name))
-                .collect(Collectors.toList());
-
-        if (results.isEmpty()) {
-            System.out.println("🔍 Nicio rețetă găsită pentru: " + name);
-        } else {
-            System.out.println("=== Rețete pentru medicația: " + name + " ===");
-            results.forEach(System.out::println);
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.searchByMedication")) {
+            var results = prescriptions.stream()
+                    .filter(p -> p.getMedication().equalsIgnoreCase(name))
+                    .collect(Collectors.toList());
+
+            if (results.isEmpty()) {
+                System.out.println("🔍 Nicio rețetă găsită pentru: " + name);
+            } else {
+                System.out.println("=== Rețete pentru medicația: " + name + " ===");
+                results.forEach(System.out::println);
+            }
+            AuditService.getInstance().log("SEARCH_PRESCRIPTION_BY_MEDICATION: " + name);
         }
-        AuditService.getInstance().log("SEARCH_PRESCRIPTION_BY_MEDICATION: " + name);
     }
 
     public void displayPrescriptionById(int id) {
-        Optional<Prescription> optional = findById(id);
-        optional.ifPresentOrElse(
-                p -> System.out.println("📄 Rețetă găsită: \n" + p),
-                () -> System.out.println("❌ Rețeta cu ID " + id + " nu a fost găsită.")
-        );
-        AuditService.getInstance().log("DISPLAY_PRESCRIPTION_BY_ID: " + id);
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.displayPrescriptionById")) {
+            Optional<Prescription> optional = findById(id);
+            optional.ifPresentOrElse(
+                    p -> System.out.println("📄 Rețetă găsită: \n" + p),
+                    () -> System.out.println("❌ Rețeta cu ID " + id + " nu a fost găsită.")
+            );
+            AuditService.getInstance().log("DISPLAY_PRESCRIPTION_BY_ID: " + id);
+        }
     }
     public void reloadPrescriptions() {
-        loadFromDatabase();
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.reloadPrescriptions")) {
+            loadFromDatabase();
+        }
     }
     public List<Prescription> getPrescriptionsByDiagnosisId(int diagnosisId) {
-        List<Prescription> result = prescriptions.stream()
-                .filter(p -> p.getDiagnosisId() == diagnosisId)
-                .collect(Collectors.toList());
+        try (Metrics.Scope scope = Metrics.scope("PrescriptionService.getPrescriptionsByDiagnosisId")) {
+            List<Prescription> result = prescriptions.stream()
+                    .filter(p -> p.getDiagnosisId() == diagnosisId)
+                    .collect(Collectors.toList());
 
-        AuditService.getInstance().log("GET_PRESCRIPTIONS_BY_DIAGNOSIS_ID: " + diagnosisId);
-        return result;
+            AuditService.getInstance().log("GET_PRESCRIPTIONS_BY_DIAGNOSIS_ID: " + diagnosisId);
+            return result;
+        }
     }
 
 
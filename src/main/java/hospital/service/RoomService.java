@@ -4,16 +4,19 @@ package main.java.hospital.service;
 import main.java.hospital.model.*;
 import main.java.hospital.util.AuditService;
 import main.java.hospital.util.DatabaseConnection;
+import main.java.hospital.util.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+@SuppressWarnings("try")
 public class RoomService {
 
 
     private final List<Room> allRooms = new ArrayList<>();
+    private final FreeRoomIndex freeRooms = new FreeRoomIndex();
     private final AuditService audit = AuditService.getInstance();
     private MedicalDepartmentService departmentService;
 
@@ -22,182 +25,289 @@ public class RoomService {
     }
 
     public void setDepartmentService(MedicalDepartmentService departmentService) {
-        this.departmentService = departmentService;
-        loadRoomsFromDB();
+        try (Metrics.Scope scope = Metrics.scope("RoomService.setDepartmentService")) {
+            this.departmentService = departmentService;
+            // Camerele se încarcă explicit cu loadRoomsFromDB(), o singură dată la pornire
+        }
     }
 
     public void loadRoomsFromDB() {
-        allRooms.clear();
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "SELECT * FROM rooms";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                int number = rs.getInt("room_number");
-                String type = rs.getString("type");
-                boolean occupied = rs.getBoolean("is_occupied");
-                int deptId = rs.getInt("department_id");
-
-                Optional<MedicalDepartment> deptOpt = departmentService.getDepartmentById(deptId);
-                if (deptOpt.isPresent()) {
-                    MedicalDepartment realDept = deptOpt.get();  // <- instanța corectă din listă
-                    Room room = new Room(number, type, realDept, occupied);
-                    room.setOccupied(occupied);
-                    allRooms.add(room);
-                    realDept.addRoom(room);  // adaugi în lista corectă
-                }
+        try (Metrics.Scope scope = Metrics.scope("RoomService.loadRoomsFromDB")) {
+            allRooms.clear();
+            freeRooms.clear();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "SELECT * FROM rooms";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery();
+
+                while (rs.next()) {
+                    int number = rs.getInt("room_number");
+                    String type = rs.getString("type");
+                    boolean occupied = rs.getBoolean("is_occupied");
+                    int deptId = rs.getInt("department_id");
+
+                    MedicalDepartment realDept = departmentService.findLoadedDepartment(deptId);
+                    if (realDept != null) {  // <- instanța corectă din index
+                        Room room = new Room(number, type, realDept, occupied);
+                        room.setOccupied(occupied);
+                        allRooms.add(room);
+                        freeRooms.add(room);
+                        realDept.addRoom(room);  // adaugi în lista corectă
+                    }
 
-            }
+                }
 
-            audit.log("LOAD_ROOMS_FROM_DB");
+                audit.log("LOAD_ROOMS_FROM_DB");
 
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la încărcare camere: " + e.getMessage());
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la încărcare camere: " + e.getMessage());
+            }
         }
     }
 
     public void addRoom(Room room) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "INSERT INTO rooms (type, is_occupied, department_id) VALUES (?, ?, ?)";
-            PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            stmt.setString(1, room.getType());
-            stmt.setBoolean(2, room.isOccupied());
-            stmt.setInt(3, room.getDepartment().getId());
-            stmt.executeUpdate();
-
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) {
-                int generatedId = rs.getInt(1);
-                room.setRoomNumber(generatedId); // actualizezi ID-ul în obiectul Room
-            }
+        try (Metrics.Scope scope = Metrics.scope("RoomService.addRoom")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "INSERT INTO rooms (type, is_occupied, department_id) VALUES (?, ?, ?)";
+                PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                stmt.setString(1, room.getType());
+                stmt.setBoolean(2, room.isOccupied());
+                stmt.setInt(3, room.getDepartment().getId());
+                stmt.executeUpdate();
+
+                ResultSet rs = stmt.getGeneratedKeys();
+                if (rs.next()) {
+                    int generatedId = rs.getInt(1);
+                    room.setRoomNumber(generatedId); // actualizezi ID-ul în obiectul Room
+                }
 
-            allRooms.add(room);
-            room.getDepartment().addRoom(room);
+                allRooms.add(room);
+                freeRooms.add(room);
+                room.getDepartment().addRoom(room);
 
-            audit.log("Adăugare cameră număr: " + room.getRoomNumber() +
-                    " în departamentul: " + room.getDepartment().getName());
+                audit.log("Adăugare cameră număr: " + room.getRoomNumber() +
+                        " în departamentul: " + room.getDepartment().getName());
 
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la adăugare cameră: " + e.getMessage());
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la adăugare cameră: " + e.getMessage());
+            }
         }
     }
 
     public boolean deleteRoom(int roomNumber) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "DELETE FROM rooms WHERE room_number = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, roomNumber);
+        try (Metrics.Scope scope = Metrics.scope("RoomService.deleteRoom")) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "DELETE FROM rooms WHERE room_number = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setInt(1, roomNumber);
 
-            int affected = stmt.executeUpdate();
+                int affected = stmt.executeUpdate();
 
-            if (affected > 0) {
-                Optional<Room> roomOpt = getRoomByNumber(roomNumber);
+                if (affected > 0) {
+                    Optional<Room> roomOpt = getRoomByNumber(roomNumber);
 
-                roomOpt.ifPresent(r -> r.getDepartment().removeRoom(roomNumber));
-                allRooms.removeIf(r -> r.getRoomNumber() == roomNumber);
-                audit.log("Ștergere cameră număr: " + roomNumber);
+                    roomOpt.ifPresent(r -> {
+                        r.getDepartment().removeRoom(roomNumber);
+                        freeRooms.remove(r);
+                    });
+                    allRooms.removeIf(r -> r.getRoomNumber() == roomNumber);
+                    audit.log("Ștergere cameră număr: " + roomNumber);
 
-                if (departmentService != null) {
-                    departmentService.refreshRooms();
-                }
+                    if (departmentService != null) {
+                        departmentService.refreshRooms();
+                    }
 
-                return true;
+                    return true;
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la ștergere cameră: " + e.getMessage());
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la ștergere cameră: " + e.getMessage());
-        }
 
-        audit.log("Eroare ștergere cameră: cameră inexistentă cu numărul: " + roomNumber);
-        return false;
+            audit.log("Eroare ștergere cameră: cameră inexistentă cu numărul: " + roomNumber);
+            return false;
+        }
     }
 
     public Optional<Room> getRoomByNumber(int roomNumber) {
-        Optional<Room> room = allRooms.stream()
-                .filter(r -> r.getRoomNumber() == roomNumber)
-                .findFirst();
+        try (Metrics.Scope scope = Metrics.scope("RoomService.getRoomByNumber")) {
+            Optional<Room> room = allRooms.stream()
+                    .filter(r -> r.getRoomNumber() == roomNumber)
+                    .findFirst();
 
-        audit.log("Căutare cameră după număr: " + roomNumber +
-                " => " + (room.isPresent() ? "găsită" : "negăsită"));
+            audit.log("Căutare cameră după număr: " + roomNumber +
+                    " => " + (room.isPresent() ? "găsită" : "negăsită"));
 
-        return room;
+            return room;
+        }
     }
 
     public List<Room> getAllRooms() {
-        audit.log("Accesare listă toate camerele");
-        return new ArrayList<>(allRooms);
+        try (Metrics.Scope scope = Metrics.scope("RoomService.getAllRooms")) {
+            audit.log("Accesare listă toate camerele");
+            return new ArrayList<>(allRooms);
+        }
     }
 
     public void displayAllRooms() {
-        audit.log("Afișare toate camerele din sistem");
-        if (allRooms.isEmpty()) {
-            System.out.println("Nu există camere înregistrate.");
-        } else {
-            allRooms.forEach(System.out::println);
+        try (Metrics.Scope scope = Metrics.scope("RoomService.displayAllRooms")) {
+            audit.log("Afișare toate camerele din sistem");
+            if (allRooms.isEmpty()) {
+                System.out.println("Nu există camere înregistrate.");
+            } else {
+                allRooms.forEach(System.out::println);
+            }
         }
     }
 
     public boolean editRoom(int roomNumber, String newType, Boolean isOccupied, MedicalDepartment newDepartment) {
-        Optional<Room> optionalRoom = getRoomByNumber(roomNumber);
-        if (optionalRoom.isEmpty()) {
-            audit.log("Eroare editare cameră: nu s-a găsit camera cu numărul: " + roomNumber);
-            return false;
-        }
-
-        Room room = optionalRoom.get();
-        StringBuilder editInfo = new StringBuilder("Editare cameră număr: " + roomNumber + " [");
-
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            String sql = "UPDATE rooms SET type = ?, is_occupied = ?, department_id = ? WHERE room_number = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, newType != null ? newType : room.getType());
-            stmt.setBoolean(2, isOccupied != null ? isOccupied : room.isOccupied());
-            stmt.setInt(3, newDepartment != null ? newDepartment.getId() : room.getDepartment().getId());
-            stmt.setInt(4, roomNumber);
-            stmt.executeUpdate();
-
-            if (newType != null) {
-                room.setType(newType);
-                editInfo.append("tip=").append(newType).append(", ");
+        try (Metrics.Scope scope = Metrics.scope("RoomService.editRoom")) {
+            Optional<Room> optionalRoom = getRoomByNumber(roomNumber);
+            if (optionalRoom.isEmpty()) {
+                audit.log("Eroare editare cameră: nu s-a găsit camera cu numărul: " + roomNumber);
+                return false;
             }
 
-            if (isOccupied != null) {
-                room.setOccupied(isOccupied);
-                editInfo.append("ocupată=").append(isOccupied).append(", ");
-            }
+            Room room = optionalRoom.get();
+            StringBuilder editInfo = new StringBuilder("Editare cameră număr: " + roomNumber + " [");
+
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                String sql = "UPDATE rooms SET type = ?, is_occupied = ?, department_id = ? WHERE room_number = ?";
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                stmt.setString(1, newType != null ? newType : room.getType());
+                stmt.setBoolean(2, isOccupied != null ? isOccupied : room.isOccupied());
+                stmt.setInt(3, newDepartment != null ? newDepartment.getId() : room.getDepartment().getId());
+                stmt.setInt(4, roomNumber);
+                stmt.executeUpdate();
+
+                if (newType != null) {
+                    room.setType(newType);
+                    editInfo.append("tip=").append(newType).append(", ");
+                }
 
-            if (newDepartment != null && room.getDepartment().getId() != newDepartment.getId()) {
-                room.getDepartment().removeRoom(roomNumber);
-                newDepartment.addRoom(room);
-                room.setDepartment(newDepartment);
-                editInfo.append("departament=").append(newDepartment.getName()).append(", ");
-            }
+                if (isOccupied != null) {
+                    room.setOccupied(isOccupied);
+                    editInfo.append("ocupată=").append(isOccupied).append(", ");
+                }
 
-            audit.log(editInfo.toString().replaceAll(", $", "") + "]");
-            return true;
+                if (newDepartment != null && room.getDepartment().getId() != newDepartment.getId()) {
+                    room.getDepartment().removeRoom(roomNumber);
+                    newDepartment.addRoom(room);
+                    room.setDepartment(newDepartment);
+                    editInfo.append("departament=").append(newDepartment.getName()).append(", ");
+                }
 
-        } catch (SQLException e) {
-            System.err.println("❌ Eroare JDBC la actualizare cameră: " + e.getMessage());
-            return false;
+                audit.log(editInfo.toString().replaceAll(", $", "") + "]");
+                return true;
+
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la actualizare cameră: " + e.getMessage());
+                return false;
+            }
         }
     }
 
+    /**
+     * O cameră liberă de tipul dat din departament, fără să fie ocupată; pentru alocare se folosește
+     * claimAvailableRoom, altfel două internări simultane pot primi aceeași cameră.
+     */
     public Room findAvailableRoom(int departmentId, String type) {
-        for (Room room : allRooms) {
-            if (!room.isOccupied()
-                    && room.getDepartment().getId() == departmentId
-                    && room.getType().equalsIgnoreCase(type)) {
+        try (Metrics.Scope scope = Metrics.scope("RoomService.findAvailableRoom")) {
+            return freeRooms.peek(departmentId, type);
+        }
+    }
 
-                audit.log("Găsire cameră disponibilă de tip '" + type +
-                        "' în departamentul ID " + departmentId +
-                        ": găsită camera " + room.getRoomNumber());
+    /**
+     * Ocupă atomic o cameră liberă de tipul dat din departament pentru programarea dată și salvează ocuparea;
+     * null dacă nu există sau dacă ocuparea nu a putut fi salvată.
+     */
+    public Room claimAvailableRoom(int departmentId, String type, int appointmentId) {
+        try (Metrics.Scope scope = Metrics.scope("RoomService.claimAvailableRoom")) {
+            Room room;
+            while ((room = freeRooms.claim(departmentId, type, appointmentId)) != null) {
+                try {
+                    if (persistOccupied(room)) break;
+                    // ocupată între timp în baza de date (altă instanță a aplicației): rămâne ocupată și aici
+                } catch (SQLException e) {
+                    scope.fail();
+                    room.free();
+                    System.err.println("❌ Eroare JDBC la alocarea camerei: " + e.getMessage());
+                    return null;
+                }
+            }
+            audit.log("Alocare cameră de tip '" + type + "' în departamentul ID " + departmentId + ": "
+                    + (room != null ? "camera " + room.getRoomNumber() : "niciuna liberă"));
+            return room;
+        }
+    }
 
-                return room;
+    /**
+     * Ocupă camera dată pentru programare, doar dacă este liberă, și salvează ocuparea.
+     */
+    public boolean occupyRoom(Room room, int appointmentId) {
+        try (Metrics.Scope scope = Metrics.scope("RoomService.occupyRoom")) {
+            if (!room.tryOccupy(appointmentId)) {
+                return false;
             }
+            try {
+                if (!persistOccupied(room)) {
+                    audit.log("Ocupare cameră refuzată (ocupată în baza de date): " + room.getRoomNumber());
+                    return false;
+                }
+            } catch (SQLException e) {
+                scope.fail();
+                room.free();
+                System.err.println("❌ Eroare JDBC la ocuparea camerei: " + e.getMessage());
+                return false;
+            }
+            audit.log("Ocupare cameră: " + room.getRoomNumber());
+            return true;
         }
+    }
+
+    /**
+     * Eliberează camera în baza de date și în memorie (ex: programarea pentru care a fost ocupată nu s-a salvat).
+     */
+    public boolean releaseRoom(Room room) {
+        try (Metrics.Scope scope = Metrics.scope("RoomService.releaseRoom")) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                 PreparedStatement stmt = conn.prepareStatement("UPDATE rooms SET is_occupied = FALSE WHERE room_number = ?")) {
+                stmt.setInt(1, room.getRoomNumber());
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                scope.fail();
+                System.err.println("❌ Eroare JDBC la eliberarea camerei: " + e.getMessage());
+                return false;
+            }
+            room.free();
+            audit.log("Eliberare cameră: " + room.getRoomNumber());
+            return true;
+        }
+    }
 
-        audit.log("Găsire cameră disponibilă de tip '" + type +
-                "' în departamentul ID " + departmentId + ": niciuna găsită");
-        return null;
+    /**
+     * Scoate camerele departamentului șters din indexul de camere libere.
+     */
+    public void removeDepartmentRooms(int departmentId) {
+        try (Metrics.Scope scope = Metrics.scope("RoomService.removeDepartmentRooms")) {
+            for (Room room : allRooms) {
+                if (room.getDepartment() != null && room.getDepartment().getId() == departmentId) {
+                    freeRooms.remove(room);
+                }
+            }
+        }
+    }
+
+    // UPDATE condiționat: false dacă rândul era deja ocupat, deci camera nu poate fi dată de două ori
+    private boolean persistOccupied(Room room) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "UPDATE rooms SET is_occupied = TRUE WHERE room_number = ? AND is_occupied = FALSE")) {
+            stmt.setInt(1, room.getRoomNumber());
+            return stmt.executeUpdate() > 0;
+        }
     }
 }
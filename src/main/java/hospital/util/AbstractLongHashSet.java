@@ -0,0 +1,132 @@
+package main.java.hospital.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Logica comună pentru mulțimi de long cu adresare deschisă (sondare liniară, ștergere prin deplasare
+ * înapoi, fără pietre funerare). Subclasele decid doar unde stau sloturile: în heap sau într-un fișier mapat.
+ * Nu este sincronizată - apelantul se ocupă de acces concurent.
+ */
+public abstract class AbstractLongHashSet {
+
+    protected static final long EMPTY = 0L;
+    protected static final float LOAD_FACTOR = 0.6f;
+
+    protected int size;
+    protected boolean containsZero; // 0 marchează un slot gol, deci e ținut separat
+
+    protected abstract int capacity();
+
+    protected abstract long slot(int index);
+
+    protected abstract void setSlot(int index, long value);
+
+    /**
+     * Înlocuiește stocarea cu una goală de capacitatea dată și reinserează valorile vechi cu insertFresh().
+     */
+    protected abstract void resize(int newCapacity);
+
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = capacity() - 1;
+        int i = index(value, mask);
+        long current;
+        while ((current = slot(i)) != EMPTY) {
+            if (current == value) return false;
+            i = (i + 1) & mask;
+        }
+        setSlot(i, value);
+        if (++size > (int) (capacity() * LOAD_FACTOR)) {
+            resize(capacity() << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) return containsZero;
+        int mask = capacity() - 1;
+        int i = index(value, mask);
+        long current;
+        while ((current = slot(i)) != EMPTY) {
+            if (current == value) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsZero) return false;
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int mask = capacity() - 1;
+        int i = index(value, mask);
+        long current;
+        while ((current = slot(i)) != value) {
+            if (current == EMPTY) return false;
+            i = (i + 1) & mask;
+        }
+        setSlot(i, EMPTY);
+        size--;
+
+        // Mută înapoi elementele din același cluster, ca sondarea să nu se oprească la golul nou creat
+        int gap = i;
+        for (int j = (i + 1) & mask; (current = slot(j)) != EMPTY; j = (j + 1) & mask) {
+            int home = index(current, mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                setSlot(gap, current);
+                setSlot(j, EMPTY);
+                gap = j;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0, n = capacity(); i < n; i++) {
+            setSlot(i, EMPTY);
+        }
+        containsZero = false;
+        size = 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (containsZero) action.accept(EMPTY);
+        for (int i = 0, n = capacity(); i < n; i++) {
+            long value = slot(i);
+            if (value != EMPTY) action.accept(value);
+        }
+    }
+
+    // Pune o valoare care sigur nu există încă, fără a modifica size (folosit la redimensionare)
+    protected final void insertFresh(long value) {
+        int mask = capacity() - 1;
+        int i = index(value, mask);
+        while (slot(i) != EMPTY) i = (i + 1) & mask;
+        setSlot(i, value);
+    }
+
+    protected static int capacityFor(int expectedSize) {
+        return Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+    }
+
+    private static int index(long value, int mask) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
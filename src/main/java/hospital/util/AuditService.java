@@ -1,14 +1,70 @@
 package main.java.hospital.util;
 
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Serviciu de audit asincron.
+ * log() doar pune acțiunea într-un RingBuffer; un singur fir de scriere golește coada în loturi
+ * printr-un canal de fișier deschis o singură dată și face flush pe grupuri
+ * (la batchSize intrări sau la flushIntervalMs, oricare vine primul).
+ */
 public class AuditService {
+
+    /**
+     * Ce se întâmplă când coada este plină:
+     * BLOCK - apelantul așteaptă loc; DROP - intrarea se pierde;
+     * SAMPLE - se păstrează doar una din sampleRate intrări, restul se pierd.
+     */
+    public enum OverflowPolicy { BLOCK, DROP, SAMPLE }
+
+    /**
+     * Cum se auditează citirile frecvente (logRead): ALL - fiecare citire; SAMPLED - una din readSampleRate;
+     * OFF - deloc. Acțiunile care modifică date se scriu mereu, prin log().
+     */
+    public enum ReadTracing { ALL, SAMPLED, OFF }
+
     private static AuditService instance;
-    private static final String FILE_PATH = "audit\\audit_log.csv";
+    private static final String FILE_PATH = System.getProperty("hospital.audit.file", "audit\\audit_log.csv");
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Setări - pot fi suprascrise cu -Dhospital.audit.* la pornire
+    private static final int CAPACITY = Integer.getInteger("hospital.audit.capacity", 8192);
+    private static final int BATCH_SIZE = positiveSetting("hospital.audit.batchSize", 256);
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("hospital.audit.flushIntervalMs", 200L);
+    private static final OverflowPolicy OVERFLOW_POLICY =
+            OverflowPolicy.valueOf(System.getProperty("hospital.audit.overflow", "BLOCK").toUpperCase());
+    private static final int SAMPLE_RATE = positiveSetting("hospital.audit.sampleRate", 10);
+    private static final ReadTracing READ_TRACING =
+            ReadTracing.valueOf(System.getProperty("hospital.audit.reads", "SAMPLED").toUpperCase());
+    private static final int READ_SAMPLE_RATE = Math.max(1, Integer.getInteger("hospital.audit.readSampleRate", 100));
+
+    private final RingBuffer<Entry> buffer = new RingBuffer<>(CAPACITY);
+    private final Thread writerThread;
+    private volatile boolean running = true;
+    // Apeluri log() care au văzut running == true și încă nu și-au pus intrarea în coadă
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean flushRequested = false;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong overflowCounter = new AtomicLong();
+    private final AtomicLong readCounter = new AtomicLong();
+    private volatile long flushedCount = 0;
+
     private AuditService() {
         try {
             java.io.File file = new java.io.File(FILE_PATH);
@@ -27,9 +83,26 @@ public class AuditService {
         } catch (IOException e) {
             System.err.println("❌ Eroare inițializare AuditService: " + e.getMessage());
         }
+
+        writerThread = new Thread(this::runWriter, "hospital-audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        // La oprirea aplicației se scrie tot ce a rămas în coadă
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "hospital-audit-shutdown"));
     }
 
-    public static AuditService getInstance() {
+    // Valorile sub 1 ar da împărțire la zero în log(); se revine la valoarea implicită
+    private static int positiveSetting(String name, int defaultValue) {
+        int value = Integer.getInteger(name, defaultValue);
+        if (value < 1) {
+            System.err.println("⚠️ " + name + "=" + value + " nu este valid (minim 1); se folosește " + defaultValue + ".");
+            return defaultValue;
+        }
+        return value;
+    }
+
+    public static synchronized AuditService getInstance() {
         if (instance == null) {
             instance = new AuditService();
         }
@@ -37,10 +110,188 @@ public class AuditService {
     }
 
     public void log(String action) {
-        try (FileWriter writer = new FileWriter(FILE_PATH, true)) {
-            writer.write(action + "," + FORMATTER.format(LocalDateTime.now()) + "\n");
+        Entry entry = new Entry(action, LocalDateTime.now());
+        inFlight.incrementAndGet();
+        try {
+            if (!running) {
+                writeDirectly(entry);
+                return;
+            }
+
+            if (!buffer.offer(entry) && !handleOverflow(entry)) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+
+        if (enqueued.incrementAndGet() % BATCH_SIZE == 0) {
+            LockSupport.unpark(writerThread); // un lot complet așteaptă deja
+        }
+    }
+
+    /**
+     * Auditează o citire de pe o cale fierbinte (ex: căutare după id), conform hospital.audit.reads.
+     * Intrările eșantionate sunt marcate cu rata, ca numărul real de citiri să poată fi estimat.
+     */
+    public void logRead(String action) {
+        switch (READ_TRACING) {
+            case OFF:
+                return;
+            case SAMPLED:
+                if (readCounter.getAndIncrement() % READ_SAMPLE_RATE == 0) {
+                    log(READ_SAMPLE_RATE == 1 ? action : action + " [eșantion 1/" + READ_SAMPLE_RATE + "]");
+                }
+                return;
+            case ALL:
+            default:
+                log(action);
+        }
+    }
+
+    private boolean handleOverflow(Entry entry) {
+        switch (OVERFLOW_POLICY) {
+            case DROP:
+                return false;
+            case SAMPLE:
+                if (overflowCounter.getAndIncrement() % SAMPLE_RATE != 0) {
+                    return false;
+                }
+                return offerBlocking(entry);
+            case BLOCK:
+            default:
+                return offerBlocking(entry);
+        }
+    }
+
+    private boolean offerBlocking(Entry entry) {
+        while (!buffer.offer(entry)) {
+            if (!running) {
+                writeDirectly(entry);
+                return false;
+            }
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        return true;
+    }
+
+    /**
+     * Așteaptă până când toate acțiunile înregistrate înainte de apel au ajuns în fișier.
+     */
+    public void flush() {
+        long target = enqueued.get();
+        flushRequested = true;
+        while (flushedCount < target && writerThread.isAlive()) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Oprește firul de scriere după ce golește coada. Apelată automat la închiderea JVM-ului.
+     * Intrările puse în coadă de apeluri log() aflate în curs la oprire se scriu direct, după firul de scriere.
+     */
+    public void shutdown() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            return; // firul încă golește coada; nu îl concurăm ca al doilea consumator
+        }
+        // După running = false, un log() nou scrie direct; așteptăm doar apelurile începute înainte
+        while (inFlight.get() > 0) {
+            Thread.onSpinWait();
+        }
+        Entry entry;
+        while ((entry = buffer.poll()) != null) {
+            writeDirectly(entry);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getQueuedCount() {
+        return buffer.size();
+    }
+
+    private void runWriter() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+        try (FileChannel channel = FileChannel.open(Paths.get(FILE_PATH),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 64 * 1024)) {
+
+            long written = 0;
+            long pending = 0;
+            long lastFlush = System.nanoTime();
+
+            while (true) {
+                boolean stopping = !running;
+                int drained = 0;
+                Entry entry;
+                while (drained < BATCH_SIZE && (entry = buffer.poll()) != null) {
+                    writer.write(entry.format());
+                    drained++;
+                }
+                written += drained;
+                pending += drained;
+
+                long now = System.nanoTime();
+                boolean flushNow = flushRequested || stopping
+                        || pending >= BATCH_SIZE || now - lastFlush >= intervalNanos;
+                if (flushNow && pending > 0) {
+                    writer.flush();
+                    pending = 0;
+                    lastFlush = now;
+                }
+                if (pending == 0) {
+                    flushedCount = written;
+                    if (flushRequested && buffer.isEmpty()) {
+                        flushRequested = false;
+                    }
+                }
+
+                if (stopping && buffer.isEmpty()) {
+                    break;
+                }
+                if (drained == 0) {
+                    LockSupport.parkNanos(this, intervalNanos);
+                }
+            }
         } catch (IOException e) {
             System.err.println("❌ Eroare la scrierea în audit_log.csv: " + e.getMessage());
+            running = false;
+        }
+    }
+
+    // Folosit doar după oprirea firului de scriere (sau dacă acesta a eșuat)
+    private synchronized void writeDirectly(Entry entry) {
+        try (FileWriter writer = new FileWriter(FILE_PATH, StandardCharsets.UTF_8, true)) {
+            writer.write(entry.format());
+        } catch (IOException e) {
+            System.err.println("❌ Eroare la scrierea în audit_log.csv: " + e.getMessage());
+        }
+    }
+
+    private static final class Entry {
+        private final String action;
+        private final LocalDateTime timestamp;
+
+        Entry(String action, LocalDateTime timestamp) {
+            this.action = action;
+            this.timestamp = timestamp;
+        }
+
+        String format() {
+            return action + "," + FORMATTER.format(timestamp) + "\n";
         }
     }
 }
@@ -0,0 +1,275 @@
+package main.java.hospital.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registrul CNP-urilor folosite, persistat ca jurnal append-only în data/used_cnps.txt.
+ * Fiecare înregistrare sau eliberare adaugă o singură linie ("+cnp" / "-cnp"); fsync se face pe loturi
+ * (la syncBatch linii sau la syncIntervalMs). Când jurnalul ajunge mult mai mare decât mulțimea activă,
+ * este compactat: se scrie un fișier nou cu CNP-urile curente, care îl înlocuiește atomic pe cel vechi.
+ * În memorie, CNP-urile (13 cifre) sunt ținute ca long într-un LongHashSet; cu -Dhospital.cnp.store=mapped
+ * mulțimea stă off-heap, într-un fișier mapat (MappedLongHashSet). Dacă indexul mapat a fost închis curat și
+ * corespunde lungimii jurnalului, pornirea nu mai recitește jurnalul.
+ */
+public class CnpRegistry {
+
+    private static CnpRegistry instance;
+
+    // Setări - pot fi suprascrise cu -Dhospital.cnp.* la pornire
+    private static final Path FILE_PATH = Paths.get(System.getProperty("hospital.cnp.file", "data/used_cnps.txt"));
+    private static final int SYNC_BATCH = Integer.getInteger("hospital.cnp.syncBatch", 256);
+    private static final long SYNC_INTERVAL_MS = Long.getLong("hospital.cnp.syncIntervalMs", 500L);
+    private static final int COMPACT_MIN_ENTRIES = Integer.getInteger("hospital.cnp.compactMinEntries", 10_000);
+    private static final int COMPACT_RATIO = Integer.getInteger("hospital.cnp.compactRatio", 2);
+    private static final String STORE = System.getProperty("hospital.cnp.store", "heap");
+    private static final Path INDEX_PATH = Paths.get(System.getProperty("hospital.cnp.indexFile", "data/used_cnps.idx"));
+    private static final int EXPECTED_SIZE = Integer.getInteger("hospital.cnp.expectedSize", 1024);
+    private static final int LINE_BYTES = 15; // "+" + 13 cifre + "\n"
+    private static final int CNP_LENGTH = 13;
+    private static final long INVALID_KEY = -1L;
+
+    private final AbstractLongHashSet cnps;
+    private FileChannel channel;
+    private Writer journal;
+    private long journalEntries; // linii din fișier, inclusiv cele anulate ulterior
+    private int unsynced;
+    private final ScheduledExecutorService syncer;
+
+    private CnpRegistry() {
+        cnps = createSet();
+        try {
+            load();
+            if (needsCompaction()) {
+                compact();
+            } else {
+                openJournal();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Nu s-a putut încărca fișierul cu CNP-uri: " + e.getMessage());
+        }
+
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hospital-cnp-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        syncer.scheduleWithFixedDelay(this::sync, SYNC_INTERVAL_MS, SYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "hospital-cnp-shutdown"));
+    }
+
+    private static AbstractLongHashSet createSet() {
+        if (STORE.equalsIgnoreCase("mapped")) {
+            try {
+                return new MappedLongHashSet(INDEX_PATH, EXPECTED_SIZE);
+            } catch (IOException e) {
+                System.err.println("⚠️ Indexul CNP mapat nu poate fi deschis, se folosește heap-ul: " + e.getMessage());
+            }
+        }
+        return new LongHashSet(EXPECTED_SIZE);
+    }
+
+    public static synchronized CnpRegistry getInstance() {
+        if (instance == null) {
+            instance = new CnpRegistry();
+        }
+        return instance;
+    }
+
+    // Un CNP invalid (null, alt număr de cifre, caractere nenumerice) nu poate fi înregistrat, deci nu e conținut
+    public synchronized boolean contains(String cnp) {
+        long key = toKey(cnp);
+        return key != INVALID_KEY && cnps.contains(key);
+    }
+
+    /**
+     * Marchează CNP-ul ca folosit. Returnează false dacă era deja înregistrat (nimic nu se scrie).
+     */
+    public synchronized boolean register(String cnp) {
+        long key = toKey(cnp);
+        if (key == INVALID_KEY) {
+            throw new IllegalArgumentException("CNP invalid: trebuie să conțină exact 13 cifre.");
+        }
+        if (!cnps.add(key)) {
+            return false;
+        }
+        append('+', cnp);
+        return true;
+    }
+
+    public synchronized boolean release(String cnp) {
+        long key = toKey(cnp);
+        if (key == INVALID_KEY || !cnps.remove(key)) {
+            return false;
+        }
+        append('-', cnp);
+        return true;
+    }
+
+    public synchronized int size() {
+        return cnps.size();
+    }
+
+    /**
+     * Scrie pe disc tot ce s-a adăugat în jurnal (flush + fsync).
+     */
+    public synchronized void sync() {
+        if (journal == null || unsynced == 0) return;
+        try {
+            journal.flush();
+            channel.force(false);
+            unsynced = 0;
+            markIndexSynced(channel.size());
+        } catch (IOException e) {
+            System.err.println("⚠️ Eroare salvare fișier CNP: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rescrie fișierul doar cu CNP-urile active; noul fișier îl înlocuiește atomic pe cel vechi.
+     */
+    public synchronized void compact() throws IOException {
+        closeJournal();
+        Path parent = FILE_PATH.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, "used_cnps", ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             BufferedWriter writer = new BufferedWriter(Channels.newWriter(out, StandardCharsets.UTF_8), 1 << 16)) {
+            IOException[] failure = new IOException[1];
+            cnps.forEach(key -> {
+                try {
+                    writer.write(Long.toString(key));
+                    writer.newLine();
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+            writer.flush();
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            openJournal();
+            throw e;
+        }
+        Files.move(tmp, FILE_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journalEntries = cnps.size();
+        openJournal();
+        markIndexSynced(Files.size(FILE_PATH));
+    }
+
+    public synchronized void close() {
+        sync();
+        closeJournal();
+        if (syncer != null) syncer.shutdown();
+    }
+
+    private void append(char op, String cnp) {
+        if (journal == null) return;
+        try {
+            journal.write(op);
+            journal.write(cnp);
+            journal.write('\n');
+            journalEntries++;
+            if (++unsynced >= SYNC_BATCH) {
+                sync();
+            }
+            if (needsCompaction()) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Eroare salvare fișier CNP: " + e.getMessage());
+        }
+    }
+
+    private boolean needsCompaction() {
+        return journalEntries > Math.max(COMPACT_MIN_ENTRIES, (long) cnps.size() * COMPACT_RATIO);
+    }
+
+    // Liniile fără prefix vin din formatul vechi (câte un CNP pe linie) și contează ca adăugări
+    private void load() throws IOException {
+        if (FILE_PATH.getParent() != null) {
+            Files.createDirectories(FILE_PATH.getParent());
+        }
+        if (!Files.exists(FILE_PATH)) {
+            cnps.clear();
+            return;
+        }
+
+        if (cnps instanceof MappedLongHashSet mapped && mapped.getMark() == Files.size(FILE_PATH)) {
+            journalEntries = Files.size(FILE_PATH) / LINE_BYTES; // estimare, ajunge pentru decizia de compactare
+            return;
+        }
+        cnps.clear();
+
+        try (BufferedReader reader = Files.newBufferedReader(FILE_PATH, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                journalEntries++;
+                try {
+                    if (line.charAt(0) == '-') {
+                        cnps.remove(Long.parseLong(line.substring(1)));
+                    } else {
+                        cnps.add(Long.parseLong(line.charAt(0) == '+' ? line.substring(1) : line));
+                    }
+                } catch (NumberFormatException e) {
+                    // linie scrisă pe jumătate (ex: oprire bruscă) - se ignoră, compactarea o va elimina
+                }
+            }
+        }
+    }
+
+    private void openJournal() throws IOException {
+        channel = FileChannel.open(FILE_PATH, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        journal = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 14);
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.flush();
+            channel.force(false);
+            markIndexSynced(channel.size());
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("⚠️ Eroare închidere fișier CNP: " + e.getMessage());
+        }
+        journal = null;
+        channel = null;
+        unsynced = 0;
+    }
+
+    // Indexul mapat reține lungimea jurnalului pe care o reflectă; la repornire, o nepotrivire forțează recitirea
+    private void markIndexSynced(long journalBytes) {
+        if (cnps instanceof MappedLongHashSet mapped) {
+            mapped.force(journalBytes);
+        }
+    }
+
+    // Cele 13 cifre ca long, sau INVALID_KEY; fără excepții, ca apelurile cu date greșite să rămână ieftine
+    private static long toKey(String cnp) {
+        if (cnp == null || cnp.length() != CNP_LENGTH) {
+            return INVALID_KEY;
+        }
+        long key = 0;
+        for (int i = 0; i < CNP_LENGTH; i++) {
+            char c = cnp.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID_KEY;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+}
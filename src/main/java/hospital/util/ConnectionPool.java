@@ -0,0 +1,555 @@
+package main.java.hospital.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool limitat de conexiuni JDBC.
+ * Conexiunile împrumutate sunt învelite într-un proxy: close() le returnează în pool
+ * în loc să închidă conexiunea fizică, deci serviciile pot folosi în continuare
+ * try-with-resources exact ca până acum.
+ *
+ * Fiecare conexiune fizică are un cache LRU de PreparedStatement-uri (vezi StatementCache):
+ * prepareStatement() cu același SQL refolosește statement-ul deja pregătit, iar close() pe statement
+ * îl returnează în cache. Statement-urile lăsate deschise de servicii ajung tot în cache la returnarea conexiunii.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final boolean leakTrace;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<PooledConnection, Lease> leased = new ConcurrentHashMap<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    // Metrici
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong failedValidationCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int minSize, int maxSize,
+                          long idleTimeoutMillis, long borrowTimeoutMillis,
+                          long leakThresholdMillis, boolean leakTrace,
+                          int validationTimeoutSeconds, int statementCacheSize) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Dimensiuni pool invalide: min=" + minSize + ", max=" + maxSize);
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Dimensiune invalidă pentru cache-ul de statement-uri: " + statementCacheSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.leakTrace = leakTrace;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hospital-db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleAtFixedRate(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+
+        fillToMinimum();
+    }
+
+    /**
+     * Împrumută o conexiune din pool. Așteaptă cel mult borrowTimeout dacă pool-ul e plin.
+     * Conexiunea este validată înainte de a fi returnată apelantului.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool-ul de conexiuni este închis.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.incrementAndGet();
+                throw new SQLException("Timeout la obținerea unei conexiuni din pool (" + borrowTimeoutMillis
+                        + " ms, active=" + getActiveCount() + "/" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Întrerupt în timpul așteptării unei conexiuni din pool.", e);
+        }
+
+        PooledConnection pooled;
+        try {
+            pooled = takeValidIdle();
+            if (pooled == null) {
+                pooled = createConnection();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        recordBorrowWait(System.nanoTime() - start);
+        // stiva împrumutului costă o alocare și un stack walk, deci se capturează doar la cerere
+        leased.put(pooled, new Lease(System.currentTimeMillis(), Thread.currentThread().getName(),
+                leakTrace ? new Throwable("Conexiune împrumutată aici") : null));
+        return pooled.newHandle();
+    }
+
+    private PooledConnection takeValidIdle() {
+        PooledConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            if (isValid(candidate)) {
+                return candidate;
+            }
+            failedValidationCount.incrementAndGet();
+            destroy(candidate);
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return !pooled.physical.isClosed() && pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void recordBorrowWait(long waitNanos) {
+        borrowCount.incrementAndGet();
+        borrowWaitNanos.addAndGet(waitNanos);
+        maxBorrowWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Readuce conexiunea fizică într-o stare curată și o pune înapoi în pool.
+     */
+    private void release(PooledConnection pooled) {
+        leased.remove(pooled);
+        boolean reusable = !closed;
+        try {
+            pooled.closeTrackedStatements();
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (reusable) {
+            pooled.lastReleasedAt = System.currentTimeMillis();
+            idle.offerFirst(pooled);
+        } else {
+            destroy(pooled);
+        }
+        permits.release();
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        pooled.statements.clear();
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {
+            // conexiunea era deja inutilizabilă
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && totalConnections.get() < minSize) {
+            try {
+                PooledConnection pooled = createConnection();
+                pooled.lastReleasedAt = System.currentTimeMillis();
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                System.err.println("❌ Conexiunea la baza de date a eșuat: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            detectLeaks();
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Eroare în întreținerea pool-ului de conexiuni: " + e.getMessage());
+        }
+    }
+
+    // Închide conexiunile inactive de prea mult timp, păstrând minimul configurat
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        PooledConnection oldest;
+        while (totalConnections.get() > minSize && (oldest = idle.peekLast()) != null
+                && now - oldest.lastReleasedAt > idleTimeoutMillis) {
+            if (idle.removeLastOccurrence(oldest)) {
+                evictedCount.incrementAndGet();
+                destroy(oldest);
+            }
+        }
+    }
+
+    // Semnalează conexiunile ținute mai mult decât pragul de leak, o singură dată per împrumut
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leased.values()) {
+            if (!lease.reported && now - lease.borrowedAt > leakThresholdMillis) {
+                lease.reported = true;
+                leakCount.incrementAndGet();
+                System.err.println("⚠️ Posibil leak de conexiune: împrumutată de " + (now - lease.borrowedAt)
+                        + " ms pe firul '" + lease.threadName + "'");
+                if (lease.origin != null) {
+                    lease.origin.printStackTrace();
+                } else {
+                    System.err.println("   (pornește cu -Dhospital.db.pool.leakTrace=true pentru locul împrumutului)");
+                }
+            }
+        }
+    }
+
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    // === Metrici ===
+
+    public int getActiveCount() {
+        return leased.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public double getAverageBorrowWaitMillis() {
+        long count = borrowCount.get();
+        return count == 0 ? 0.0 : borrowWaitNanos.get() / (count * 1_000_000.0);
+    }
+
+    public double getMaxBorrowWaitMillis() {
+        return maxBorrowWaitNanos.get() / 1_000_000.0;
+    }
+
+    public long getBorrowTimeouts() {
+        return borrowTimeouts.get();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    public long getFailedValidationCount() {
+        return failedValidationCount.get();
+    }
+
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions.get();
+    }
+
+    // Procentul de prepareStatement() serviți din cache, adică fără o nouă pregătire (parsare) a SQL-ului
+    public double getStatementCacheHitRate() {
+        long hits = statementCacheHits.get();
+        long total = hits + statementCacheMisses.get();
+        return total == 0 ? 0.0 : 100.0 * hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool {active=%d, idle=%d, total=%d/%d, împrumuturi=%d, "
+                        + "așteptare medie=%.3f ms, așteptare max=%.3f ms, timeout-uri=%d, create=%d, "
+                        + "evacuate=%d, validări eșuate=%d, leak-uri=%d, statement-uri din cache=%d/%d (%.1f%%), "
+                        + "statement-uri evacuate=%d}",
+                getActiveCount(), getIdleCount(), getTotalCount(), maxSize, getBorrowCount(),
+                getAverageBorrowWaitMillis(), getMaxBorrowWaitMillis(), getBorrowTimeouts(), getCreatedCount(),
+                getEvictedCount(), getFailedValidationCount(), getLeakCount(), getStatementCacheHits(),
+                getStatementCacheHits() + getStatementCacheMisses(), getStatementCacheHitRate(),
+                getStatementCacheEvictions());
+    }
+
+    private static final class Lease {
+        final long borrowedAt;
+        final String threadName;
+        final Throwable origin; // null fără hospital.db.pool.leakTrace
+        volatile boolean reported;
+
+        Lease(long borrowedAt, String threadName, Throwable origin) {
+            this.borrowedAt = borrowedAt;
+            this.threadName = threadName;
+            this.origin = origin;
+        }
+    }
+
+    /**
+     * Conexiunea fizică din pool. Fiecare împrumut primește un handle nou, astfel încât
+     * un handle deja închis nu mai poate atinge conexiunea după ce a fost dată altcuiva.
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        final List<TimedStatement> openStatements = new ArrayList<>();
+        volatile long lastReleasedAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(statementCacheSize,
+                    statementCacheHits, statementCacheMisses, statementCacheEvictions);
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+
+        synchronized void track(TimedStatement statement) {
+            openStatements.add(statement);
+        }
+
+        synchronized void untrack(TimedStatement statement) {
+            openStatements.remove(statement);
+        }
+
+        // Serviciile nu închid mereu statement-urile; le închidem noi la returnarea în pool
+        void closeTrackedStatements() throws SQLException {
+            List<TimedStatement> open;
+            synchronized (this) {
+                open = new ArrayList<>(openStatements);
+                openStatements.clear();
+            }
+            for (TimedStatement statement : open) {
+                statement.close();
+            }
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean released = false;
+
+        Handle(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return released || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + (released ? ", returnată" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (released) {
+                throw new SQLException("Conexiunea a fost deja returnată în pool.");
+            }
+
+            String cacheKey = name.equals("prepareStatement") ? cacheKey(args) : null;
+            try {
+                Object result = cacheKey == null ? null : pooled.statements.checkout(cacheKey);
+                if (result == null) {
+                    result = method.invoke(pooled.physical, args);
+                }
+                if (result instanceof Statement) {
+                    TimedStatement statement = new TimedStatement(pooled, (Statement) result, cacheKey, (Connection) proxy);
+                    pooled.track(statement);
+                    return Proxy.newProxyInstance(
+                            Statement.class.getClassLoader(),
+                            new Class<?>[]{method.getReturnType()},
+                            statement);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Se refolosesc doar variantele prepareStatement(sql[, int...]); cele cu coloane/indici de chei generate nu
+        private String cacheKey(Object[] args) {
+            if (!pooled.statements.isEnabled() || args == null || !(args[0] instanceof String)) {
+                return null;
+            }
+            int[] options = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                if (!(args[i] instanceof Integer)) {
+                    return null;
+                }
+                options[i - 1] = (Integer) args[i];
+            }
+            return StatementCache.key((String) args[0], options);
+        }
+    }
+
+    /**
+     * Statement-ul văzut de servicii. Măsoară execuțiile (execute*, executeQuery, executeUpdate, executeBatch)
+     * și le atribuie în Metrics operației de serviciu în curs pe firul curent; close() returnează
+     * statement-ul pregătit în cache-ul conexiunii, dacă provine din el.
+     */
+    private static final class TimedStatement implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final Statement physical;
+        private final String cacheKey;
+        private final Connection connection;
+        private boolean closed = false;
+
+        TimedStatement(PooledConnection pooled, Statement physical, String cacheKey, Connection connection) {
+            this.pooled = pooled;
+            this.physical = physical;
+            this.cacheKey = cacheKey;
+            this.connection = connection;
+        }
+
+        synchronized void close() throws SQLException {
+            if (closed) return;
+            closed = true;
+            pooled.untrack(this);
+            if (cacheKey != null && !physical.isClosed()) {
+                pooled.statements.checkin(cacheKey, (PreparedStatement) physical);
+            } else {
+                physical.close();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return closed || physical.isClosed();
+                    }
+                default:
+                    break;
+            }
+
+            synchronized (this) {
+                if (closed) {
+                    throw new SQLException("Statement-ul a fost deja închis.");
+                }
+            }
+
+            if (!method.getName().startsWith("execute")) {
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+
+            long start = System.nanoTime();
+            boolean failed = false;
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                failed = true;
+                throw e.getCause();
+            } finally {
+                Metrics.recordJdbc(System.nanoTime() - start, failed);
+            }
+        }
+    }
+}
@@ -1,25 +1,32 @@
 package main.java.hospital.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
 
-    private static final String URL = "jdbc:mysql://localhost:3306/hospital_db?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
-    private static final String USER = "root";     // modifică dacă e alt user
-    private static final String PASSWORD = "1234"; // modifică dacă ai altă parolă
+    // Numărul de rânduri aduse per drum la server pentru citirile mari (cursor pe server)
+    public static final int FETCH_SIZE = Integer.getInteger("hospital.db.fetchSize", 1000);
+
+    // Setări pool - pot fi suprascrise cu -Dhospital.db.pool.* la pornire
+    private static final int POOL_MIN_SIZE = Integer.getInteger("hospital.db.pool.min", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("hospital.db.pool.max", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("hospital.db.pool.idleTimeoutMs", 300_000L);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("hospital.db.pool.borrowTimeoutMs", 30_000L);
+    private static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("hospital.db.pool.leakThresholdMs", 60_000L);
+    // Stiva fiecărui împrumut, afișată la un leak; costisitoare, deci doar pentru depanare
+    private static final boolean POOL_LEAK_TRACE = Boolean.getBoolean("hospital.db.pool.leakTrace");
+    private static final int POOL_VALIDATION_TIMEOUT_S = Integer.getInteger("hospital.db.pool.validationTimeoutS", 2);
+    // PreparedStatement-uri păstrate per conexiune; 0 dezactivează cache-ul
+    private static final int POOL_STATEMENT_CACHE_SIZE = Integer.getInteger("hospital.db.pool.statementCacheSize", 64);
 
     private static DatabaseConnection instance;
-    private static Connection connection;
+    private static StorageBackend backend;
+    private static ConnectionPool pool;
 
     // Constructor privat - Singleton
     private DatabaseConnection() {
-        try {
-            connection = DriverManager.getConnection(URL, USER, PASSWORD);
-        } catch (SQLException e) {
-            System.err.println("❌ Conexiunea la baza de date a eșuat: " + e.getMessage());
-        }
+        getPool();
     }
 
     // Obține instanța unică a clasei
@@ -30,11 +37,53 @@ public class DatabaseConnection {
         return instance;
     }
 
-    // Oferă conexiunea activă
+    // Backend-ul se alege o singură dată, la prima folosire (-Dhospital.db.backend)
+    public static synchronized StorageBackend getBackend() {
+        if (backend == null) {
+            backend = StorageBackend.fromSystemProperties();
+        }
+        return backend;
+    }
+
+    // Pool-ul este creat la prima cerere de conexiune
+    public static synchronized ConnectionPool getPool() {
+        try {
+            return openPool();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Backend-ul de stocare '" + getBackend().getName()
+                    + "' nu a putut fi inițializat: " + e.getMessage(), e);
+        }
+    }
+
+    // Oferă o conexiune din pool; close() o returnează în pool
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(URL, USER, PASSWORD);
+        return openPool().borrow();
+    }
+
+    // Dacă backend-ul nu poate fi inițializat nu se păstrează niciun pool (schema ar lipsi),
+    // deci cererea următoare reîncearcă inițializarea
+    private static synchronized ConnectionPool openPool() throws SQLException {
+        if (pool == null) {
+            StorageBackend storage = getBackend();
+            ConnectionPool created = new ConnectionPool(
+                    storage.getUrl(),
+                    storage.getUser(),
+                    storage.getPassword(),
+                    POOL_MIN_SIZE, POOL_MAX_SIZE,
+                    POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS,
+                    POOL_LEAK_THRESHOLD_MS, POOL_LEAK_TRACE, POOL_VALIDATION_TIMEOUT_S, POOL_STATEMENT_CACHE_SIZE
+            );
+            try {
+                storage.initialize(created);
+            } catch (SQLException e) {
+                created.shutdown();
+                System.err.println("❌ Backend-ul de stocare '" + storage.getName() + "' nu a putut fi inițializat: " + e.getMessage());
+                throw e;
+            }
+            pool = created;
+            // actualizările write-behind rămase dintr-o rulare întreruptă se aplică înainte de orice citire
+            WriteBehindQueue.getInstance();
         }
-        return connection;
+        return pool;
     }
 }
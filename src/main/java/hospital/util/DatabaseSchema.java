@@ -0,0 +1,158 @@
+package main.java.hospital.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Schema tabelelor folosite de servicii (dialect MySQL, compatibil și cu o bază de date
+ * embedded pornită în modul MySQL). Folosită pentru a crea o bază de date goală,
+ * de exemplu pentru benchmark-uri sau pentru o instalare nouă.
+ */
+public final class DatabaseSchema {
+
+    private static final List<String> TABLES = List.of(
+            """
+            CREATE TABLE IF NOT EXISTS medical_records (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                creation_date DATE NOT NULL
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS patients (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                first_name VARCHAR(100) NOT NULL,
+                last_name VARCHAR(100) NOT NULL,
+                email VARCHAR(150),
+                phone_number VARCHAR(20),
+                cnp CHAR(13) NOT NULL UNIQUE,
+                address VARCHAR(255),
+                blood_group VARCHAR(4) NOT NULL,
+                rh_type VARCHAR(10) NOT NULL,
+                medical_record_id INT,
+                active BOOLEAN DEFAULT TRUE
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS doctors (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                first_name VARCHAR(100) NOT NULL,
+                last_name VARCHAR(100) NOT NULL,
+                email VARCHAR(150),
+                phone_number VARCHAR(20),
+                specialization VARCHAR(50) NOT NULL,
+                years_of_experience INT,
+                parafa_code VARCHAR(20) NOT NULL UNIQUE
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS nurses (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                first_name VARCHAR(100) NOT NULL,
+                last_name VARCHAR(100) NOT NULL,
+                email VARCHAR(150),
+                phone_number VARCHAR(20),
+                certifications VARCHAR(255),
+                years_of_experience INT,
+                staff_code VARCHAR(20),
+                shift VARCHAR(20),
+                is_on_call BOOLEAN DEFAULT FALSE
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS diagnoses (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                name VARCHAR(150) NOT NULL,
+                description VARCHAR(500),
+                date DATE NOT NULL,
+                doctor_id INT,
+                medical_record_id INT,
+                INDEX idx_diagnoses_record (medical_record_id)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS prescriptions (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                medication VARCHAR(150) NOT NULL,
+                dosage VARCHAR(100),
+                start_date DATE NOT NULL,
+                end_date DATE NOT NULL,
+                date_issued DATE,
+                auto_renew BOOLEAN DEFAULT FALSE,
+                renew_date DATE,
+                diagnosis_id INT,
+                INDEX idx_prescriptions_diagnosis (diagnosis_id)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS consultations (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                patient_id INT NOT NULL,
+                doctor_id INT NOT NULL,
+                date DATE NOT NULL,
+                diagnosis_id INT,
+                notes VARCHAR(500)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS medical_appointments (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                patient_id INT NOT NULL,
+                doctor_id INT NOT NULL,
+                room_number INT,
+                date_time DATETIME NOT NULL,
+                reason VARCHAR(255),
+                INDEX idx_appointments_doctor_time (doctor_id, date_time),
+                INDEX idx_appointments_time (date_time)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS invoices (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                patient_id INT NOT NULL,
+                amount DECIMAL(12, 2) NOT NULL,
+                description VARCHAR(255),
+                date DATE NOT NULL,
+                is_paid BOOLEAN DEFAULT FALSE,
+                INDEX idx_invoices_date (date)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS medical_departments (
+                id INT AUTO_INCREMENT PRIMARY KEY,
+                name VARCHAR(100) NOT NULL,
+                floor VARCHAR(20),
+                description VARCHAR(255)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS rooms (
+                room_number INT AUTO_INCREMENT PRIMARY KEY,
+                type VARCHAR(50),
+                is_occupied BOOLEAN DEFAULT FALSE,
+                department_id INT
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS department_doctors (
+                department_id INT NOT NULL,
+                doctor_id INT NOT NULL,
+                PRIMARY KEY (department_id, doctor_id)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS department_doctor_nurse (
+                department_id INT NOT NULL,
+                doctor_id INT NOT NULL,
+                nurse_id INT NOT NULL,
+                PRIMARY KEY (department_id, doctor_id, nurse_id)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS doctor_nurses (
+                doctor_id INT NOT NULL,
+                nurse_id INT NOT NULL,
+                PRIMARY KEY (doctor_id, nurse_id)
+            )"""
+    );
+
+    private DatabaseSchema() {
+    }
+
+    public static void createAll(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String ddl : TABLES) {
+                stmt.execute(ddl);
+            }
+        }
+        AuditService.getInstance().log("CREATE_SCHEMA: " + TABLES.size() + " tabele");
+    }
+}
@@ -0,0 +1,61 @@
+package main.java.hospital.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Bază de date în memorie, în același proces (H2 în modul MySQL), pentru teste, benchmark-uri și exerciții
+ * de recuperare fără server. Conținutul se pierde la oprirea aplicației.
+ *
+ * Driverul H2 trebuie adăugat pe classpath; numele bazei se poate schimba cu -Dhospital.db.embedded.name.
+ */
+public class EmbeddedBackend implements StorageBackend {
+
+    public static final String NAME = "embedded";
+
+    private static final String DRIVER = "org.h2.Driver";
+
+    // DB_CLOSE_DELAY=-1 păstrează datele și când pool-ul rămâne temporar fără conexiuni deschise
+    private static final String URL_TEMPLATE =
+            "jdbc:h2:mem:%s;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=DATE;DB_CLOSE_DELAY=-1";
+
+    @Override
+    public String getName() { return NAME; }
+
+    @Override
+    public String getUrl() {
+        return String.format(URL_TEMPLATE, System.getProperty("hospital.db.embedded.name", "hospital"));
+    }
+
+    @Override
+    public String getUser() { return "sa"; }
+
+    @Override
+    public String getPassword() { return ""; }
+
+    /**
+     * Driverul H2 este o dependență opțională (h2-2.2.224.jar); fără el backend-ul nu poate porni.
+     */
+    public static boolean isDriverAvailable() {
+        try {
+            Class.forName(DRIVER);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Baza pornește goală, deci schema se creează la fiecare pornire.
+     */
+    @Override
+    public void initialize(ConnectionPool pool) throws SQLException {
+        // verificăm driverul întâi, ca eroarea să spună ce lipsește
+        if (!isDriverAvailable()) {
+            throw new SQLException("Driverul H2 (" + DRIVER + ") lipsește de pe classpath");
+        }
+        try (Connection conn = pool.borrow()) {
+            DatabaseSchema.createAll(conn);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package main.java.hospital.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Hartă de identitate comună tuturor serviciilor: pentru aceeași pereche (tip, id)
+ * toate serviciile primesc aceeași instanță.
+ *
+ * Instanțele înregistrate cu put() de serviciul care le deține sunt fixate și nu se elimină niciodată
+ * (serviciul le ține oricum în memorie), ca resolve() să nu poată crea o a doua instanță pentru ele.
+ * Partea fixată nu are limită intenționat: crește doar cât listele serviciilor, iar serviciile o eliberează
+ * cu invalidate() la ștergere și cu clear(tip) la reîncărcare. Doar copiile create prin resolve(), pentru entități pe care niciun serviciu
+ * nu le-a încărcat, sunt limitate (-Dhospital.cache.maxEntries) și se elimină cele mai puțin folosite (LRU).
+ */
+public class EntityCache {
+
+    private static final int MAX_ENTRIES = Integer.getInteger("hospital.cache.maxEntries", 200_000);
+
+    private static EntityCache instance;
+
+    private final Map<Key, Object> owned = new HashMap<>();
+    private final Map<Key, Object> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private EntityCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static synchronized EntityCache getInstance() {
+        if (instance == null) {
+            instance = new EntityCache(MAX_ENTRIES);
+        }
+        return instance;
+    }
+
+    public synchronized <T> T get(Class<T> type, int id) {
+        Key key = new Key(type, id);
+        Object value = owned.get(key);
+        if (value == null) {
+            value = entries.get(key);
+        }
+        if (value != null) {
+            hits++;
+            return type.cast(value);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Întoarce instanța din cache sau o construiește cu loader-ul și o înregistrează.
+     * Loader-ul rulează sub lock, deci trebuie să fie ieftin (fără acces la DB).
+     */
+    public synchronized <T> T resolve(Class<T> type, int id, Supplier<? extends T> loader) {
+        T cached = get(type, id);
+        if (cached != null) {
+            return cached;
+        }
+        T created = loader.get();
+        if (created != null) {
+            entries.put(new Key(type, id), created);
+        }
+        return created;
+    }
+
+    // Serviciul care deține entitatea (încărcare, adăugare, actualizare) fixează instanța canonică
+    public synchronized <T> T put(Class<T> type, int id, T entity) {
+        Key key = new Key(type, id);
+        entries.remove(key);
+        owned.put(key, Objects.requireNonNull(entity));
+        return entity;
+    }
+
+    public synchronized void invalidate(Class<?> type, int id) {
+        Key key = new Key(type, id);
+        owned.remove(key);
+        entries.remove(key);
+    }
+
+    // Doar copiile nefixate; instanțele ținute de servicii se scot cu invalidate()
+    public synchronized void invalidateAll(Class<?> type) {
+        entries.keySet().removeIf(key -> key.type == type);
+    }
+
+    // La reîncărcarea unui serviciu: instanțele vechi nu mai sunt ținute de el, deci nu mai sunt fixate
+    public synchronized void clear(Class<?> type) {
+        owned.keySet().removeIf(key -> key.type == type);
+        entries.keySet().removeIf(key -> key.type == type);
+    }
+
+    public synchronized void clear() {
+        owned.clear();
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return owned.size() + entries.size();
+    }
+
+    public synchronized int getOwnedCount() {
+        return owned.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return "EntityCache{" +
+                "fixate=" + owned.size() +
+                ", copii=" + entries.size() + "/" + MAX_ENTRIES +
+                ", hit=" + hits +
+                ", miss=" + misses +
+                ", rată hit=" + (lookups == 0 ? "-" : String.format("%.1f%%", 100.0 * hits / lookups)) +
+                ", evacuări=" + evictions +
+                '}';
+    }
+
+    private static final class Key {
+        private final Class<?> type;
+        private final int id;
+
+        Key(Class<?> type, int id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return id == other.id && type == other.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + id;
+        }
+    }
+}
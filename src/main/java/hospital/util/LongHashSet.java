@@ -0,0 +1,42 @@
+package main.java.hospital.util;
+
+/**
+ * Mulțime de valori long în heap, fără boxing: 8 octeți per slot față de ~60 pentru un String într-un HashSet.
+ * Nu este sincronizată - apelantul se ocupă de acces concurent.
+ */
+public class LongHashSet extends AbstractLongHashSet {
+
+    private long[] slots;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        slots = new long[capacityFor(expectedSize)];
+    }
+
+    @Override
+    protected int capacity() {
+        return slots.length;
+    }
+
+    @Override
+    protected long slot(int index) {
+        return slots[index];
+    }
+
+    @Override
+    protected void setSlot(int index, long value) {
+        slots[index] = value;
+    }
+
+    @Override
+    protected void resize(int newCapacity) {
+        long[] old = slots;
+        slots = new long[newCapacity];
+        for (long value : old) {
+            if (value != EMPTY) insertFresh(value);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package main.java.hospital.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Variantă off-heap a LongHashSet: sloturile stau într-un fișier mapat în memorie, deci mulțimea nu ocupă heap
+ * și se regăsește la repornire fără a fi reconstruită.
+ *
+ * Antet (64 octeți): magic, capacitate, size, containsZero, dirty, mark. La prima modificare după force()
+ * antetul e marcat dirty; force() scrie sloturile pe disc și abia apoi șterge marcajul, împreună cu un
+ * "mark" ales de apelant (ex: lungimea jurnalului). Un fișier rămas dirty după o oprire bruscă nu e de încredere.
+ */
+public class MappedLongHashSet extends AbstractLongHashSet implements AutoCloseable {
+
+    private static final long MAGIC = 0x434E505345543031L; // "CNPSET01"
+    private static final int HEADER_BYTES = 64;
+    private static final int MAX_CAPACITY = 1 << 27; // un singur MappedByteBuffer are cel mult 2 GB
+
+    private static final int OFF_MAGIC = 0;
+    private static final int OFF_CAPACITY = 8;
+    private static final int OFF_SIZE = 12;
+    private static final int OFF_ZERO = 16;
+    private static final int OFF_DIRTY = 20;
+    private static final int OFF_MARK = 24;
+
+    private final Path file;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private boolean dirty;
+    private boolean recovered;
+
+    public MappedLongHashSet(Path file, int expectedSize) throws IOException {
+        this.file = file;
+        if (Files.exists(file) && Files.size(file) >= HEADER_BYTES && readHeader()) {
+            return;
+        }
+        Files.deleteIfExists(file); // fișier vechi sau invalid - se pornește de la zero
+        capacity = capacityFor(expectedSize);
+        buffer = map(file, capacity);
+        buffer.putLong(OFF_MAGIC, MAGIC);
+        buffer.putInt(OFF_CAPACITY, capacity);
+        writeHeader(-1L);
+    }
+
+    private boolean readHeader() throws IOException {
+        MappedByteBuffer header;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        }
+        int storedCapacity = header.getInt(OFF_CAPACITY);
+        if (header.getLong(OFF_MAGIC) != MAGIC || Integer.bitCount(storedCapacity) != 1
+                || Files.size(file) != HEADER_BYTES + (long) storedCapacity * Long.BYTES) {
+            return false;
+        }
+        capacity = storedCapacity;
+        buffer = map(file, capacity);
+        size = buffer.getInt(OFF_SIZE);
+        containsZero = buffer.getInt(OFF_ZERO) != 0;
+        recovered = buffer.getInt(OFF_DIRTY) == 0;
+        return true;
+    }
+
+    /**
+     * True dacă fișierul exista și fusese închis curat (ultimul force() nu a fost urmat de modificări pierdute).
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    public long getMark() {
+        return recovered ? buffer.getLong(OFF_MARK) : -1L;
+    }
+
+    /**
+     * Scrie sloturile pe disc, apoi antetul curat cu marcajul dat.
+     */
+    public void force(long mark) {
+        buffer.force();
+        writeHeader(mark);
+        dirty = false;
+    }
+
+    @Override
+    public void close() {
+        if (dirty) force(buffer.getLong(OFF_MARK));
+    }
+
+    @Override
+    protected int capacity() {
+        return capacity;
+    }
+
+    @Override
+    protected long slot(int index) {
+        return buffer.getLong(HEADER_BYTES + (index << 3));
+    }
+
+    @Override
+    protected void setSlot(int index, long value) {
+        markDirty();
+        buffer.putLong(HEADER_BYTES + (index << 3), value);
+    }
+
+    @Override
+    public boolean add(long value) {
+        markDirty();
+        return super.add(value);
+    }
+
+    @Override
+    public boolean remove(long value) {
+        markDirty();
+        return super.remove(value);
+    }
+
+    // Sloturile noi se construiesc într-un fișier temporar care îl înlocuiește atomic pe cel vechi
+    @Override
+    protected void resize(int newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Mulțimea mapată a atins capacitatea maximă: " + capacity);
+        }
+        try {
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            MappedByteBuffer old = buffer;
+            int oldCapacity = capacity;
+            buffer = map(tmp, newCapacity);
+            capacity = newCapacity;
+            buffer.putLong(OFF_MAGIC, MAGIC);
+            buffer.putInt(OFF_CAPACITY, newCapacity);
+            buffer.putInt(OFF_DIRTY, 1);
+            for (int i = 0; i < oldCapacity; i++) {
+                long value = old.getLong(HEADER_BYTES + (i << 3));
+                if (value != EMPTY) insertFresh(value);
+            }
+            buffer.force();
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Redimensionare eșuată pentru " + file, e);
+        }
+    }
+
+    private void markDirty() {
+        if (dirty) return;
+        buffer.putInt(OFF_DIRTY, 1);
+        buffer.force(0, HEADER_BYTES); // marcajul trebuie să ajungă pe disc înaintea oricărui slot modificat
+        dirty = true;
+    }
+
+    private void writeHeader(long mark) {
+        buffer.putInt(OFF_SIZE, size);
+        buffer.putInt(OFF_ZERO, containsZero ? 1 : 0);
+        buffer.putLong(OFF_MARK, mark);
+        buffer.putInt(OFF_DIRTY, 0);
+        buffer.force(0, HEADER_BYTES);
+    }
+
+    private static MappedByteBuffer map(Path file, int capacity) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long bytes = HEADER_BYTES + (long) capacity * Long.BYTES;
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+}
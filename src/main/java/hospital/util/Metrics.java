@@ -0,0 +1,239 @@
+package main.java.hospital.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registru în proces pentru metrici: pentru fiecare operație, număr de apeluri, număr de erori
+ * și histogramă de latență.
+ *
+ * Metodele publice din servicii deschid un Scope ("Serviciu.metodă"); timpul petrecut în JDBC
+ * (execuții de statement-uri, măsurate în ConnectionPool) se înregistrează separat, sub
+ * "jdbc:Serviciu.metodă", deci diferența dintre cele două este timpul petrecut în memorie.
+ * O eroare JDBC marchează ca eșuat și scope-ul care a produs-o, chiar dacă serviciul o prinde.
+ */
+public class Metrics {
+
+    private static final Metrics INSTANCE = new Metrics();
+    private static final ThreadLocal<Deque<Scope>> ACTIVE = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final boolean ENABLED = !Boolean.getBoolean("hospital.metrics.disabled");
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Începe măsurarea unei operații; se folosește în try-with-resources.
+     */
+    public static Scope scope(String name) {
+        if (!ENABLED) return Scope.NOOP;
+        Scope scope = new Scope(INSTANCE.timer(name));
+        ACTIVE.get().push(scope);
+        return scope;
+    }
+
+    /**
+     * Marchează ca eșuată operația curentă a firului (cea mai interioară), dacă există.
+     */
+    public static void markError() {
+        Scope current = ACTIVE.get().peek();
+        if (current != null) current.failed = true;
+    }
+
+    /**
+     * Timp petrecut într-un apel JDBC, atribuit operației curente a firului.
+     */
+    public static void recordJdbc(long nanos, boolean failed) {
+        if (!ENABLED) return;
+        Scope current = ACTIVE.get().peek();
+        String owner = current == null ? "jdbc:(în afara serviciilor)" : "jdbc:" + current.timer.name;
+        INSTANCE.timer(owner).record(nanos, failed);
+        if (failed && current != null) current.failed = true;
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    public List<Timer> getTimers() {
+        List<Timer> snapshot = new ArrayList<>(timers.values());
+        snapshot.sort(Comparator.comparing(Timer::getName));
+        return snapshot;
+    }
+
+    public void reset() {
+        timers.values().forEach(Timer::reset);
+    }
+
+    public void printReport() {
+        System.out.println("=== METRICI OPERAȚII (ms) ===");
+        System.out.printf("%-58s %9s %6s %9s %9s %9s %9s %9s%n", "operație", "apeluri", "erori", "medie", "p50", "p99", "p99.9", "max");
+        for (Timer t : getTimers()) {
+            if (t.getCount() == 0) continue;
+            LatencyHistogram h = t.histogram;
+            System.out.printf("%-58s %9d %6d %9.3f %9.3f %9.3f %9.3f %9.3f%n", t.name, t.getCount(), t.getErrors(),
+                    h.getMeanNanos() / 1e6, h.getPercentileNanos(50) / 1e6, h.getPercentileNanos(99) / 1e6,
+                    h.getPercentileNanos(99.9) / 1e6, h.getMaxNanos() / 1e6);
+        }
+        ConnectionPool pool = DatabaseConnection.getPool();
+        System.out.println("Backend stocare: " + DatabaseConnection.getBackend().getName());
+        System.out.println(pool);
+        System.out.println(EntityCache.getInstance());
+        System.out.println("AuditService{în coadă=" + AuditService.getInstance().getQueuedCount()
+                + ", pierdute=" + AuditService.getInstance().getDroppedCount() + "}");
+        System.out.println(WriteBehindQueue.getInstance());
+    }
+
+    /**
+     * Toate metricile (operații, pool de conexiuni, cache, audit, write-behind) ca JSON; latențele sunt în milisecunde.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("{\n  \"generatedAt\": \"")
+                .append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append("\",\n");
+        sb.append("  \"storageBackend\": \"").append(escape(DatabaseConnection.getBackend().getName())).append("\",\n");
+
+        sb.append("  \"operations\": {");
+        boolean first = true;
+        for (Timer t : getTimers()) {
+            if (t.getCount() == 0) continue;
+            LatencyHistogram h = t.histogram;
+            sb.append(first ? "\n" : ",\n").append("    \"").append(escape(t.name)).append("\": {")
+                    .append("\"count\": ").append(t.getCount())
+                    .append(", \"errors\": ").append(t.getErrors())
+                    .append(", \"meanMs\": ").append(millis(Math.round(h.getMeanNanos())))
+                    .append(", \"p50Ms\": ").append(millis(h.getPercentileNanos(50)))
+                    .append(", \"p90Ms\": ").append(millis(h.getPercentileNanos(90)))
+                    .append(", \"p99Ms\": ").append(millis(h.getPercentileNanos(99)))
+                    .append(", \"p999Ms\": ").append(millis(h.getPercentileNanos(99.9)))
+                    .append(", \"maxMs\": ").append(millis(h.getMaxNanos()))
+                    .append('}');
+            first = false;
+        }
+        sb.append(first ? "},\n" : "\n  },\n");
+
+        ConnectionPool pool = DatabaseConnection.getPool();
+        sb.append("  \"connectionPool\": {")
+                .append("\"active\": ").append(pool.getActiveCount())
+                .append(", \"idle\": ").append(pool.getIdleCount())
+                .append(", \"total\": ").append(pool.getTotalCount())
+                .append(", \"max\": ").append(pool.getMaxSize())
+                .append(", \"borrows\": ").append(pool.getBorrowCount())
+                .append(", \"borrowTimeouts\": ").append(pool.getBorrowTimeouts())
+                .append(", \"leaks\": ").append(pool.getLeakCount())
+                .append(", \"statementCacheHits\": ").append(pool.getStatementCacheHits())
+                .append(", \"statementCacheMisses\": ").append(pool.getStatementCacheMisses())
+                .append(", \"statementCacheEvictions\": ").append(pool.getStatementCacheEvictions())
+                .append(", \"statementCacheHitRate\": ").append(String.format(Locale.ROOT, "%.1f", pool.getStatementCacheHitRate()))
+                .append("},\n");
+
+        EntityCache cache = EntityCache.getInstance();
+        sb.append("  \"entityCache\": {")
+                .append("\"size\": ").append(cache.size())
+                .append(", \"owned\": ").append(cache.getOwnedCount())
+                .append(", \"hits\": ").append(cache.getHits())
+                .append(", \"misses\": ").append(cache.getMisses())
+                .append(", \"evictions\": ").append(cache.getEvictions())
+                .append("},\n");
+
+        AuditService audit = AuditService.getInstance();
+        sb.append("  \"audit\": {")
+                .append("\"queued\": ").append(audit.getQueuedCount())
+                .append(", \"dropped\": ").append(audit.getDroppedCount())
+                .append("},\n");
+
+        WriteBehindQueue writeBehind = WriteBehindQueue.getInstance();
+        sb.append("  \"writeBehind\": {")
+                .append("\"enabled\": ").append(writeBehind.isEnabled())
+                .append(", \"pending\": ").append(writeBehind.getPendingCount())
+                .append(", \"submitted\": ").append(writeBehind.getSubmittedCount())
+                .append(", \"coalesced\": ").append(writeBehind.getCoalescedCount())
+                .append(", \"flushedRows\": ").append(writeBehind.getFlushedRowCount())
+                .append(", \"batches\": ").append(writeBehind.getBatchCount())
+                .append(", \"failures\": ").append(writeBehind.getFailureCount())
+                .append(", \"rejected\": ").append(writeBehind.getRejectedCount())
+                .append("}\n}\n");
+        return sb.toString();
+    }
+
+    public void exportJson(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Files.writeString(file, toJson(), StandardCharsets.UTF_8);
+        AuditService.getInstance().log("EXPORT_METRICS: " + file);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    public static final class Timer {
+        private final String name;
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        public void record(long nanos, boolean failed) {
+            histogram.record(nanos);
+            if (failed) errors.increment();
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return histogram.getCount(); }
+        public long getErrors() { return errors.sum(); }
+        public LatencyHistogram getHistogram() { return histogram; }
+
+        void reset() {
+            histogram.reset();
+            errors.reset();
+        }
+    }
+
+    public static class Scope implements AutoCloseable {
+        private static final Scope NOOP = new Scope(null);
+
+        private final Timer timer;
+        private final long start;
+        private boolean failed;
+
+        private Scope(Timer timer) {
+            this.timer = timer;
+            this.start = timer == null ? 0 : System.nanoTime();
+        }
+
+        public void fail() {
+            failed = true;
+        }
+
+        @Override
+        public void close() {
+            if (timer == null) return;
+            timer.record(System.nanoTime() - start, failed);
+            Deque<Scope> active = ACTIVE.get();
+            // normal e chiar vârful stivei; altfel se curăță tot ce a rămas deasupra
+            while (!active.isEmpty() && active.pop() != this) {
+                // scope interior neînchis
+            }
+        }
+    }
+}
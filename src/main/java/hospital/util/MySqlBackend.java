@@ -0,0 +1,29 @@
+package main.java.hospital.util;
+
+/**
+ * Serverul MySQL al spitalului; schema este întreținută separat, deci nu se creează nimic la pornire.
+ */
+public class MySqlBackend implements StorageBackend {
+
+    public static final String NAME = "mysql";
+
+    private static final String URL = "jdbc:mysql://localhost:3306/hospital_db?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC&useCursorFetch=true&rewriteBatchedStatements=true";
+    private static final String USER = "root";     // modifică dacă e alt user
+    private static final String PASSWORD = "1234"; // modifică dacă ai altă parolă
+
+    @Override
+    public String getName() { return NAME; }
+
+    @Override
+    public String getUrl() { return System.getProperty("hospital.db.url", URL); }
+
+    @Override
+    public String getUser() { return System.getProperty("hospital.db.user", USER); }
+
+    @Override
+    public String getPassword() { return System.getProperty("hospital.db.password", PASSWORD); }
+
+    @Override
+    public void initialize(ConnectionPool pool) {
+    }
+}
@@ -0,0 +1,88 @@
+package main.java.hospital.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Coadă circulară limitată, fără lock-uri (algoritmul cu secvențe per celulă).
+ * Mai mulți producători pot adăuga în paralel; offer() nu blochează niciodată,
+ * ci întoarce false când coada este plină, iar politica de back-pressure rămâne la apelant.
+ */
+public class RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    public RingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Capacitatea trebuie să fie cel puțin 2.");
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1; // următoarea putere a lui 2
+        this.items = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(E item) {
+        if (item == null) {
+            throw new NullPointerException("Elementul nu poate fi null.");
+        }
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items.set(index, item);
+                    sequences.set(index, pos + 1); // publică elementul pentru consumator
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // plină
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    public E poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E item = items.get(index);
+                    items.set(index, null);
+                    sequences.set(index, pos + mask + 1); // eliberează celula pentru următoarea tură
+                    return item;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null; // goală
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head.get(), capacity()));
+    }
+
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,163 @@
+package main.java.hospital.util;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Graf de etape pentru pornirea aplicației.
+ * Fiecare etapă își declară dependențele; etapele independente rulează în paralel
+ * pe un executor limitat (-Dhospital.bootstrap.threads), iar o etapă înregistrată
+ * de mai multe ori sub același nume rulează o singură dată.
+ */
+public class StartupGraph {
+
+    private static final int THREADS = Integer.getInteger("hospital.bootstrap.threads",
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())));
+
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+    private long totalNanos;
+
+    public StartupGraph stage(String name, Runnable loader, String... dependsOn) {
+        if (stages.containsKey(name)) {
+            AuditService.getInstance().log("BOOTSTRAP_DUPLICATE_STAGE_SKIPPED: " + name);
+            return this;
+        }
+        stages.put(name, new Stage(name, loader, Arrays.asList(dependsOn)));
+        return this;
+    }
+
+    /**
+     * Rulează toate etapele respectând dependențele și așteaptă terminarea lor.
+     * Dacă o etapă eșuează, etapele care depind de ea nu mai pornesc.
+     */
+    public void run() {
+        List<String> order = topologicalOrder();
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread t = new Thread(r, "hospital-bootstrap-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.nanoTime();
+        try {
+            Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+            for (String name : order) {
+                Stage stage = stages.get(name);
+                CompletableFuture<?>[] deps = stage.dependsOn.stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                futures.put(name, CompletableFuture.allOf(deps)
+                        .thenRunAsync(() -> stage.execute(start), executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture<?>[]::new)).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IllegalStateException("Pornirea a eșuat: " + cause.getMessage(), cause);
+        } finally {
+            totalNanos = System.nanoTime() - start;
+            executor.shutdown();
+            AuditService.getInstance().log("BOOTSTRAP_COMPLETED: " + stages.size() + " etape, "
+                    + TimeUnit.NANOSECONDS.toMillis(totalNanos) + " ms");
+        }
+    }
+
+    // Ordonare Kahn; aruncă excepție pentru dependențe lipsă sau cicluri
+    private List<String> topologicalOrder() {
+        Map<String, Integer> inDegree = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (Stage stage : stages.values()) {
+            inDegree.putIfAbsent(stage.name, 0);
+            for (String dep : stage.dependsOn) {
+                if (!stages.containsKey(dep)) {
+                    throw new IllegalStateException("Etapa '" + stage.name + "' depinde de etapa inexistentă '" + dep + "'.");
+                }
+                inDegree.merge(stage.name, 1, Integer::sum);
+                dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(stage.name);
+            }
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        for (String name : stages.keySet()) {
+            if (inDegree.get(name) == 0) ready.add(name);
+        }
+
+        List<String> order = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            String name = ready.poll();
+            order.add(name);
+            for (String next : dependents.getOrDefault(name, List.of())) {
+                if (inDegree.merge(next, -1, Integer::sum) == 0) {
+                    ready.add(next);
+                }
+            }
+        }
+
+        if (order.size() != stages.size()) {
+            throw new IllegalStateException("Dependențe circulare între etapele de pornire.");
+        }
+        return order;
+    }
+
+    /**
+     * Afișează, pentru fiecare etapă, momentul pornirii, durata și firul pe care a rulat.
+     */
+    public void printReport() {
+        System.out.println("⏱️ Etape de pornire (" + THREADS + " fire):");
+        long sum = 0;
+        List<Stage> byStart = new ArrayList<>(stages.values());
+        byStart.sort(Comparator.comparingLong(s -> s.startOffsetNanos));
+        for (Stage stage : byStart) {
+            sum += stage.durationNanos;
+            System.out.printf("   %-22s +%5d ms  %6d ms  %s%s%n",
+                    stage.name,
+                    TimeUnit.NANOSECONDS.toMillis(stage.startOffsetNanos),
+                    TimeUnit.NANOSECONDS.toMillis(stage.durationNanos),
+                    stage.threadName != null ? stage.threadName : "-",
+                    stage.failed ? "  ❌" : "");
+        }
+        System.out.printf("   Total: %d ms (suma etapelor: %d ms)%n",
+                TimeUnit.NANOSECONDS.toMillis(totalNanos), TimeUnit.NANOSECONDS.toMillis(sum));
+    }
+
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+    }
+
+    private static final class Stage {
+        private final String name;
+        private final Runnable loader;
+        private final List<String> dependsOn;
+        private volatile long startOffsetNanos;
+        private volatile long durationNanos;
+        private volatile String threadName;
+        private volatile boolean failed;
+
+        Stage(String name, Runnable loader, List<String> dependsOn) {
+            this.name = name;
+            this.loader = loader;
+            this.dependsOn = dependsOn;
+        }
+
+        void execute(long graphStart) {
+            long start = System.nanoTime();
+            startOffsetNanos = start - graphStart;
+            threadName = Thread.currentThread().getName();
+            try {
+                loader.run();
+            } catch (RuntimeException e) {
+                failed = true;
+                System.err.println("❌ Eroare la etapa de pornire " + name + ": " + e.getMessage());
+                throw e;
+            } finally {
+                durationNanos = System.nanoTime() - start;
+            }
+        }
+    }
+}
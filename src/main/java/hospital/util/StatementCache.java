@@ -0,0 +1,127 @@
+package main.java.hospital.util;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de PreparedStatement-uri pentru o singură conexiune fizică din pool.
+ *
+ * În cache stau doar statement-urile libere: checkout() scoate statement-ul din cache cât timp este folosit,
+ * checkin() îl curăță și îl pune la loc. Dacă aceeași interogare este deschisă de două ori în paralel pe
+ * conexiune, al doilea statement este creat separat, iar la checkin() cel în plus se închide.
+ * Statement-ul cel mai vechi nefolosit se închide când cache-ul depășește dimensiunea maximă.
+ */
+final class StatementCache {
+
+    private final int maxSize;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+    private final Map<String, PreparedStatement> idle;
+
+    StatementCache(int maxSize, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.idle = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Cheia unei variante de prepareStatement: textul SQL plus opțiunile care schimbă statement-ul creat.
+     */
+    static String key(String sql, int... options) {
+        StringBuilder sb = new StringBuilder(sql.length() + 16);
+        for (int option : options) {
+            sb.append(option).append(':');
+        }
+        return sb.append(sql).toString();
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Statement-ul liber pentru cheie sau null dacă trebuie pregătit unul nou.
+     */
+    synchronized PreparedStatement checkout(String key) {
+        PreparedStatement statement = idle.remove(key);
+        if (statement != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return statement;
+    }
+
+    /**
+     * Readuce statement-ul în starea inițială și îl pune în cache; dacă nu se poate, îl închide.
+     */
+    void checkin(String key, PreparedStatement statement) {
+        try {
+            // un ResultSet lăsat deschis ar ține cursorul pe server
+            ResultSet current = statement.getResultSet();
+            if (current != null) {
+                current.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.setFetchSize(0);
+            statement.setMaxRows(0);
+            statement.setQueryTimeout(0);
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+
+        PreparedStatement duplicate;
+        List<PreparedStatement> evicted = new ArrayList<>();
+        synchronized (this) {
+            duplicate = idle.putIfAbsent(key, statement) == null ? null : statement;
+            Iterator<PreparedStatement> oldest = idle.values().iterator();
+            while (idle.size() > maxSize && oldest.hasNext()) {
+                evicted.add(oldest.next());
+                oldest.remove();
+            }
+        }
+        if (duplicate != null) {
+            closeQuietly(duplicate);
+        }
+        for (PreparedStatement stale : evicted) {
+            evictions.incrementAndGet();
+            closeQuietly(stale);
+        }
+    }
+
+    synchronized int size() {
+        return idle.size();
+    }
+
+    /**
+     * Închide toate statement-urile din cache (la închiderea conexiunii fizice).
+     */
+    void clear() {
+        List<PreparedStatement> statements;
+        synchronized (this) {
+            statements = new ArrayList<>(idle.values());
+            idle.clear();
+        }
+        statements.forEach(StatementCache::closeQuietly);
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // conexiunea fizică este probabil deja închisă
+        }
+    }
+}
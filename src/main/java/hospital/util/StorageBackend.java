@@ -0,0 +1,37 @@
+package main.java.hospital.util;
+
+import java.sql.SQLException;
+
+/**
+ * Sursa de stocare din spatele serviciilor. Serviciile lucrează doar cu conexiunile din pool,
+ * așa că orice backend JDBC poate fi folosit fără să le modificăm.
+ *
+ * Se alege la pornire cu -Dhospital.db.backend=mysql|embedded (implicit mysql).
+ */
+public interface StorageBackend {
+
+    String getName();
+
+    String getUrl();
+
+    String getUser();
+
+    String getPassword();
+
+    /**
+     * Pregătește baza de date după crearea pool-ului (de ex. creează schema); apelat o singură dată.
+     */
+    void initialize(ConnectionPool pool) throws SQLException;
+
+    static StorageBackend fromSystemProperties() {
+        String name = System.getProperty("hospital.db.backend", MySqlBackend.NAME);
+        switch (name.trim().toLowerCase()) {
+            case MySqlBackend.NAME:
+                return new MySqlBackend();
+            case EmbeddedBackend.NAME:
+                return new EmbeddedBackend();
+            default:
+                throw new IllegalArgumentException("Backend de stocare necunoscut: " + name);
+        }
+    }
+}
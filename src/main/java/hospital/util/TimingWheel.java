@@ -0,0 +1,157 @@
+package main.java.hospital.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Roată de timp ierarhică: 3 niveluri a câte 64 de sloturi (1, 64 și 4096 de tick-uri pe slot),
+ * plus o listă de depășire pentru ce este mai departe de 262144 de tick-uri.
+ *
+ * schedule() este O(1); la avansare, un slot de pe nivelul superior se redistribuie pe nivelurile de jos
+ * doar când timpul intră în intervalul lui, deci fiecare element este mutat de cel mult 3 ori.
+ * Elementele programate la un tick deja trecut sunt restante și se declanșează primele, în ordinea tick-urilor.
+ * Nu este thread-safe.
+ */
+public class TimingWheel<E> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+
+    // Sloturile tuturor nivelurilor, la index nivel * SLOTS + slot; create la prima folosire
+    private final List<List<Entry<E>>> slots = new ArrayList<>(LEVELS * SLOTS);
+    private final TreeMap<Long, List<E>> overdue = new TreeMap<>();
+    private List<Entry<E>> overflow = new ArrayList<>();
+    private long current;
+    private int size;
+
+    /**
+     * @param currentTick ultimul tick considerat deja procesat
+     */
+    public TimingWheel(long currentTick) {
+        this.current = currentTick;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(null);
+        }
+    }
+
+    public void schedule(long tick, E item) {
+        place(new Entry<>(tick, item));
+        size++;
+    }
+
+    /**
+     * Avansează până la tick-ul dat (inclusiv) și trimite elementele scadente, grupate pe tick, către sink.
+     * Restanțele se trimit primele. Elementele programate din sink la un tick deja atins se trimit în aceeași rulare.
+     *
+     * @return numărul de elemente declanșate
+     */
+    public int advanceTo(long tick, BiConsumer<Long, List<E>> sink) {
+        int fired = drainOverdue(sink);
+        while (current < tick) {
+            current++;
+            cascade();
+
+            int index = (int) (current & MASK);
+            List<Entry<E>> slot = slots.get(index);
+            if (slot != null) {
+                slots.set(index, null);
+                List<E> due = new ArrayList<>(slot.size());
+                for (Entry<E> entry : slot) {
+                    if (entry.tick == current) {
+                        due.add(entry.item);
+                    } else {
+                        place(entry);
+                    }
+                }
+                if (!due.isEmpty()) {
+                    size -= due.size();
+                    fired += due.size();
+                    sink.accept(current, due);
+                }
+            }
+            fired += drainOverdue(sink);
+        }
+        return fired;
+    }
+
+    public long getCurrentTick() {
+        return current;
+    }
+
+    public boolean hasOverdue() {
+        return !overdue.isEmpty();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void place(Entry<E> entry) {
+        long delta = entry.tick - current;
+        if (delta <= 0) {
+            overdue.computeIfAbsent(entry.tick, k -> new ArrayList<>()).add(entry.item);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if (delta < 1L << (shift + SLOT_BITS)) {
+                int index = level * SLOTS + (int) ((entry.tick >> shift) & MASK);
+                List<Entry<E>> slot = slots.get(index);
+                if (slot == null) {
+                    slot = new ArrayList<>();
+                    slots.set(index, slot);
+                }
+                slot.add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    // La începutul fiecărui interval al unui nivel, slotul lui se împarte pe nivelurile de dedesubt
+    private void cascade() {
+        if ((current & MASK) != 0) return;
+
+        if ((current & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0 && !overflow.isEmpty()) {
+            List<Entry<E>> moved = overflow;
+            overflow = new ArrayList<>();
+            moved.forEach(this::place);
+        }
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            int shift = SLOT_BITS * level;
+            if ((current & ((1L << shift) - 1)) != 0) continue;
+            int index = level * SLOTS + (int) ((current >> shift) & MASK);
+            List<Entry<E>> moved = slots.get(index);
+            if (moved != null) {
+                slots.set(index, null);
+                moved.forEach(this::place);
+            }
+        }
+    }
+
+    private int drainOverdue(BiConsumer<Long, List<E>> sink) {
+        int fired = 0;
+        Map.Entry<Long, List<E>> next;
+        while ((next = overdue.pollFirstEntry()) != null) {
+            size -= next.getValue().size();
+            fired += next.getValue().size();
+            sink.accept(next.getKey(), next.getValue());
+        }
+        return fired;
+    }
+
+    private static final class Entry<E> {
+        private final long tick;
+        private final E item;
+
+        Entry(long tick, E item) {
+            this.tick = tick;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,561 @@
+package main.java.hospital.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coadă write-behind pentru actualizările de câmpuri (-Dhospital.db.writeBehind=true).
+ *
+ * Serviciile modifică modelul din memorie imediat, iar UPDATE-ul ajunge aici: modificările aceluiași rând
+ * se combină (mai multe câmpuri editate ale unui pacient devin un singur UPDATE) și se trimit în loturi JDBC,
+ * la flushIntervalMs sau când se strâng batchSize rânduri. Fiecare modificare este scrisă și sincronizată
+ * (fsync) în jurnal înainte ca submit() să returneze, iar la pornire jurnalul rămas este aplicat în baza de date.
+ */
+@SuppressWarnings("try")
+public class WriteBehindQueue {
+
+    private static WriteBehindQueue instance;
+
+    // Setări - pot fi suprascrise cu -Dhospital.db.writeBehind.* la pornire
+    private static final boolean ENABLED = Boolean.getBoolean("hospital.db.writeBehind");
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("hospital.db.writeBehind.flushIntervalMs", 500L);
+    private static final int BATCH_SIZE = Integer.getInteger("hospital.db.writeBehind.batchSize", 256);
+    private static final Path JOURNAL_PATH =
+            Paths.get(System.getProperty("hospital.db.writeBehind.journal", "data/write_behind.journal"));
+    // Rândurile respinse definitiv de baza de date, în formatul jurnalului plus mesajul erorii
+    private static final Path FAILED_PATH =
+            Paths.get(System.getProperty("hospital.db.writeBehind.failedFile", "data/write_behind.failed"));
+
+    // Rândurile cu modificări netrimise, în ordinea primei modificări
+    private final Map<String, PendingRow> pending = new LinkedHashMap<>();
+    private final Map<String, Integer> pendingByTable = new HashMap<>();
+    private final Object flushLock = new Object();
+
+    private FileChannel channel;
+    private Writer journal;
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private WriteBehindQueue() {
+        try {
+            if (ENABLED) {
+                load();
+                compact();
+            } else if (Files.exists(JOURNAL_PATH) && Files.size(JOURNAL_PATH) > 0) {
+                // modul este oprit: doar aplicăm ce a rămas de la o rulare anterioară, fără alte scrieri pe disc
+                load();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Jurnalul write-behind nu poate fi deschis: " + e.getMessage());
+        }
+
+        if (ENABLED) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "hospital-write-behind");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "hospital-write-behind-shutdown"));
+    }
+
+    public static synchronized WriteBehindQueue getInstance() {
+        if (instance == null) {
+            instance = new WriteBehindQueue();
+            // după atribuire: flush() cere o conexiune, iar crearea pool-ului ajunge din nou aici
+            instance.recover();
+        }
+        return instance;
+    }
+
+    // Aplică în baza de date actualizările rămase în jurnal după o oprire bruscă
+    private void recover() {
+        int recovered = getPendingCount();
+        if (recovered > 0) {
+            System.out.println("🔁 Se aplică " + recovered + " actualizări rămase în jurnalul write-behind...");
+            flush();
+        }
+    }
+
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public boolean submit(String table, String keyColumn, Object key, String column, Object value) {
+        Map<String, Object> changes = new LinkedHashMap<>(2);
+        changes.put(column, value);
+        return submit(table, keyColumn, key, changes);
+    }
+
+    /**
+     * Pune modificările rândului (table.keyColumn = key) în coadă. Returnează false dacă modul write-behind
+     * este oprit sau jurnalul nu poate fi scris; în al doilea caz coada tabelului este golită întâi,
+     * ca UPDATE-ul sincron făcut de apelant să nu fie suprascris apoi de o valoare mai veche.
+     */
+    public boolean submit(String table, String keyColumn, Object key, Map<String, Object> changes) {
+        if (!ENABLED || changes.isEmpty()) return false;
+
+        int rows;
+        synchronized (this) {
+            rows = journalAndPut(table, keyColumn, key, changes);
+        }
+        if (rows < 0) {
+            flush(table);
+            return false;
+        }
+        if (rows >= BATCH_SIZE && flusher != null) {
+            flusher.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * Trimite în baza de date modificările în așteptare pentru tabel, dacă există.
+     * Se apelează înainte de citirile din tabel care nu trec prin modelul din memorie.
+     */
+    public void flush(String table) {
+        synchronized (this) {
+            if (!pendingByTable.containsKey(table)) return;
+        }
+        flush();
+    }
+
+    /**
+     * Trimite toate modificările în așteptare, într-o singură tranzacție, grupate pe forma UPDATE-ului.
+     * Dacă tranzacția eșuează, se reîncearcă pe grupuri și apoi rând cu rând; rândurile respinse și la
+     * reîncercare sunt scoase din coadă și trecute în fișierul de eșecuri, ca să nu le blocheze pe celelalte.
+     * Dacă baza de date nu este disponibilă, tot ce nu s-a scris rămâne în coadă (și în jurnal).
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<PendingRow> rows;
+            synchronized (this) {
+                if (pending.isEmpty()) return;
+                rows = new ArrayList<>(pending.values());
+                pending.clear();
+                pendingByTable.clear();
+            }
+
+            Set<PendingRow> done = Collections.newSetFromMap(new IdentityHashMap<>());
+            long rejectedBefore = rejected.get();
+            try (Metrics.Scope scope = Metrics.scope("WriteBehindQueue.flush")) {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    write(conn, rows, done);
+                } catch (SQLException e) {
+                    scope.fail();
+                    failures.incrementAndGet();
+                    System.err.println("❌ Eroare JDBC la trimiterea actualizărilor write-behind: " + e.getMessage());
+                }
+            }
+
+            List<PendingRow> remaining = new ArrayList<>();
+            for (PendingRow row : rows) {
+                if (!done.contains(row)) remaining.add(row);
+            }
+            long written = done.size() - (rejected.get() - rejectedBefore);
+            if (written > 0) {
+                flushedRows.addAndGet(written);
+                AuditService.getInstance().log("WRITE_BEHIND_FLUSH: " + written + " rânduri");
+            }
+
+            synchronized (this) {
+                requeue(remaining);
+                try {
+                    compact();
+                } catch (IOException e) {
+                    // jurnalul vechi rămâne; la repornire se reaplică aceleași valori, fără efect
+                    System.err.println("⚠️ Eroare compactare jurnal write-behind: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Scrie rândurile și le adaugă în done pe cele scrise sau respinse definitiv.
+     * Aruncă excepția doar când conexiunea nu mai poate fi folosită.
+     */
+    private void write(Connection conn, List<PendingRow> rows, Set<PendingRow> done) throws SQLException {
+        Map<String, List<PendingRow>> bySql = groupBySql(rows);
+        try {
+            execute(conn, bySql);
+            done.addAll(rows);
+            return;
+        } catch (SQLException e) {
+            if (isConnectionFailure(conn, e)) throw e;
+        }
+
+        for (List<PendingRow> group : bySql.values()) {
+            if (bySql.size() > 1 && group.size() > 1) {
+                try {
+                    execute(conn, groupBySql(group));
+                    done.addAll(group);
+                    continue;
+                } catch (SQLException e) {
+                    if (isConnectionFailure(conn, e)) throw e;
+                }
+            }
+            for (PendingRow row : group) {
+                try {
+                    execute(conn, groupBySql(List.of(row)));
+                } catch (SQLException e) {
+                    if (isConnectionFailure(conn, e)) throw e;
+                    reject(row, e);
+                }
+                done.add(row);
+            }
+        }
+    }
+
+    // Erorile de conexiune (SQLState 08xxx) nu spun nimic despre date, deci nu resping rânduri
+    private static boolean isConnectionFailure(Connection conn, SQLException e) {
+        if (e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+            return true;
+        }
+        try {
+            return conn.isClosed();
+        } catch (SQLException ignored) {
+            return true;
+        }
+    }
+
+    private void reject(PendingRow row, SQLException e) {
+        rejected.incrementAndGet();
+        String key = row.table + "." + row.keyColumn + "=" + row.key;
+        System.err.println("❌ Actualizare write-behind respinsă (" + key + "): " + e.getMessage());
+        AuditService.getInstance().log("WRITE_BEHIND_REJECTED: " + key + " " + row.columns.keySet() + ": " + e.getMessage());
+
+        try {
+            Path parent = FAILED_PATH.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            try (Writer out = Files.newBufferedWriter(FAILED_PATH, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write("# " + LocalDateTime.now() + " " + encode(e.getMessage()).substring(1) + "\n");
+                for (Map.Entry<String, Object> column : row.columns.entrySet()) {
+                    writeEntry(out, row.table, row.keyColumn, row.key, column.getKey(), column.getValue());
+                }
+            }
+        } catch (IOException io) {
+            System.err.println("⚠️ Eroare scriere fișier eșecuri write-behind: " + io.getMessage());
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getSubmittedCount() { return submitted.get(); }
+    public long getCoalescedCount() { return coalesced.get(); }
+    public long getFlushedRowCount() { return flushedRows.get(); }
+    public long getBatchCount() { return batches.get(); }
+    public long getFailureCount() { return failures.get(); }
+    public long getRejectedCount() { return rejected.get(); }
+
+    /**
+     * Trimite tot ce a rămas și închide jurnalul. Apelată automat la închiderea JVM-ului.
+     */
+    public void close() {
+        if (flusher != null) flusher.shutdown();
+        flush();
+        synchronized (this) {
+            closeJournal();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "WriteBehindQueue{activ=" + ENABLED + ", în așteptare=" + pending.size()
+                + ", trimise=" + submitted.get() + ", combinate=" + coalesced.get()
+                + ", rânduri scrise=" + flushedRows.get() + ", loturi=" + batches.get()
+                + ", erori=" + failures.get() + ", respinse=" + rejected.get() + "}";
+    }
+
+    // Numărul de rânduri în așteptare sau -1 dacă modificarea nu a putut fi scrisă în jurnal
+    private int journalAndPut(String table, String keyColumn, Object key, Map<String, Object> changes) {
+        try {
+            for (Map.Entry<String, Object> change : changes.entrySet()) {
+                writeEntry(journal, table, keyColumn, key, change.getKey(), change.getValue());
+            }
+            journal.flush();
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            System.err.println("⚠️ Eroare scriere jurnal write-behind, se revine la UPDATE sincron: " + e.getMessage());
+            return -1;
+        }
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            put(table, keyColumn, key, change.getKey(), change.getValue());
+        }
+        submitted.incrementAndGet();
+        return pending.size();
+    }
+
+    private void put(String table, String keyColumn, Object key, String column, Object value) {
+        String id = table + '\u0000' + keyColumn + '\u0000' + encode(key);
+        PendingRow row = pending.get(id);
+        if (row == null) {
+            row = new PendingRow(table, keyColumn, key);
+            pending.put(id, row);
+            pendingByTable.merge(table, 1, Integer::sum);
+        }
+        if (row.columns.containsKey(column)) {
+            coalesced.incrementAndGet();
+        }
+        row.columns.put(column, value);
+    }
+
+    // Valorile mai noi, venite cât timp lotul eșuat era în lucru, au prioritate
+    private void requeue(List<PendingRow> rows) {
+        if (rows.isEmpty()) return;
+        long alreadyCoalesced = coalesced.get();
+        Map<String, PendingRow> newer = new LinkedHashMap<>(pending);
+        pending.clear();
+        pendingByTable.clear();
+        for (PendingRow row : rows) {
+            row.columns.forEach((column, value) -> put(row.table, row.keyColumn, row.key, column, value));
+        }
+        for (PendingRow row : newer.values()) {
+            row.columns.forEach((column, value) -> put(row.table, row.keyColumn, row.key, column, value));
+        }
+        coalesced.set(alreadyCoalesced);
+    }
+
+    // Rândurile cu aceleași coloane modificate folosesc același UPDATE
+    private static Map<String, List<PendingRow>> groupBySql(List<PendingRow> rows) {
+        Map<String, List<PendingRow>> bySql = new LinkedHashMap<>();
+        for (PendingRow row : rows) {
+            bySql.computeIfAbsent(row.sql(), k -> new ArrayList<>()).add(row);
+        }
+        return bySql;
+    }
+
+    private void execute(Connection conn, Map<String, List<PendingRow>> bySql) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for (Map.Entry<String, List<PendingRow>> group : bySql.entrySet()) {
+                try (PreparedStatement stmt = conn.prepareStatement(group.getKey())) {
+                    for (PendingRow row : group.getValue()) {
+                        int index = 1;
+                        for (Object value : row.columns.values()) {
+                            bind(stmt, index++, value);
+                        }
+                        bind(stmt, index, row.key);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+            conn.commit();
+            batches.addAndGet(bySql.size());
+        } catch (SQLException e) {
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+                // conexiunea este probabil deja închisă; eroarea inițială contează
+            }
+            throw e;
+        } finally {
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException ignored) {
+                // idem
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+        if (value == null) {
+            stmt.setNull(index, Types.VARCHAR);
+        } else if (value instanceof Integer) {
+            stmt.setInt(index, (Integer) value);
+        } else if (value instanceof Boolean) {
+            stmt.setBoolean(index, (Boolean) value);
+        } else if (value instanceof LocalDateTime) {
+            stmt.setTimestamp(index, Timestamp.valueOf((LocalDateTime) value));
+        } else {
+            stmt.setString(index, value.toString());
+        }
+    }
+
+    // Format jurnal: tabel, coloană cheie, cheie, coloană, valoare - separate prin tab
+    private static void writeEntry(Writer out, String table, String keyColumn, Object key, String column, Object value) throws IOException {
+        out.write(table);
+        out.write('\t');
+        out.write(keyColumn);
+        out.write('\t');
+        out.write(encode(key));
+        out.write('\t');
+        out.write(column);
+        out.write('\t');
+        out.write(encode(value));
+        out.write('\n');
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(JOURNAL_PATH)) return;
+
+        try (BufferedReader reader = Files.newBufferedReader(JOURNAL_PATH, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                if (parts.length != 5) continue; // linie scrisă pe jumătate - submit() nu a confirmat-o
+                try {
+                    put(parts[0], parts[1], decode(parts[2]), parts[3], decode(parts[4]));
+                } catch (RuntimeException e) {
+                    // valoare trunchiată la o oprire bruscă - se ignoră
+                }
+            }
+        }
+    }
+
+    /**
+     * Rescrie jurnalul doar cu modificările încă netrimise; noul fișier îl înlocuiește atomic pe cel vechi.
+     */
+    private void compact() throws IOException {
+        closeJournal();
+        if (!ENABLED && pending.isEmpty()) {
+            Files.deleteIfExists(JOURNAL_PATH);
+            return;
+        }
+        Path parent = JOURNAL_PATH.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, "write_behind", ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = new BufferedWriter(Channels.newWriter(out, StandardCharsets.UTF_8), 1 << 14)) {
+            for (PendingRow row : pending.values()) {
+                for (Map.Entry<String, Object> column : row.columns.entrySet()) {
+                    writeEntry(writer, row.table, row.keyColumn, row.key, column.getKey(), column.getValue());
+                }
+            }
+            writer.flush();
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            openJournal();
+            throw e;
+        }
+        Files.move(tmp, JOURNAL_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openJournal();
+    }
+
+    private void openJournal() throws IOException {
+        channel = FileChannel.open(JOURNAL_PATH, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        journal = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), 1 << 14);
+    }
+
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.flush();
+            channel.force(false);
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("⚠️ Eroare închidere jurnal write-behind: " + e.getMessage());
+        }
+        journal = null;
+        channel = null;
+    }
+
+    // Tipul valorii este păstrat în primul caracter: N(ull), I(nt), B(oolean), T(imestamp), S(tring)
+    private static String encode(Object value) {
+        if (value == null) return "N";
+        if (value instanceof Integer) return "I" + value;
+        if (value instanceof Boolean) return "B" + value;
+        if (value instanceof LocalDateTime) return "T" + value;
+        String text = value.toString();
+        StringBuilder sb = new StringBuilder(text.length() + 1).append('S');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Object decode(String text) {
+        String body = text.substring(1);
+        switch (text.charAt(0)) {
+            case 'N': return null;
+            case 'I': return Integer.parseInt(body);
+            case 'B': return Boolean.parseBoolean(body);
+            case 'T': return LocalDateTime.parse(body);
+            case 'S': break;
+            default: throw new IllegalArgumentException("Tip necunoscut în jurnal: " + text.charAt(0));
+        }
+        StringBuilder sb = new StringBuilder(body.length());
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c != '\\' || i + 1 == body.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = body.charAt(++i);
+            sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+        }
+        return sb.toString();
+    }
+
+    private static final class PendingRow {
+        private final String table;
+        private final String keyColumn;
+        private final Object key;
+        private final Map<String, Object> columns = new LinkedHashMap<>();
+
+        PendingRow(String table, String keyColumn, Object key) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+            this.key = key;
+        }
+
+        String sql() {
+            StringBuilder sb = new StringBuilder("UPDATE ").append(table).append(" SET ");
+            boolean first = true;
+            for (String column : columns.keySet()) {
+                if (!first) sb.append(", ");
+                sb.append(column).append(" = ?");
+                first = false;
+            }
+            return sb.append(" WHERE ").append(keyColumn).append(" = ?").toString();
+        }
+    }
+}